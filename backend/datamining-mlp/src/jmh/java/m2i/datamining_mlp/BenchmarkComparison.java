@@ -0,0 +1,110 @@
+package m2i.datamining_mlp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, usually the checked-in baseline and a fresh run, benchmark by
+ * benchmark and parameter set by parameter set.
+ * <p>
+ * A benchmark regresses when its score got worse by more than the threshold and by more than the two
+ * error margins together, or when it allocates more than the threshold more per operation (from the gc
+ * profiler, when both runs used it). Exits with status 1 if anything regressed, so it can gate a build.
+ * <pre>
+ * BenchmarkComparison baseline.json result.json [thresholdPercent]
+ * </pre>
+ */
+public class BenchmarkComparison {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    // Allocation changes below this many bytes per operation are noise (e.g. one boxed value)
+    private static final double ALLOCATION_SLACK = 16;
+
+    record Result(String mode, double score, double error, String unit, Double allocation) {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <result.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %8s %12s %12s%n", "Benchmark", "Baseline", "Current", "Change",
+                "Alloc B/op", "Was B/op");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null || !before.unit().equals(now.unit()) || !before.mode().equals(now.mode())) {
+                System.out.printf("%-90s %14s %14.3f %8s %12s %12s  new%n", entry.getKey(), "-", now.score(), "",
+                        format(now.allocation()), "-");
+                continue;
+            }
+
+            // Throughput improves upwards, every other mode (times per operation) downwards
+            double change = (now.score() - before.score()) / before.score();
+            double worse = now.mode().equals("thrpt") ? -change : change;
+            boolean slower = worse > threshold
+                    && Math.abs(now.score() - before.score()) > now.error() + before.error();
+            boolean heavier = before.allocation() != null && now.allocation() != null
+                    && now.allocation() > before.allocation() * (1 + threshold) + ALLOCATION_SLACK;
+            if (slower || heavier) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+7.1f%% %12s %12s%s%n", entry.getKey(), before.score(),
+                    now.score(), change * 100, format(now.allocation()), format(before.allocation()),
+                    slower && heavier ? "  SLOWER, ALLOCATES MORE" : slower ? "  SLOWER" : heavier ? "  ALLOCATES MORE" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s  not run%n", key);
+            }
+        }
+
+        System.out.printf("%n%d of %d benchmarks regressed by more than %.0f%%%n", regressions, current.size(),
+                threshold * 100);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Results keyed by benchmark name and sorted parameters, e.g. {@code model.ClassifierBenchmark.predictSparse
+     * activation=RELU density=0.01 hiddenSizes=16}.
+     */
+    static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText().replace("m2i.datamining_mlp.", ""));
+            JsonNode params = run.get("params");
+            if (params != null) {
+                Map<String, String> sorted = new TreeMap<>();
+                for (Map.Entry<String, JsonNode> param : params.properties()) {
+                    sorted.put(param.getKey(), param.getValue().asText());
+                }
+                sorted.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+
+            JsonNode primary = run.get("primaryMetric");
+            JsonNode allocation = run.path("secondaryMetrics").get(ALLOCATION);
+            double error = primary.path("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(run.get("mode").asText(), primary.get("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, primary.get("scoreUnit").asText(),
+                    allocation != null ? allocation.get("score").asDouble() : null));
+        }
+        return results;
+    }
+
+    private static String format(Double allocation) {
+        return allocation == null ? "-" : String.format("%.0f", allocation);
+    }
+}
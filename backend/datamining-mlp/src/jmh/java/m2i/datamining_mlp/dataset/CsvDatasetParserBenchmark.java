@@ -0,0 +1,56 @@
+package m2i.datamining_mlp.dataset;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a dataset CSV shaped like the email dataset (id, word counts, label), whole and in one chunk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CsvDatasetParserBenchmark {
+
+    private static final int FEATURES = 3000;
+
+    @Param({"200", "2000"})
+    public int rows;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        StringBuilder text = new StringBuilder("Email No.");
+        for (int i = 0; i < FEATURES; i++) {
+            text.append(",w").append(i);
+        }
+        text.append(",Prediction\n");
+        for (int r = 0; r < rows; r++) {
+            text.append("Email ").append(r + 1);
+            for (int i = 0; i < FEATURES; i++) {
+                // Most counts are zero, a few run to two digits
+                int count = random.nextInt(20) == 0 ? random.nextInt(random.nextInt(10) == 0 ? 60 : 4) : 0;
+                text.append(',').append(count);
+            }
+            text.append(',').append(random.nextInt(2)).append('\n');
+        }
+        csv = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public LabeledDataset parse() {
+        return CsvDatasetParser.parse(csv);
+    }
+
+    @Benchmark
+    public LabeledDataset parseSingleChunk() {
+        return CsvDatasetParser.parse(csv, 1);
+    }
+}
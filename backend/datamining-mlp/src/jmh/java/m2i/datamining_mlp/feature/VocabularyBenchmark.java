@@ -0,0 +1,61 @@
+package m2i.datamining_mlp.feature;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import m2i.datamining_mlp.model.SparseVector;
+import m2i.datamining_mlp.service.ClassifierMetrics;
+import m2i.datamining_mlp.service.ClassifierService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Featurizing email text over the application vocabulary, for short to very long emails.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VocabularyBenchmark {
+
+    /** Words in the email; roughly half of them are vocabulary words. */
+    @Param({"50", "500", "5000"})
+    public int words;
+
+    private ClassifierService service;
+    private String email;
+
+    @Setup
+    public void setUp() {
+        service = new ClassifierService(null, null, null, new ClassifierMetrics(new SimpleMeterRegistry()), 0, 0);
+        Vocabulary vocabulary = ClassifierService.vocabulary();
+        Random random = new Random(5);
+        String[] separators = {" ", " ", " ", ", ", ". ", "\n", " - "};
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (random.nextBoolean()) {
+                String word = vocabulary.word(random.nextInt(vocabulary.size()));
+                text.append(random.nextInt(10) == 0 ? word.toUpperCase() : word);
+            } else {
+                int length = 3 + random.nextInt(7);
+                for (int c = 0; c < length; c++) {
+                    text.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            text.append(separators[random.nextInt(separators.length)]);
+        }
+        email = text.toString();
+    }
+
+    @Benchmark
+    public double[] textToFeatureVector() {
+        return service.textToFeatureVector(email);
+    }
+
+    @Benchmark
+    public SparseVector textToSparseFeatureVector() {
+        return service.textToSparseFeatureVector(email);
+    }
+}
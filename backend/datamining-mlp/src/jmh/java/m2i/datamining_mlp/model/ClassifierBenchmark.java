@@ -0,0 +1,104 @@
+package m2i.datamining_mlp.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prediction and training steps of one network, across architectures, activations and input sparsity.
+ * Inputs have the width of the email vocabulary; {@code density} is the share of non-zero features.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassifierBenchmark {
+
+    static final int FEATURES = 3000;
+    private static final int SAMPLES = 256;
+    private static final int BATCH = 32;
+
+    /** Hidden layer widths separated by 'x'. */
+    @Param({"16", "64x32"})
+    public String hiddenSizes;
+
+    @Param({"SIGMOID", "RELU"})
+    public Classifier.ActivationFunction activation;
+
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    private Classifier classifier;
+    private SparseVector[] sparse;
+    private double[][] dense;
+    private int[] targets;
+    private int[] order;
+    private BatchBuffers buffers;
+    private Gradients gradients;
+    private int next;
+
+    static int[] parseSizes(String spec) {
+        return Arrays.stream(spec.split("x")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        classifier = new Classifier(FEATURES, parseSizes(hiddenSizes), 0.01, activation);
+        dense = new double[SAMPLES][FEATURES];
+        sparse = new SparseVector[SAMPLES];
+        targets = new int[SAMPLES];
+        order = new int[SAMPLES];
+        for (int n = 0; n < SAMPLES; n++) {
+            for (int i = 0; i < FEATURES; i++) {
+                if (random.nextDouble() < density) {
+                    dense[n][i] = 1 + random.nextInt(4);
+                }
+            }
+            sparse[n] = SparseVector.fromDense(dense[n]);
+            targets[n] = random.nextInt(2);
+            order[n] = n;
+        }
+        buffers = classifier.newBatchBuffers(BATCH);
+        gradients = classifier.newGradients();
+    }
+
+    private int nextSample() {
+        next = (next + 1) % SAMPLES;
+        return next;
+    }
+
+    @Benchmark
+    public double predictSparse() {
+        return classifier.predict(sparse[nextSample()]);
+    }
+
+    @Benchmark
+    public double predictDense() {
+        return classifier.predict(dense[nextSample()]);
+    }
+
+    /** All {@value #SAMPLES} inputs in one call. */
+    @Benchmark
+    public double[] predictBatch() {
+        return classifier.predictBatch(sparse);
+    }
+
+    @Benchmark
+    public double trainSample() {
+        int n = nextSample();
+        return classifier.trainSample(sparse[n], targets[n]);
+    }
+
+    /** One update over {@value #BATCH} inputs. */
+    @Benchmark
+    public double trainBatch() {
+        int from = nextSample() / BATCH * BATCH;
+        next = from + BATCH - 1;
+        return classifier.trainBatch(sparse, targets, order, from, from + BATCH, buffers, gradients);
+    }
+}
@@ -0,0 +1,69 @@
+package m2i.datamining_mlp.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scalar and Vector API kernel backends side by side, at a hidden-layer width and at the input width.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KernelBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String backend;
+
+    @Param({"64", "3000"})
+    public int size;
+
+    private KernelBackend kernels;
+    private double[] x;
+    private double[] y;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        kernels = MatrixKernels.selectBackend(backend);
+        if (!kernels.name().startsWith(backend)) {
+            throw new IllegalStateException("Backend " + backend + " is not available, got " + kernels.name());
+        }
+        Random random = new Random(3);
+        x = new double[size];
+        y = new double[size];
+        out = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = random.nextGaussian();
+            y[i] = random.nextGaussian();
+        }
+    }
+
+    @Benchmark
+    public double dot() {
+        return kernels.dot(x, 0, y, 0, size);
+    }
+
+    @Benchmark
+    public void axpy(Blackhole blackhole) {
+        kernels.axpy(1e-9, x, 0, y, 0, size);
+        blackhole.consume(y);
+    }
+
+    @Benchmark
+    public void sigmoid(Blackhole blackhole) {
+        kernels.activate(Classifier.ActivationFunction.SIGMOID, x, 0, out, 0, size);
+        blackhole.consume(out);
+    }
+
+    @Benchmark
+    public void tanh(Blackhole blackhole) {
+        kernels.activate(Classifier.ActivationFunction.TANH, x, 0, out, 0, size);
+        blackhole.consume(out);
+    }
+}
@@ -0,0 +1,44 @@
+package m2i.datamining_mlp.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a stored model into a ready classifier and back, as done when a model is loaded or saved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelLoadBenchmark {
+
+    /** Hidden layer widths separated by 'x'. */
+    @Param({"16", "64x32"})
+    public String hiddenSizes;
+
+    @Param({"false", "true"})
+    public boolean float32;
+
+    private Classifier classifier;
+    private PretrainedModel model;
+
+    @Setup
+    public void setUp() {
+        classifier = new Classifier(ClassifierBenchmark.FEATURES, ClassifierBenchmark.parseSizes(hiddenSizes), 0.01,
+                Classifier.ActivationFunction.SIGMOID);
+        model = new PretrainedModel(classifier, null, float32);
+    }
+
+    @Benchmark
+    public Classifier toClassifier() {
+        return model.toClassifier();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ModelCodec.encode(classifier, float32, 0);
+    }
+}
@@ -0,0 +1,73 @@
+package m2i.datamining_mlp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import m2i.datamining_mlp.bulk.BulkScorer;
+import m2i.datamining_mlp.bulk.MailRecordReader;
+import m2i.datamining_mlp.bulk.MboxMailReader;
+import m2i.datamining_mlp.bulk.NdjsonMailReader;
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.ModelCodec;
+import m2i.datamining_mlp.service.ClassifierService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scores a local mail archive without starting the web application.
+ * <pre>
+ * BulkScoreCli --model model.mlpb [--format ndjson|mbox] [--threads N] [--max-in-flight N] [archive|-]
+ * </pre>
+ * The model file is the binary format written by {@code classifier.pretrained.local-file}. Results go to
+ * standard output as NDJSON, one line per email in archive order; the archive is read from standard
+ * input when omitted or "-".
+ */
+public class BulkScoreCli {
+
+    public static void main(String[] args) throws IOException {
+        Path model = null;
+        String format = "ndjson";
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxInFlight = 256;
+        String input = "-";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model" -> model = Path.of(args[++i]);
+                case "--format" -> format = args[++i].toLowerCase();
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                default -> input = args[i];
+            }
+        }
+        if (model == null || !(format.equals("ndjson") || format.equals("mbox"))) {
+            System.err.println("Usage: BulkScoreCli --model <file> [--format ndjson|mbox] [--threads N] "
+                    + "[--max-in-flight N] [archive|-]");
+            System.exit(2);
+        }
+
+        Classifier classifier = ModelCodec.read(model).classifier();
+        ObjectMapper objectMapper = new ObjectMapper();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try (InputStream in = input.equals("-") ? System.in : Files.newInputStream(Path.of(input))) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            MailRecordReader records = format.equals("mbox")
+                    ? new MboxMailReader(reader)
+                    : new NdjsonMailReader(reader, objectMapper);
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            long count = new BulkScorer(classifier, ClassifierService.vocabulary()::countSparse, workers,
+                    maxInFlight, objectMapper).score(records, out);
+            System.err.println("Scored " + count + " emails");
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
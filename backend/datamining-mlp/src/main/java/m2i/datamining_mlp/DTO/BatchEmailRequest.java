@@ -0,0 +1,9 @@
+package m2i.datamining_mlp.DTO;
+
+import java.util.List;
+
+public class BatchEmailRequest {
+    private List<String> emails;
+    public List<String> getEmails() { return emails; }
+    public void setEmails(List<String> emails) { this.emails = emails; }
+}
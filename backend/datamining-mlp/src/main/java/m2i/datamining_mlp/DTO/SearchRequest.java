@@ -0,0 +1,52 @@
+package m2i.datamining_mlp.DTO;
+
+import java.util.List;
+
+public class SearchRequest {
+    private String strategy; // GRID (every combination, default) or RANDOM (samples drawn from the space)
+    private List<int[]> hiddenSizes; // Candidate architectures
+    private List<String> activationFunctions; // Candidate activation functions
+    private List<Double> learningRates; // Candidate learning rates
+    private Double minLearningRate; // RANDOM only: with maxLearningRate, draw learning rates log-uniformly instead
+    private Double maxLearningRate;
+    private int samples; // RANDOM only: number of candidates
+    private int epochs; // Epochs for the candidates that survive every round
+    private int batchSize; // Samples per weight update; 0 or 1 trains one sample at a time
+    private int reductionFactor; // Successive halving keeps 1 in reductionFactor candidates per round; default 3
+    private Long seed; // Makes the drawn candidates (RANDOM) and every candidate's shuffles repeatable
+
+    public SearchRequest() {}
+
+    public String getStrategy() { return strategy; }
+    public void setStrategy(String strategy) { this.strategy = strategy; }
+
+    public List<int[]> getHiddenSizes() { return hiddenSizes; }
+    public void setHiddenSizes(List<int[]> hiddenSizes) { this.hiddenSizes = hiddenSizes; }
+
+    public List<String> getActivationFunctions() { return activationFunctions; }
+    public void setActivationFunctions(List<String> activationFunctions) { this.activationFunctions = activationFunctions; }
+
+    public List<Double> getLearningRates() { return learningRates; }
+    public void setLearningRates(List<Double> learningRates) { this.learningRates = learningRates; }
+
+    public Double getMinLearningRate() { return minLearningRate; }
+    public void setMinLearningRate(Double minLearningRate) { this.minLearningRate = minLearningRate; }
+
+    public Double getMaxLearningRate() { return maxLearningRate; }
+    public void setMaxLearningRate(Double maxLearningRate) { this.maxLearningRate = maxLearningRate; }
+
+    public int getSamples() { return samples; }
+    public void setSamples(int samples) { this.samples = samples; }
+
+    public int getEpochs() { return epochs; }
+    public void setEpochs(int epochs) { this.epochs = epochs; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public int getReductionFactor() { return reductionFactor; }
+    public void setReductionFactor(int reductionFactor) { this.reductionFactor = reductionFactor; }
+
+    public Long getSeed() { return seed; }
+    public void setSeed(Long seed) { this.seed = seed; }
+}
@@ -0,0 +1,77 @@
+package m2i.datamining_mlp.DTO;
+
+import java.util.List;
+
+public class SearchResponse {
+    private String status;
+    private String message;
+    private int candidates;
+    private int rounds;
+    private int threads;
+    private long totalTimeMs; // Wall-clock time of the whole search
+    private List<CandidateResult> leaderboard; // Best first
+
+    public static class CandidateResult {
+        private int rank;
+        private int[] hiddenSizes;
+        private String activationFunction;
+        private double learningRate;
+        private int epochsTrained;
+        private int roundsCompleted; // Rounds the candidate took part in; finalists completed them all
+        private double validationLoss; // Mean squared error on the validation set after the last round it ran
+        private double validationAccuracy;
+        private long trainingTimeMs; // Wall-clock time spent training this candidate
+
+        public CandidateResult() {}
+
+        public int getRank() { return rank; }
+        public void setRank(int rank) { this.rank = rank; }
+
+        public int[] getHiddenSizes() { return hiddenSizes; }
+        public void setHiddenSizes(int[] hiddenSizes) { this.hiddenSizes = hiddenSizes; }
+
+        public String getActivationFunction() { return activationFunction; }
+        public void setActivationFunction(String activationFunction) { this.activationFunction = activationFunction; }
+
+        public double getLearningRate() { return learningRate; }
+        public void setLearningRate(double learningRate) { this.learningRate = learningRate; }
+
+        public int getEpochsTrained() { return epochsTrained; }
+        public void setEpochsTrained(int epochsTrained) { this.epochsTrained = epochsTrained; }
+
+        public int getRoundsCompleted() { return roundsCompleted; }
+        public void setRoundsCompleted(int roundsCompleted) { this.roundsCompleted = roundsCompleted; }
+
+        public double getValidationLoss() { return validationLoss; }
+        public void setValidationLoss(double validationLoss) { this.validationLoss = validationLoss; }
+
+        public double getValidationAccuracy() { return validationAccuracy; }
+        public void setValidationAccuracy(double validationAccuracy) { this.validationAccuracy = validationAccuracy; }
+
+        public long getTrainingTimeMs() { return trainingTimeMs; }
+        public void setTrainingTimeMs(long trainingTimeMs) { this.trainingTimeMs = trainingTimeMs; }
+    }
+
+    public SearchResponse() {}
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public int getCandidates() { return candidates; }
+    public void setCandidates(int candidates) { this.candidates = candidates; }
+
+    public int getRounds() { return rounds; }
+    public void setRounds(int rounds) { this.rounds = rounds; }
+
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+
+    public long getTotalTimeMs() { return totalTimeMs; }
+    public void setTotalTimeMs(long totalTimeMs) { this.totalTimeMs = totalTimeMs; }
+
+    public List<CandidateResult> getLeaderboard() { return leaderboard; }
+    public void setLeaderboard(List<CandidateResult> leaderboard) { this.leaderboard = leaderboard; }
+}
@@ -5,6 +5,22 @@ public class TrainingRequest {
     private String activationFunction; // Activation function name
     private double learningRate;
     private int epochs;
+    private int batchSize; // Samples per weight update; 0 or 1 trains one sample at a time
+    private int threads; // Worker threads; 0 or 1 trains on the calling thread
+    private String parallelMode; // SYNC (gradient averaging, default) or HOGWILD (lock-free updates)
+    private double validationFraction; // Share of the training set held out for early stopping; 0 disables it
+    private int validationInterval; // Epochs between validation checks; 0 or 1 checks after every epoch
+    private int patience; // Epochs without improvement before stopping; 0 runs every epoch but keeps the best weights
+    private double minDelta; // Smallest validation loss decrease that counts as an improvement
+    private String optimizer; // SGD (default), MOMENTUM, NESTEROV or ADAM
+    private double momentum; // Velocity decay for MOMENTUM and NESTEROV; 0 uses 0.9
+    private double beta1; // First-moment decay for ADAM; 0 uses 0.9
+    private double beta2; // Second-moment decay for ADAM; 0 uses 0.999
+    private String learningRateSchedule; // CONSTANT (default), STEP, EXPONENTIAL or COSINE
+    private double learningRateDecay; // Factor per step for STEP (default 0.5) and per epoch for EXPONENTIAL (default 0.95)
+    private int learningRateStepSize; // Epochs between STEP decays; 0 uses 10
+    private int folds; // Cross-validation folds, trained in parallel one per core; 0 or 1 trains and publishes one model instead
+    private boolean profile; // Report the time spent per training phase and layer in the response
 
     public TrainingRequest() {}
 
@@ -46,4 +62,132 @@ public class TrainingRequest {
     public void setEpochs(int epochs) {
         this.epochs = epochs;
     }
-}
\ No newline at end of file
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public String getParallelMode() {
+        return parallelMode;
+    }
+
+    public void setParallelMode(String parallelMode) {
+        this.parallelMode = parallelMode;
+    }
+
+    public double getValidationFraction() {
+        return validationFraction;
+    }
+
+    public void setValidationFraction(double validationFraction) {
+        this.validationFraction = validationFraction;
+    }
+
+    public int getValidationInterval() {
+        return validationInterval;
+    }
+
+    public void setValidationInterval(int validationInterval) {
+        this.validationInterval = validationInterval;
+    }
+
+    public int getPatience() {
+        return patience;
+    }
+
+    public void setPatience(int patience) {
+        this.patience = patience;
+    }
+
+    public double getMinDelta() {
+        return minDelta;
+    }
+
+    public void setMinDelta(double minDelta) {
+        this.minDelta = minDelta;
+    }
+
+    public String getOptimizer() {
+        return optimizer;
+    }
+
+    public void setOptimizer(String optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    public double getMomentum() {
+        return momentum;
+    }
+
+    public void setMomentum(double momentum) {
+        this.momentum = momentum;
+    }
+
+    public double getBeta1() {
+        return beta1;
+    }
+
+    public void setBeta1(double beta1) {
+        this.beta1 = beta1;
+    }
+
+    public double getBeta2() {
+        return beta2;
+    }
+
+    public void setBeta2(double beta2) {
+        this.beta2 = beta2;
+    }
+
+    public String getLearningRateSchedule() {
+        return learningRateSchedule;
+    }
+
+    public void setLearningRateSchedule(String learningRateSchedule) {
+        this.learningRateSchedule = learningRateSchedule;
+    }
+
+    public double getLearningRateDecay() {
+        return learningRateDecay;
+    }
+
+    public void setLearningRateDecay(double learningRateDecay) {
+        this.learningRateDecay = learningRateDecay;
+    }
+
+    public int getLearningRateStepSize() {
+        return learningRateStepSize;
+    }
+
+    public void setLearningRateStepSize(int learningRateStepSize) {
+        this.learningRateStepSize = learningRateStepSize;
+    }
+
+    public int getFolds() {
+        return folds;
+    }
+
+    public void setFolds(int folds) {
+        this.folds = folds;
+    }
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+}
@@ -8,6 +8,16 @@ public class TrainingResponse {
     private String message;
     private TrainingMetrics metrics;
     private List<EpochLoss> epochLosses;
+    private List<PhaseTime> profile; // Time per training phase and layer, when the request asked for it
+    private long trainingTimeMs; // Wall-clock time of the epoch loop
+    private int threads;
+    private double parallelUtilization; // Summed worker compute time / wall-clock time (average busy workers)
+    private Double speedup; // Single-threaded first epoch time / parallel epoch time; null when not measured
+    private int epochsRun; // Fewer than requested when early stopping ended training
+    private boolean stoppedEarly;
+    private Integer bestEpoch; // Epoch whose weights were kept, when a validation split was used
+    private Double bestValidationLoss;
+    private long timeSavedMs; // Estimated from the average epoch time and the epochs not run
 
     public static class TrainingMetrics {
         private int totalEmails;
@@ -23,6 +33,12 @@ public class TrainingResponse {
         private int[] hiddenLayerSizes;
         private int numHiddenLayers;
         private String activationFunction;
+        // Cross-validation results; null after a single train-test split, where the rates above are those of the test set
+        private Integer folds;
+        private Double accuracyStdDev; // Sample standard deviation over the folds, as are the two below
+        private Double spamDetectionRateStdDev;
+        private Double nonSpamDetectionRateStdDev;
+        private double[] foldAccuracies;
 
         public TrainingMetrics() {}
 
@@ -63,6 +79,54 @@ public class TrainingResponse {
 
         public String getActivationFunction() { return activationFunction; }
         public void setActivationFunction(String activationFunction) { this.activationFunction = activationFunction; }
+
+        public Integer getFolds() { return folds; }
+        public void setFolds(Integer folds) { this.folds = folds; }
+
+        public Double getAccuracyStdDev() { return accuracyStdDev; }
+        public void setAccuracyStdDev(Double accuracyStdDev) { this.accuracyStdDev = accuracyStdDev; }
+
+        public Double getSpamDetectionRateStdDev() { return spamDetectionRateStdDev; }
+        public void setSpamDetectionRateStdDev(Double spamDetectionRateStdDev) { this.spamDetectionRateStdDev = spamDetectionRateStdDev; }
+
+        public Double getNonSpamDetectionRateStdDev() { return nonSpamDetectionRateStdDev; }
+        public void setNonSpamDetectionRateStdDev(Double nonSpamDetectionRateStdDev) { this.nonSpamDetectionRateStdDev = nonSpamDetectionRateStdDev; }
+
+        public double[] getFoldAccuracies() { return foldAccuracies; }
+        public void setFoldAccuracies(double[] foldAccuracies) { this.foldAccuracies = foldAccuracies; }
+    }
+
+    public static class PhaseTime {
+        private String phase;
+        private Integer layer; // Weight layer from the input, for the forward pass, backpropagation and updates
+        private double timeMs;
+        private long samples;
+        private double samplesPerSecond;
+
+        public PhaseTime() {}
+
+        public PhaseTime(String phase, Integer layer, long nanos, long samples) {
+            this.phase = phase;
+            this.layer = layer;
+            this.timeMs = nanos / 1e6;
+            this.samples = samples;
+            this.samplesPerSecond = nanos > 0 ? samples * 1e9 / nanos : 0;
+        }
+
+        public String getPhase() { return phase; }
+        public void setPhase(String phase) { this.phase = phase; }
+
+        public Integer getLayer() { return layer; }
+        public void setLayer(Integer layer) { this.layer = layer; }
+
+        public double getTimeMs() { return timeMs; }
+        public void setTimeMs(double timeMs) { this.timeMs = timeMs; }
+
+        public long getSamples() { return samples; }
+        public void setSamples(long samples) { this.samples = samples; }
+
+        public double getSamplesPerSecond() { return samplesPerSecond; }
+        public void setSamplesPerSecond(double samplesPerSecond) { this.samplesPerSecond = samplesPerSecond; }
     }
 
     public static class EpochLoss {
@@ -97,4 +161,34 @@ public class TrainingResponse {
 
     public List<EpochLoss> getEpochLosses() { return epochLosses; }
     public void setEpochLosses(List<EpochLoss> epochLosses) { this.epochLosses = epochLosses; }
-}
\ No newline at end of file
+
+    public List<PhaseTime> getProfile() { return profile; }
+    public void setProfile(List<PhaseTime> profile) { this.profile = profile; }
+
+    public long getTrainingTimeMs() { return trainingTimeMs; }
+    public void setTrainingTimeMs(long trainingTimeMs) { this.trainingTimeMs = trainingTimeMs; }
+
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+
+    public double getParallelUtilization() { return parallelUtilization; }
+    public void setParallelUtilization(double parallelUtilization) { this.parallelUtilization = parallelUtilization; }
+
+    public Double getSpeedup() { return speedup; }
+    public void setSpeedup(Double speedup) { this.speedup = speedup; }
+
+    public int getEpochsRun() { return epochsRun; }
+    public void setEpochsRun(int epochsRun) { this.epochsRun = epochsRun; }
+
+    public boolean isStoppedEarly() { return stoppedEarly; }
+    public void setStoppedEarly(boolean stoppedEarly) { this.stoppedEarly = stoppedEarly; }
+
+    public Integer getBestEpoch() { return bestEpoch; }
+    public void setBestEpoch(Integer bestEpoch) { this.bestEpoch = bestEpoch; }
+
+    public Double getBestValidationLoss() { return bestValidationLoss; }
+    public void setBestValidationLoss(Double bestValidationLoss) { this.bestValidationLoss = bestValidationLoss; }
+
+    public long getTimeSavedMs() { return timeSavedMs; }
+    public void setTimeSavedMs(long timeSavedMs) { this.timeSavedMs = timeSavedMs; }
+}
@@ -2,8 +2,10 @@ package m2i.datamining_mlp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DataminingMlpApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,114 @@
+package m2i.datamining_mlp.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.SparseVector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Scores a stream of emails with a bounded parallel pipeline and writes one NDJSON result line per email,
+ * in input order.
+ * <p>
+ * At most {@code maxInFlight} emails are read ahead of the output. When the oldest one is not scored yet,
+ * or the output blocks because the client reads slowly, reading stops. Memory therefore stays constant
+ * whatever the archive size. Output is flushed whenever the next result is not ready, so results reach
+ * the client as they are produced.
+ */
+public class BulkScorer {
+
+    private final Classifier classifier;
+    private final Function<String, SparseVector> featurizer;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param classifier Model to score with; only read, so it may be shared
+     * @param featurizer Email text to feature vector
+     * @param executor Runs the tokenizing and scoring of each email
+     * @param maxInFlight Emails read but not yet written, at most
+     */
+    public BulkScorer(Classifier classifier, Function<String, SparseVector> featurizer, Executor executor,
+                      int maxInFlight, ObjectMapper objectMapper) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.classifier = classifier;
+        this.featurizer = featurizer;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Scores every email from {@code reader} and writes the results to {@code out}.
+     * @return Number of emails read
+     */
+    public long score(MailRecordReader reader, Writer out) throws IOException {
+        Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>(maxInFlight);
+        long count = 0;
+        try {
+            MailRecord record;
+            while ((record = reader.next()) != null) {
+                if (inFlight.size() == maxInFlight) {
+                    writeOldest(inFlight, out);
+                }
+                MailRecord next = record;
+                inFlight.addLast(CompletableFuture.supplyAsync(() -> resultLine(next), executor));
+                count++;
+            }
+            while (!inFlight.isEmpty()) {
+                writeOldest(inFlight, out);
+            }
+            out.flush();
+            return count;
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static void writeOldest(Deque<CompletableFuture<String>> inFlight, Writer out) throws IOException {
+        out.write(inFlight.removeFirst().join());
+        out.write('\n');
+        CompletableFuture<String> next = inFlight.peekFirst();
+        if (next == null || !next.isDone()) {
+            out.flush();
+        }
+    }
+
+    private String resultLine(MailRecord record) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", record.index());
+        if (record.id() != null) {
+            result.put("id", record.id());
+        }
+        if (record.error() != null) {
+            result.put("error", record.error());
+        } else {
+            try {
+                double prediction = classifier.predict(featurizer.apply(record.text()));
+                boolean isSpam = prediction > 0.5;
+                result.put("prediction", prediction);
+                result.put("isSpam", isSpam);
+                result.put("classification", isSpam ? "SPAM" : "NOT SPAM");
+            } catch (RuntimeException e) {
+                result.put("error", "Prediction failed: " + e.getMessage());
+            }
+        }
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package m2i.datamining_mlp.bulk;
+
+/**
+ * One email read from an archive.
+ * @param index Position in the archive, from 0
+ * @param id Identifier from the input (NDJSON "id" or mbox Message-ID), or null
+ * @param text Email text, or null if the record could not be read
+ * @param error Why the record could not be read, or null
+ */
+public record MailRecord(long index, String id, String text, String error) {}
@@ -0,0 +1,15 @@
+package m2i.datamining_mlp.bulk;
+
+import java.io.IOException;
+
+/**
+ * Reads emails one at a time from a stream, so an archive is never held in memory as a whole.
+ */
+public interface MailRecordReader {
+
+    /**
+     * The next email, or null at the end of the input. Malformed records are returned with an error
+     * instead of ending the stream.
+     */
+    MailRecord next() throws IOException;
+}
@@ -0,0 +1,63 @@
+package m2i.datamining_mlp.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * mbox archives: each message starts with a "From " separator line. Quoted separators in bodies
+ * (">From ", ">>From ", ...) lose one '>' as in mboxrd. The record text is the full message,
+ * headers included; its id is the Message-ID header when present.
+ */
+public class MboxMailReader implements MailRecordReader {
+
+    private static final String SEPARATOR = "From ";
+    private static final String MESSAGE_ID = "message-id:";
+
+    private final BufferedReader reader;
+    private String pendingLine;
+    private boolean started;
+    private long index;
+
+    public MboxMailReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public MailRecord next() throws IOException {
+        if (!started) {
+            // Skip anything before the first separator
+            started = true;
+            do {
+                pendingLine = reader.readLine();
+            } while (pendingLine != null && !pendingLine.startsWith(SEPARATOR));
+        }
+        if (pendingLine == null) {
+            return null;
+        }
+
+        StringBuilder text = new StringBuilder();
+        String id = null;
+        boolean inHeaders = true;
+        String line;
+        while ((line = reader.readLine()) != null && !line.startsWith(SEPARATOR)) {
+            if (inHeaders) {
+                if (line.isEmpty()) {
+                    inHeaders = false;
+                } else if (id == null && line.regionMatches(true, 0, MESSAGE_ID, 0, MESSAGE_ID.length())) {
+                    id = line.substring(MESSAGE_ID.length()).trim();
+                }
+            }
+            text.append(unquote(line)).append('\n');
+        }
+        pendingLine = line;
+        return new MailRecord(index++, id, text.toString(), null);
+    }
+
+    private static String unquote(String line) {
+        int quotes = 0;
+        while (quotes < line.length() && line.charAt(quotes) == '>') {
+            quotes++;
+        }
+        return quotes > 0 && line.startsWith(SEPARATOR, quotes) ? line.substring(1) : line;
+    }
+}
@@ -0,0 +1,49 @@
+package m2i.datamining_mlp.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Newline-delimited JSON: one object per line with an "email" text and an optional "id".
+ * Blank lines are skipped.
+ */
+public class NdjsonMailReader implements MailRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private long index;
+
+    public NdjsonMailReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public MailRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        long recordIndex = index++;
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            JsonNode idNode = node.get("id");
+            String id = idNode != null && !idNode.isNull() ? idNode.asText() : null;
+            JsonNode email = node.get("email");
+            if (email == null || !email.isTextual()) {
+                return new MailRecord(recordIndex, id, null, "Missing \"email\" text");
+            }
+            return new MailRecord(recordIndex, id, email.asText(), null);
+        } catch (JsonProcessingException e) {
+            return new MailRecord(recordIndex, null, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+}
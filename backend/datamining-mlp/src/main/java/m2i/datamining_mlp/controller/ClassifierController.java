@@ -1,44 +1,241 @@
 package m2i.datamining_mlp.controller;
 
+import m2i.datamining_mlp.DTO.BatchEmailRequest;
 import m2i.datamining_mlp.DTO.EmailRequest;
+import m2i.datamining_mlp.DTO.SearchRequest;
+import m2i.datamining_mlp.DTO.SearchResponse;
 import m2i.datamining_mlp.DTO.TrainingRequest;
 import m2i.datamining_mlp.DTO.TrainingResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.SparseVector;
+import m2i.datamining_mlp.service.BulkScoringService;
 import m2i.datamining_mlp.service.ClassifierService;
+import m2i.datamining_mlp.service.HyperparameterSearchService;
+import m2i.datamining_mlp.service.LoadedModelCache;
+import m2i.datamining_mlp.service.ModelRegistry;
+import m2i.datamining_mlp.service.PredictionCache;
+import m2i.datamining_mlp.service.TrainingJob;
+import m2i.datamining_mlp.service.TrainingJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class ClassifierController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private ClassifierService classifierService;
 
+    @Autowired
+    private BulkScoringService bulkScoringService;
+
+    @Autowired
+    private TrainingJobService trainingJobService;
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Autowired
+    private HyperparameterSearchService hyperparameterSearchService;
+
+    /**
+     * Trains as a background job and answers when it finishes; the request thread is released meanwhile.
+     */
     @PostMapping("/train")
-    public ResponseEntity<TrainingResponse> trainModel(@RequestBody TrainingRequest request) {
-        TrainingResponse response = classifierService.trainModel(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<TrainingResponse>> trainModel(@RequestBody TrainingRequest request) {
+        try {
+            return trainingJobService.submit(request).getResult().thenApply(ResponseEntity::ok);
+        } catch (RejectedExecutionException e) {
+            TrainingResponse response = new TrainingResponse();
+            response.setStatus("error");
+            response.setMessage("Too many training jobs queued, try again later");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+        }
+    }
+
+    /**
+     * Trains candidates from a grid or random search space with successive halving and answers with a
+     * leaderboard, best first.
+     */
+    @PostMapping("/search")
+    public CompletableFuture<ResponseEntity<SearchResponse>> searchHyperparameters(@RequestBody SearchRequest request) {
+        try {
+            return hyperparameterSearchService.search(request).thenApply(ResponseEntity::ok);
+        } catch (RejectedExecutionException e) {
+            SearchResponse response = new SearchResponse();
+            response.setStatus("error");
+            response.setMessage("Too many searches queued, try again later");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+        }
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> submitTrainingJob(@RequestBody TrainingRequest request) {
+        try {
+            TrainingJob job = trainingJobService.submit(request);
+            return ResponseEntity.accepted().body(job.describe());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many training jobs queued, try again later"));
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> getTrainingJob(@PathVariable String id) {
+        return trainingJobService.find(id)
+                .map(job -> ResponseEntity.ok(job.describe()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-sent events for a job: "status", one "epoch" per completed epoch, and a final "result".
+     */
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTrainingJob(@PathVariable String id) {
+        return trainingJobService.subscribe(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> cancelTrainingJob(@PathVariable String id) {
+        if (trainingJobService.find(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean cancelled = trainingJobService.cancel(id);
+        return ResponseEntity.ok(Map.of("jobId", id, "cancelled", cancelled));
     }
 
 
     @PostMapping("/predict")
     public ResponseEntity<Map<String, Object>> predictEmail(@RequestBody EmailRequest request) {
-        double[] features = classifierService.textToFeatureVector(request.getEmail());
+        SparseVector features = classifierService.textToSparseFeatureVector(request.getEmail());
         Map<String, Object> result = classifierService.predictEmail(features);
         return ResponseEntity.ok(result);
     }
 
     @PostMapping("/pretrained-predict")
     public ResponseEntity<Map<String, Object>> predictPretrainedEmail(@RequestBody EmailRequest request) {
-        double[] features = classifierService.textToFeatureVector(request.getEmail());
+        SparseVector features = classifierService.textToSparseFeatureVector(request.getEmail());
         Map<String, Object> result = classifierService.predictPretrainedEmail(features);
         return ResponseEntity.ok(result);
     }
 
+    @PostMapping("/predict/batch")
+    public ResponseEntity<Map<String, Object>> predictEmails(@RequestBody BatchEmailRequest request) {
+        if (request.getEmails() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No emails provided"));
+        }
+        SparseVector[] features = classifierService.textsToSparseFeatureVectors(request.getEmails());
+        Map<String, Object> result = classifierService.predictEmails(features);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/pretrained-predict/batch")
+    public ResponseEntity<Map<String, Object>> predictPretrainedEmails(@RequestBody BatchEmailRequest request) {
+        if (request.getEmails() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No emails provided"));
+        }
+        SparseVector[] features = classifierService.textsToSparseFeatureVectors(request.getEmails());
+        Map<String, Object> result = classifierService.predictPretrainedEmails(features);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/predict/cache-stats")
+    public ResponseEntity<Map<String, PredictionCache.Stats>> getPredictionCacheStats() {
+        return ResponseEntity.ok(classifierService.getPredictionCacheStats());
+    }
+
+    @GetMapping("/models")
+    public ResponseEntity<List<Map<String, Object>>> listModels() {
+        return ResponseEntity.ok(modelRegistry.list(null).stream().map(ModelRegistry::describe).toList());
+    }
+
+    @GetMapping("/models/cache-stats")
+    public ResponseEntity<LoadedModelCache.Stats> getModelCacheStats() {
+        return ResponseEntity.ok(modelRegistry.cacheStats());
+    }
+
+    @GetMapping("/models/{name}")
+    public ResponseEntity<List<Map<String, Object>>> listModelVersions(@PathVariable String name) {
+        return ResponseEntity.ok(modelRegistry.list(name).stream().map(ModelRegistry::describe).toList());
+    }
+
+    /**
+     * Saves the last trained model as the next version of {@code name}.
+     */
+    @PostMapping("/models/{name}")
+    public ResponseEntity<Map<String, Object>> registerModel(@PathVariable String name) {
+        try {
+            return ResponseEntity.ok(classifierService.registerCurrentModel(name));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/models/{name}/predict")
+    public ResponseEntity<Map<String, Object>> predictWithModel(@PathVariable String name,
+                                                                @RequestParam(required = false) Integer version,
+                                                                @RequestBody EmailRequest request) {
+        SparseVector features = classifierService.textToSparseFeatureVector(request.getEmail());
+        Map<String, Object> result = classifierService.predictRegisteredEmail(name, version, features);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/models/{name}/predict/batch")
+    public ResponseEntity<Map<String, Object>> predictWithModelBatch(@PathVariable String name,
+                                                                     @RequestParam(required = false) Integer version,
+                                                                     @RequestBody BatchEmailRequest request) {
+        if (request.getEmails() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No emails provided"));
+        }
+        SparseVector[] features = classifierService.textsToSparseFeatureVectors(request.getEmails());
+        Map<String, Object> result = classifierService.predictRegisteredEmails(name, version, features);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Scores an archive streamed in the request body (NDJSON lines with an "email" field, or mbox)
+     * and streams back one NDJSON result line per email, in input order.
+     */
+    @PostMapping("/score/stream")
+    public ResponseEntity<?> scoreStream(HttpServletRequest request,
+                                         @RequestParam(defaultValue = "ndjson") String format,
+                                         @RequestParam(defaultValue = "false") boolean pretrained) throws IOException {
+        BulkScoringService.Format inputFormat;
+        try {
+            inputFormat = BulkScoringService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid format. Valid options: ndjson, mbox"));
+        }
+        Classifier classifier;
+        try {
+            classifier = bulkScoringService.resolveClassifier(pretrained);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        InputStream body = request.getInputStream();
+        StreamingResponseBody results = out -> bulkScoringService.score(classifier, body, inputFormat, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(results);
+    }
+
     @GetMapping("/metrics")
     public ResponseEntity<TrainingResponse.TrainingMetrics> getMetrics() {
         TrainingResponse.TrainingMetrics metrics = classifierService.getLastTrainingMetrics();
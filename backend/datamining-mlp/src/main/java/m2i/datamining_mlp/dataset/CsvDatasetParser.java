@@ -0,0 +1,291 @@
+package m2i.datamining_mlp.dataset;
+
+import m2i.datamining_mlp.model.SparseMatrix;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Parses the email CSV (header, then {@code id,feature...,label} rows) straight from bytes into a
+ * {@link LabeledDataset}, without building a {@code String} per line or field.
+ * <p>
+ * Plain decimal numbers are parsed in place; anything else (exponents, quotes, stray text) falls back
+ * to {@link Double#parseDouble}, with unparsable values read as 0 as before. Fields are trimmed, and
+ * double quotes are dropped while commas between them do not split. Zero counts are not stored, so
+ * the feature matrix is sparse. Files larger than a few megabytes are cut into chunks at line
+ * boundaries and parsed in parallel.
+ */
+public final class CsvDatasetParser {
+
+    // Smallest chunk worth handing to another thread
+    static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    // Exact powers of ten for in-place decimal parsing
+    private static final double[] POWERS_OF_TEN = new double[16];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private CsvDatasetParser() {}
+
+    public static LabeledDataset parse(Path file) throws IOException {
+        return parse(Files.readAllBytes(file));
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no header or data row, no feature column, or a row
+     *                                  is too short to hold the label column
+     */
+    public static LabeledDataset parse(byte[] data) {
+        int chunks = (int) Math.min(Runtime.getRuntime().availableProcessors(),
+                Math.max(1, data.length / MIN_CHUNK_BYTES));
+        return parse(data, chunks);
+    }
+
+    static LabeledDataset parse(byte[] data, int chunks) {
+        int headerEnd = lineEnd(data, 0);
+        int fields = countFields(data, 0, headerEnd);
+        if (isBlank(data, 0, headerEnd)) {
+            throw new IllegalArgumentException("Dataset is empty or invalid");
+        }
+        int featureCount = fields - 2; // excluding the ID and label columns
+        if (featureCount <= 0) {
+            throw new IllegalArgumentException("No valid features found in dataset");
+        }
+
+        // Chunk boundaries sit just after a newline, so every chunk holds whole lines
+        int bodyStart = Math.min(headerEnd + 1, data.length);
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = bodyStart;
+        for (int c = 1; c < chunks; c++) {
+            int guess = (int) (bodyStart + (long) (data.length - bodyStart) * c / chunks);
+            bounds[c] = Math.max(bounds[c - 1], Math.min(lineEnd(data, guess) + 1, data.length));
+        }
+        bounds[chunks] = data.length;
+
+        IntStream range = IntStream.range(0, chunks);
+        Chunk[] parsed = (chunks > 1 ? range.parallel() : range)
+                .mapToObj(c -> parseChunk(data, bounds[c], bounds[c + 1], featureCount))
+                .toArray(Chunk[]::new);
+        return merge(parsed, featureCount);
+    }
+
+    /**
+     * Rows of one chunk, in growable primitive arrays.
+     */
+    private static final class Chunk {
+        int rows;
+        int[] rowLengths = new int[64];
+        int[] labels = new int[64];
+        int entries;
+        int[] columns = new int[1024];
+        double[] values = new double[1024];
+
+        void add(int column, double value) {
+            if (entries == columns.length) {
+                columns = Arrays.copyOf(columns, entries * 2);
+                values = Arrays.copyOf(values, entries * 2);
+            }
+            columns[entries] = column;
+            values[entries] = value;
+            entries++;
+        }
+
+        void endRow(int length, int label) {
+            if (rows == labels.length) {
+                rowLengths = Arrays.copyOf(rowLengths, rows * 2);
+                labels = Arrays.copyOf(labels, rows * 2);
+            }
+            rowLengths[rows] = length;
+            labels[rows] = label;
+            rows++;
+        }
+    }
+
+    private static Chunk parseChunk(byte[] data, int from, int to, int featureCount) {
+        Chunk chunk = new Chunk();
+        int labelField = featureCount + 1;
+        int pos = from;
+        while (pos < to) {
+            int end = lineEnd(data, pos);
+            if (!isBlank(data, pos, end)) {
+                int rowStart = chunk.entries;
+                int label = 0;
+                int field = 0;
+                int fieldStart = pos;
+                while (field <= labelField) {
+                    int fieldEnd = fieldEnd(data, fieldStart, end);
+                    if (field == labelField) {
+                        label = parseLabel(data, fieldStart, fieldEnd);
+                    } else if (field > 0) {
+                        double value = parseValue(data, fieldStart, fieldEnd);
+                        if (value != 0.0) {
+                            chunk.add(field - 1, value);
+                        }
+                    }
+                    field++;
+                    if (fieldEnd == end && field <= labelField) {
+                        throw new IllegalArgumentException(String.format(
+                                "Malformed row: %d fields, expected %d", field, labelField + 1));
+                    }
+                    fieldStart = fieldEnd + 1;
+                }
+                chunk.endRow(chunk.entries - rowStart, label);
+            }
+            pos = end + 1;
+        }
+        return chunk;
+    }
+
+    private static LabeledDataset merge(Chunk[] chunks, int featureCount) {
+        int rows = 0;
+        int entries = 0;
+        for (Chunk chunk : chunks) {
+            rows += chunk.rows;
+            entries += chunk.entries;
+        }
+        if (rows == 0) {
+            throw new IllegalArgumentException("Dataset is empty or invalid");
+        }
+
+        int[] rowPointers = new int[rows + 1];
+        int[] columns = new int[entries];
+        double[] values = new double[entries];
+        int[] labels = new int[rows];
+        int row = 0;
+        int entry = 0;
+        for (Chunk chunk : chunks) {
+            System.arraycopy(chunk.columns, 0, columns, entry, chunk.entries);
+            System.arraycopy(chunk.values, 0, values, entry, chunk.entries);
+            System.arraycopy(chunk.labels, 0, labels, row, chunk.rows);
+            for (int r = 0; r < chunk.rows; r++) {
+                rowPointers[row + r + 1] = rowPointers[row + r] + chunk.rowLengths[r];
+            }
+            row += chunk.rows;
+            entry += chunk.entries;
+        }
+        return new LabeledDataset(new SparseMatrix(featureCount, rowPointers, columns, values), labels);
+    }
+
+    // Index of the '\n' ending the line at pos, or data.length
+    private static int lineEnd(byte[] data, int pos) {
+        while (pos < data.length && data[pos] != '\n') {
+            pos++;
+        }
+        return pos;
+    }
+
+    // Index of the comma ending the field at pos, or lineEnd; commas inside quotes do not count
+    private static int fieldEnd(byte[] data, int pos, int lineEnd) {
+        boolean inQuotes = false;
+        while (pos < lineEnd) {
+            byte b = data[pos];
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == ',' && !inQuotes) {
+                return pos;
+            }
+            pos++;
+        }
+        return lineEnd;
+    }
+
+    private static int countFields(byte[] data, int from, int to) {
+        int fields = 1;
+        for (int pos = fieldEnd(data, from, to); pos < to; pos = fieldEnd(data, pos + 1, to)) {
+            fields++;
+        }
+        return fields;
+    }
+
+    // Whitespace as String.trim() sees it, which also covers the '\r' of CRLF line endings
+    private static boolean isBlank(byte[] data, int from, int to) {
+        for (int pos = from; pos < to; pos++) {
+            if ((data[pos] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double parseValue(byte[] data, int from, int to) {
+        while (from < to && (data[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (data[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+
+        // Fast path: [-+]digits[.digits] with at most 15 significant digits, so the
+        // mantissa and the power of ten are exact and one division rounds correctly
+        int pos = from;
+        boolean negative = pos < to && data[pos] == '-';
+        if (pos < to && (data[pos] == '-' || data[pos] == '+')) {
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        for (; pos < to; pos++) {
+            byte b = data[pos];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (pos == to && digits > 0 && digits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        try {
+            return Double.parseDouble(unquote(data, from, to));
+        } catch (NumberFormatException e) {
+            return 0.0; // Default to 0 for invalid numbers
+        }
+    }
+
+    private static int parseLabel(byte[] data, int from, int to) {
+        while (from < to && (data[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (data[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        if (to - from == 1 && data[from] >= '0' && data[from] <= '9') {
+            return data[from] - '0';
+        }
+        try {
+            return Integer.parseInt(unquote(data, from, to));
+        } catch (NumberFormatException e) {
+            return 0; // Default to 0 for invalid target
+        }
+    }
+
+    private static String unquote(byte[] data, int from, int to) {
+        byte[] field = new byte[to - from];
+        int length = 0;
+        for (int pos = from; pos < to; pos++) {
+            if (data[pos] != '"') {
+                field[length++] = data[pos];
+            }
+        }
+        return new String(field, 0, length, StandardCharsets.UTF_8).trim();
+    }
+}
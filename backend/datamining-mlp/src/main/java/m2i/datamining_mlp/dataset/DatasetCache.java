@@ -0,0 +1,224 @@
+package m2i.datamining_mlp.dataset;
+
+import m2i.datamining_mlp.model.SparseMatrix;
+import m2i.datamining_mlp.model.SparseVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps parsed datasets so repeated training runs skip CSV parsing.
+ * <p>
+ * The last dataset is held in memory, and each parse is also written to a binary sidecar file next to
+ * the CSV ({@code emails.csv.bin}), which later runs memory-map instead of parsing text, including after
+ * a restart. The sidecar records the size, modification time and CRC32C of the CSV it was built from.
+ * It is used when size and time match. When only the time differs, the CSV is hashed, and a matching
+ * hash means the file was touched but not changed.
+ * <p>
+ * Sidecar layout, all little-endian:
+ * <pre>
+ * int    magic "MLPD"
+ * int    format version
+ * long   source size, source modification time (ms), source CRC32C
+ * int    rows, columns, stored entries
+ * int[rows + 1]  row pointers
+ * int[entries]   column indices
+ * double[entries] values
+ * int[rows]      labels
+ * </pre>
+ */
+@Component
+public class DatasetCache {
+
+    public static final int MAGIC = 0x44504C4D; // "MLPD" read as a little-endian int
+    public static final int FORMAT_VERSION = 1;
+
+    static final String SIDECAR_SUFFIX = ".bin";
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 * 3 + 4 * 3;
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetCache.class);
+
+    /**
+     * Identity of a CSV file; {@code hash} is 0 until it has been computed.
+     */
+    private record SourceKey(Path path, long size, long modifiedMillis, long hash) {
+        boolean sameStat(SourceKey other) {
+            return path.equals(other.path) && size == other.size && modifiedMillis == other.modifiedMillis;
+        }
+    }
+
+    private record Entry(SourceKey source, LabeledDataset dataset) {}
+
+    private Entry current;
+
+    /**
+     * The dataset in {@code csv}, from memory, from the sidecar file, or parsed, in that order of preference.
+     * @throws IllegalArgumentException as {@link CsvDatasetParser#parse(byte[])} for invalid CSV content
+     */
+    public synchronized LabeledDataset load(Path csv) throws IOException {
+        Path file = csv.toAbsolutePath().normalize();
+        SourceKey source = stat(file);
+        if (current != null && current.source().sameStat(source)) {
+            return current.dataset();
+        }
+
+        Path sidecar = sidecarOf(file);
+        LabeledDataset dataset = readSidecar(sidecar, source);
+        if (dataset == null) {
+            long start = System.nanoTime();
+            byte[] data = Files.readAllBytes(file);
+            dataset = CsvDatasetParser.parse(data);
+            source = new SourceKey(file, source.size(), source.modifiedMillis(), hash(ByteBuffer.wrap(data)));
+            log.info("Parsed {} rows from {} in {} ms", dataset.size(), file, (System.nanoTime() - start) / 1_000_000);
+            writeSidecar(sidecar, source, dataset);
+        }
+        current = new Entry(source, dataset);
+        return dataset;
+    }
+
+    /**
+     * Drops the in-memory copy; the sidecar file stays valid.
+     */
+    public synchronized void clear() {
+        current = null;
+    }
+
+    static Path sidecarOf(Path csv) {
+        return csv.resolveSibling(csv.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    private static SourceKey stat(Path file) throws IOException {
+        return new SourceKey(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), 0);
+    }
+
+    private static long hash(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    private static long hashFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CRC32C crc = new CRC32C();
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, size - position)));
+            }
+            return crc.getValue();
+        }
+    }
+
+    // The sidecar's dataset if it was built from this source, otherwise null
+    private LabeledDataset readSidecar(Path sidecar, SourceKey source) {
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long size = buffer.getLong();
+            long modifiedMillis = buffer.getLong();
+            long hash = buffer.getLong();
+            if (size != source.size()) {
+                return null;
+            }
+            if (modifiedMillis != source.modifiedMillis() && hash != hashFile(source.path())) {
+                return null;
+            }
+
+            int rows = buffer.getInt();
+            int columns = buffer.getInt();
+            int entries = buffer.getInt();
+            if (rows < 0 || entries < 0 || channel.size() != fileSize(rows, entries)) {
+                throw new IllegalArgumentException("Truncated or corrupt file");
+            }
+            int[] rowPointers = new int[rows + 1];
+            int[] columnIndices = new int[entries];
+            double[] values = new double[entries];
+            int[] labels = new int[rows];
+            getInts(buffer, rowPointers);
+            getInts(buffer, columnIndices);
+            buffer.asDoubleBuffer().get(values);
+            buffer.position(buffer.position() + entries * Double.BYTES);
+            getInts(buffer, labels);
+
+            LabeledDataset dataset = new LabeledDataset(
+                    new SparseMatrix(columns, rowPointers, columnIndices, values), labels);
+            if (modifiedMillis != source.modifiedMillis()) {
+                // Same content under a new timestamp: refresh the key so the next run skips the hash
+                writeSidecar(sidecar, new SourceKey(source.path(), size, source.modifiedMillis(), hash), dataset);
+            }
+            log.info("Loaded {} rows from dataset cache {}", rows, sidecar);
+            return dataset;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable dataset cache {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeSidecar(Path sidecar, SourceKey source, LabeledDataset dataset) {
+        SparseMatrix features = dataset.features();
+        int rows = features.rows();
+        int entries = features.nonZeroCount();
+        long bytes = fileSize(rows, entries);
+        if (bytes > Integer.MAX_VALUE) {
+            log.warn("Dataset too large for the cache file format: {} bytes", bytes);
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION);
+        buffer.putLong(source.size()).putLong(source.modifiedMillis()).putLong(source.hash());
+        buffer.putInt(rows).putInt(features.columns()).putInt(entries);
+
+        int pointersAt = buffer.position();
+        int columnsAt = pointersAt + 4 * (rows + 1);
+        int valuesAt = columnsAt + 4 * entries;
+        int labelsAt = valuesAt + Double.BYTES * entries;
+        int entry = 0;
+        buffer.putInt(pointersAt, 0);
+        for (int r = 0; r < rows; r++) {
+            SparseVector row = features.row(r);
+            for (int k = 0; k < row.nonZeroCount(); k++, entry++) {
+                buffer.putInt(columnsAt + 4 * entry, row.indexAt(k));
+                buffer.putDouble(valuesAt + Double.BYTES * entry, row.valueAt(k));
+            }
+            buffer.putInt(pointersAt + 4 * (r + 1), entry);
+            buffer.putInt(labelsAt + 4 * r, dataset.labels()[r]);
+        }
+
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try {
+            Files.write(temp, buffer.array());
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write dataset cache {}: {}", sidecar, e.getMessage());
+        }
+    }
+
+    private static long fileSize(int rows, int entries) {
+        return HEADER_BYTES + 4L * (rows + 1) + (4L + Double.BYTES) * entries + 4L * rows;
+    }
+
+    private static void getInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+}
@@ -0,0 +1,110 @@
+package m2i.datamining_mlp.dataset;
+
+import m2i.datamining_mlp.model.SparseMatrix;
+import m2i.datamining_mlp.model.SparseVector;
+
+import java.util.Random;
+
+/**
+ * Feature rows and their 0/1 labels, one label per row of {@code features}.
+ */
+public record LabeledDataset(SparseMatrix features, int[] labels) {
+
+    /**
+     * Rows divided into a training part and a held-out test part. Feature rows are views into the dataset.
+     */
+    public record Split(SparseVector[] trainFeatures, int[] trainLabels, SparseVector[] testFeatures, int[] testLabels) {}
+
+    public LabeledDataset {
+        if (features.rows() != labels.length) {
+            throw new IllegalArgumentException("Expected one label per row");
+        }
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public int featureCount() {
+        return features.columns();
+    }
+
+    /**
+     * Number of rows labelled 1.
+     */
+    public int positiveCount() {
+        int count = 0;
+        for (int label : labels) {
+            if (label == 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Shuffles the rows with {@code seed} and puts the first {@code trainFraction} of them in the training part.
+     * The same seed always gives the same split.
+     */
+    public Split split(double trainFraction, long seed) {
+        int total = size();
+        int trainSize = (int) (total * trainFraction);
+        int[] indices = shuffledIndices(seed);
+        return new Split(features.rows(indices, 0, trainSize), labelsAt(indices, 0, trainSize),
+                features.rows(indices, trainSize, total), labelsAt(indices, trainSize, total));
+    }
+
+    /**
+     * Shuffles the rows with {@code seed} and deals them into {@code k} folds of near-equal size.
+     * Split {@code f} tests on fold {@code f} and trains on all the others, so every row is tested exactly once.
+     */
+    public Split[] folds(int k, long seed) {
+        int total = size();
+        if (k < 2 || k > total) {
+            throw new IllegalArgumentException("Fold count must be between 2 and the number of rows");
+        }
+        int[] indices = shuffledIndices(seed);
+
+        Split[] splits = new Split[k];
+        for (int f = 0; f < k; f++) {
+            int from = (int) ((long) total * f / k);
+            int to = (int) ((long) total * (f + 1) / k);
+
+            // Training rows keep their shuffled order around the held-out fold
+            int[] trainIndices = new int[total - (to - from)];
+            System.arraycopy(indices, 0, trainIndices, 0, from);
+            System.arraycopy(indices, to, trainIndices, from, total - to);
+            splits[f] = new Split(features.rows(trainIndices, 0, trainIndices.length),
+                    labelsAt(trainIndices, 0, trainIndices.length),
+                    features.rows(indices, from, to), labelsAt(indices, from, to));
+        }
+        return splits;
+    }
+
+    /**
+     * Fisher-Yates over row indices; rows are then selected as views, not copied.
+     */
+    private int[] shuffledIndices(long seed) {
+        int total = size();
+        int[] indices = new int[total];
+        for (int i = 0; i < total; i++) {
+            indices[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = total - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = tmp;
+        }
+        return indices;
+    }
+
+    private int[] labelsAt(int[] indices, int from, int to) {
+        int[] selected = new int[to - from];
+        for (int i = from; i < to; i++) {
+            selected[i - from] = labels[indices[i]];
+        }
+        return selected;
+    }
+}
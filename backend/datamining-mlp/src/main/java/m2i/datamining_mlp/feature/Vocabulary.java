@@ -0,0 +1,230 @@
+package m2i.datamining_mlp.feature;
+
+import m2i.datamining_mlp.model.SparseVector;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Word-to-column index for the feature vocabulary, with a single-pass tokenizer.
+ * <p>
+ * Words live in an open-addressing hash table keyed by a hash that the tokenizer computes while it
+ * scans and lowercases the text, so a token is looked up without ever being copied into a
+ * {@code String}. Tokens are maximal runs of characters that are neither whitespace nor ASCII
+ * punctuation, which matches splitting on {@code [\s\p{Punct}]+}.
+ */
+public final class Vocabulary {
+
+    private static final int EMPTY = -1;
+
+    // Hash reserved for tokens containing a character no vocabulary word can lowercase to
+    private static final int NO_MATCH_HASH = 0x80000000;
+
+    // Characters that separate tokens: \s and \p{Punct} in java.util.regex terms
+    private static final boolean[] SEPARATOR = new boolean[128];
+
+    static {
+        for (char c : " \t\n\u000B\f\r".toCharArray()) {
+            SEPARATOR[c] = true;
+        }
+        for (char c : "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".toCharArray()) {
+            SEPARATOR[c] = true;
+        }
+    }
+
+    private final String[] words;
+    private final int[] wordHashes; // [column]
+    private final int[] table;      // slot -> column, or EMPTY
+    private final int mask;
+    private final int maxWordLength;
+
+    /**
+     * @param words Words made of lowercase ASCII letters and digits; the position of each word is its column
+     * @throws IllegalArgumentException if a word is empty, has other characters or is repeated
+     */
+    public Vocabulary(String[] words) {
+        this.words = words.clone();
+        this.wordHashes = new int[words.length];
+
+        // Keep the load factor at or below 0.5 so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(2, words.length) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(table, EMPTY);
+
+        int longest = 0;
+        for (int column = 0; column < words.length; column++) {
+            String word = words[column];
+            if (word.isEmpty() || !word.chars().allMatch(c -> toLowerAscii((char) c) == c)) {
+                throw new IllegalArgumentException("Vocabulary words must be non-empty lowercase ASCII: " + word);
+            }
+            if (indexOf(word) != EMPTY) {
+                throw new IllegalArgumentException("Duplicate vocabulary word: " + word);
+            }
+            int hash = lowercaseHash(word, 0, word.length());
+            wordHashes[column] = hash;
+            int slot = spread(hash) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = column;
+            longest = Math.max(longest, word.length());
+        }
+        this.maxWordLength = longest;
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public String word(int column) {
+        return words[column];
+    }
+
+    /**
+     * Column of a token, compared case-insensitively, or -1 if it is not in the vocabulary.
+     */
+    public int indexOf(CharSequence token) {
+        return lookup(token, 0, token.length(), lowercaseHash(token, 0, token.length()));
+    }
+
+    /**
+     * Adds one to {@code counts[column]} for every token of {@code text} that is in the vocabulary.
+     */
+    public void count(CharSequence text, double[] counts) {
+        forEachColumn(text, column -> counts[column]++);
+    }
+
+    /**
+     * Word counts of {@code text} as a sparse vector over the vocabulary's columns.
+     */
+    public SparseVector countSparse(CharSequence text) {
+        ColumnList columns = new ColumnList();
+        forEachColumn(text, columns);
+        return SparseVector.ofCounts(words.length, columns.columns, columns.size);
+    }
+
+    /**
+     * Tokenizes {@code text} in one pass and reports the column of every token found in the vocabulary,
+     * in order of appearance. Tokens that are not in the vocabulary cost one hash probe at most.
+     */
+    public void forEachColumn(CharSequence text, IntConsumer sink) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            // Skip separators
+            while (i < length && isSeparator(text.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+
+            // Hash the lowercased token while scanning to its end
+            int start = i;
+            int hash = 0;
+            boolean candidate = true;
+            while (i < length) {
+                char c = text.charAt(i);
+                if (isSeparator(c)) {
+                    break;
+                }
+                if (candidate) {
+                    char lower = toLowerAscii(c);
+                    if (lower == 0 || i - start >= maxWordLength) {
+                        candidate = false; // cannot be a vocabulary word; just find its end
+                    } else {
+                        hash = 31 * hash + lower;
+                    }
+                }
+                i++;
+            }
+
+            if (candidate) {
+                int column = lookup(text, start, i, avoidReserved(hash));
+                if (column != EMPTY) {
+                    sink.accept(column);
+                }
+            }
+        }
+    }
+
+    private int lookup(CharSequence text, int start, int end, int hash) {
+        if (hash == NO_MATCH_HASH) {
+            return EMPTY;
+        }
+        int slot = spread(hash) & mask;
+        int column;
+        while ((column = table[slot]) != EMPTY) {
+            if (wordHashes[column] == hash && matches(words[column], text, start, end)) {
+                return column;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private static boolean matches(String word, CharSequence text, int start, int end) {
+        if (word.length() != end - start) {
+            return false;
+        }
+        for (int k = 0; k < word.length(); k++) {
+            if (word.charAt(k) != toLowerAscii(text.charAt(start + k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lowercaseHash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int k = start; k < end; k++) {
+            char lower = toLowerAscii(text.charAt(k));
+            if (lower == 0) {
+                return NO_MATCH_HASH;
+            }
+            hash = 31 * hash + lower;
+        }
+        return avoidReserved(hash);
+    }
+
+    private static int avoidReserved(int hash) {
+        return hash == NO_MATCH_HASH ? hash + 1 : hash;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c < 128 && SEPARATOR[c];
+    }
+
+    /**
+     * Lowercase form of {@code c} if it is an ASCII letter or digit after lowercasing, otherwise 0.
+     * Besides A-Z, only the Kelvin sign lowercases to an ASCII letter.
+     */
+    private static char toLowerAscii(char c) {
+        if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+            return c;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c == '\u212A' ? 'k' : 0;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Growable list of matched columns, in order of appearance
+    private static final class ColumnList implements IntConsumer {
+        int[] columns = new int[32];
+        int size;
+
+        @Override
+        public void accept(int column) {
+            if (size == columns.length) {
+                columns = Arrays.copyOf(columns, size * 2);
+            }
+            columns[size++] = column;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package m2i.datamining_mlp.model;
+
+/**
+ * Activation function of one layer, applied to whole arrays at once.
+ * <p>
+ * Derivatives are taken from the activations the forward pass stored, never from the pre-activations:
+ * {@code a(1 - a)} for sigmoid, {@code 1 - a^2} for tanh, and the sign of {@code a} for the rectifiers,
+ * so backpropagation runs no {@code exp} or {@code tanh} at all. Instances are stateless and shared;
+ * obtain them from {@link #of(Classifier.ActivationFunction)}.
+ */
+public abstract class Activation {
+
+    private static final Activation[] INSTANCES = new Activation[Classifier.ActivationFunction.values().length];
+
+    static {
+        for (Classifier.ActivationFunction function : Classifier.ActivationFunction.values()) {
+            INSTANCES[function.ordinal()] = create(function);
+        }
+    }
+
+    private final Classifier.ActivationFunction function;
+
+    private Activation(Classifier.ActivationFunction function) {
+        this.function = function;
+    }
+
+    public static Activation of(Classifier.ActivationFunction function) {
+        return INSTANCES[function.ordinal()];
+    }
+
+    private static Activation create(Classifier.ActivationFunction function) {
+        return switch (function) {
+            case SIGMOID -> new Sigmoid();
+            case TANH -> new Tanh();
+            case RELU -> new Rectifier(function, 0.0);
+            case LEAKY_RELU -> new Rectifier(function, 0.01);
+        };
+    }
+
+    public Classifier.ActivationFunction function() {
+        return function;
+    }
+
+    /**
+     * {@code out[outOffset + i] = f(z[zOffset + i])} for {@code i < n}; {@code out} may be {@code z}.
+     */
+    public void apply(double[] z, int zOffset, double[] out, int outOffset, int n) {
+        MatrixKernels.activate(function, z, zOffset, out, outOffset, n);
+    }
+
+    /**
+     * {@code delta[deltaOffset + i] *= f'(z)} for {@code i < n}, where {@code a[aOffset + i] = f(z)} are the
+     * activations this function produced.
+     */
+    public abstract void multiplyDerivative(double[] a, int aOffset, double[] delta, int deltaOffset, int n);
+
+    private static final class Sigmoid extends Activation {
+
+        Sigmoid() {
+            super(Classifier.ActivationFunction.SIGMOID);
+        }
+
+        @Override
+        public void multiplyDerivative(double[] a, int aOffset, double[] delta, int deltaOffset, int n) {
+            for (int i = 0; i < n; i++) {
+                double value = a[aOffset + i];
+                delta[deltaOffset + i] *= value * (1 - value);
+            }
+        }
+    }
+
+    private static final class Tanh extends Activation {
+
+        Tanh() {
+            super(Classifier.ActivationFunction.TANH);
+        }
+
+        @Override
+        public void multiplyDerivative(double[] a, int aOffset, double[] delta, int deltaOffset, int n) {
+            for (int i = 0; i < n; i++) {
+                double value = a[aOffset + i];
+                delta[deltaOffset + i] *= 1 - value * value;
+            }
+        }
+    }
+
+    // f(z) = z for z > 0, slope * z otherwise; a keeps the sign of z, so it tells the two branches apart
+    private static final class Rectifier extends Activation {
+        private final double slope;
+
+        Rectifier(Classifier.ActivationFunction function, double slope) {
+            super(function);
+            this.slope = slope;
+        }
+
+        @Override
+        public void multiplyDerivative(double[] a, int aOffset, double[] delta, int deltaOffset, int n) {
+            for (int i = 0; i < n; i++) {
+                delta[deltaOffset + i] *= a[aOffset + i] > 0 ? 1 : slope;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package m2i.datamining_mlp.model;
+
+import java.util.Arrays;
+
+/**
+ * Preallocated per-layer activation arrays for one forward pass.
+ * Obtain one from {@link Classifier#newBuffers()} and reuse it across calls on the same thread.
+ */
+public class ActivationBuffers {
+    private final int[] layerSizes;
+    private final double[][] activations; // [layer][neuron], layer 0 is the first hidden layer
+
+    ActivationBuffers(int[] layerSizes) {
+        this.layerSizes = layerSizes.clone();
+        this.activations = new double[layerSizes.length - 1][];
+        for (int layer = 0; layer < activations.length; layer++) {
+            activations[layer] = new double[layerSizes[layer + 1]];
+        }
+    }
+
+    /**
+     * Output activations of the given layer (0 = first hidden layer) from the last forward pass.
+     */
+    public double[] getActivations(int layer) {
+        return activations[layer];
+    }
+
+    double[][] activations() {
+        return activations;
+    }
+
+    /**
+     * Whether these buffers were sized for a network with the given layer widths.
+     */
+    boolean fits(int[] sizes) {
+        return Arrays.equals(layerSizes, sizes);
+    }
+}
@@ -0,0 +1,52 @@
+package m2i.datamining_mlp.model;
+
+import java.util.Arrays;
+
+/**
+ * Preallocated row-major matrices for forward and backward passes over a mini-batch.
+ * Obtain one from {@link Classifier#newBatchBuffers(int)}; not safe for concurrent use.
+ */
+public class BatchBuffers {
+    private final int capacity;
+    private final int[] layerSizes;
+
+    final double[] input;            // [capacity][inputSize], null for sparse-only buffers
+    final double[][] activations;    // [layer][capacity * fanOut], pre-activations until activated in place
+    final double[][] deltas;         // [layer][capacity * fanOut]
+
+    BatchBuffers(int[] layerSizes, int capacity) {
+        this(layerSizes, capacity, true);
+    }
+
+    /**
+     * @param denseInput Whether to allocate the dense input block; sparse batches never use it
+     */
+    BatchBuffers(int[] layerSizes, int capacity, boolean denseInput) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.layerSizes = layerSizes.clone();
+        this.input = denseInput ? new double[capacity * layerSizes[0]] : null;
+
+        int totalLayers = layerSizes.length - 1;
+        this.activations = new double[totalLayers][];
+        this.deltas = new double[totalLayers][];
+        for (int layer = 0; layer < totalLayers; layer++) {
+            int size = capacity * layerSizes[layer + 1];
+            activations[layer] = new double[size];
+            deltas[layer] = new double[size];
+        }
+    }
+
+    /**
+     * Maximum number of samples per batch.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    boolean fits(int[] sizes) {
+        return Arrays.equals(layerSizes, sizes);
+    }
+}
@@ -1,19 +1,31 @@
 package m2i.datamining_mlp.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Arrays;
 import java.util.Random;
 
 @Setter
 @Getter
 public class Classifier {
-    // Network architecture
+    // Network architecture, fixed at construction
+    @Setter(AccessLevel.NONE)
     private int inputSize;
+    @Setter(AccessLevel.NONE)
     private int[] hiddenSizes;  // Array to store sizes of each hidden layer
+    @Setter(AccessLevel.NONE)
     private int outputSize;
+    @Setter(AccessLevel.NONE)
     private int numHiddenLayers;
 
+    // Bound on |tanh(x) - Math.tanh(x)|: a few ulps of 1, from rounding exp and the division near x = 0
+    static final double TANH_ABSOLUTE_ERROR = 1e-15;
+
+    // Inputs per batched forward pass in predictBatch; bounds the buffers at PREDICT_BLOCK x widest layer
+    static final int PREDICT_BLOCK = 256;
+
     // Activation function enum
     public enum ActivationFunction {
         SIGMOID, TANH, RELU, LEAKY_RELU
@@ -21,9 +33,22 @@ public class Classifier {
 
     private ActivationFunction activationFunction;
 
-    // Weights and biases - now arrays for multiple layers
-    private double[][][] weights;  // [layer][from][to]
-    private double[][] biases;     // [layer][neuron]
+    // Activation of every weight layer: activationFunction for the hidden layers, sigmoid for the output
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Activation[] layerActivations;
+
+    // Weights and biases - one contiguous block per layer
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private double[][] layerWeights;  // [layer][to * fanIn + from], row-major per output neuron
+    @Setter(AccessLevel.NONE)
+    private double[][] biases;        // [layer][neuron]
+
+    // Layer widths: [inputSize, hiddenSizes..., outputSize]
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[] layerSizes;
 
     // Learning rate
     private double learningRate;
@@ -31,16 +56,77 @@ public class Classifier {
     // Random generator
     private Random random;
 
+    // Update rule for mini-batch training; null applies plain SGD
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Optimizer optimizer;
+
+    // Times the phases of trainSample and trainBatch per layer when set; null skips the clock reads
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient TrainingProfiler profiler;
+
+    // Per-thread activation buffers so predict allocates nothing at steady state; shared by architecture,
+    // so short-lived classifiers leave nothing behind in the pool threads that ran them
+    private static final ThreadScratch<ActivationBuffers> THREAD_BUFFERS =
+            new ThreadScratch<>(ActivationBuffers::fits, ActivationBuffers::new, ActivationBuffers[]::new);
+
+    // Per-thread sparse-only batch buffers for predictBatch, which runs PREDICT_BLOCK inputs at a time
+    private static final ThreadScratch<BatchBuffers> THREAD_BATCH_BUFFERS = new ThreadScratch<>(
+            BatchBuffers::fits, sizes -> new BatchBuffers(sizes, PREDICT_BLOCK, false), BatchBuffers[]::new);
+
     public Classifier(int inputSize, int[] hiddenSizes, double learningRate, ActivationFunction activationFunction) {
+        this(inputSize, hiddenSizes, learningRate, activationFunction, true);
+    }
+
+    private Classifier(int inputSize, int[] hiddenSizes, double learningRate, ActivationFunction activationFunction,
+                       boolean randomWeights) {
         this.inputSize = inputSize;
         this.hiddenSizes = hiddenSizes.clone();
         this.numHiddenLayers = hiddenSizes.length;
         this.outputSize = 1; // Binary classification (spam or not)
         this.learningRate = learningRate;
         this.activationFunction = activationFunction;
+        this.layerActivations = layerActivations(activationFunction);
         this.random = new Random(42); // Fixed seed
 
-        initializeWeights();
+        this.layerSizes = new int[numHiddenLayers + 2];
+        this.layerSizes[0] = inputSize;
+        System.arraycopy(this.hiddenSizes, 0, this.layerSizes, 1, numHiddenLayers);
+        this.layerSizes[numHiddenLayers + 1] = outputSize;
+
+        if (randomWeights) {
+            initializeWeights();
+        } else {
+            allocateWeights();
+        }
+    }
+
+    /**
+     * Builds a classifier from stored parameters without drawing random initial weights first.
+     * @param weights Weights in the nested {@code [layer][from][to]} layout
+     * @param biases Biases as {@code [layer][neuron]}
+     * @throws IllegalArgumentException if the shapes do not match the architecture
+     */
+    public static Classifier fromWeights(int inputSize, int[] hiddenSizes, double learningRate,
+                                         ActivationFunction activationFunction, double[][][] weights, double[][] biases) {
+        Classifier classifier = new Classifier(inputSize, hiddenSizes, learningRate, activationFunction, false);
+        classifier.setWeights(weights);
+        classifier.setBiases(biases);
+        return classifier;
+    }
+
+    /**
+     * Allocates zeroed weight and bias arrays for every layer
+     */
+    private void allocateWeights() {
+        int totalLayers = numHiddenLayers + 1;
+        layerWeights = new double[totalLayers][];
+        biases = new double[totalLayers][];
+        for (int layer = 0; layer < totalLayers; layer++) {
+            layerWeights[layer] = new double[layerSizes[layer + 1] * layerSizes[layer]];
+            biases[layer] = new double[layerSizes[layer + 1]];
+        }
     }
 
     /**
@@ -49,38 +135,26 @@ public class Classifier {
     private void initializeWeights() {
         // Total layers = hidden layers + output layer
         int totalLayers = numHiddenLayers + 1;
-        weights = new double[totalLayers][][];
+        layerWeights = new double[totalLayers][];
         biases = new double[totalLayers][];
 
         // Initialize weights and biases for each layer
         for (int layer = 0; layer < totalLayers; layer++) {
-            int inputSizeForLayer, outputSizeForLayer;
-
-            if (layer == 0) {
-                // First hidden layer
-                inputSizeForLayer = inputSize;
-                outputSizeForLayer = hiddenSizes[0];
-            } else if (layer < numHiddenLayers) {
-                // Subsequent hidden layers
-                inputSizeForLayer = hiddenSizes[layer - 1];
-                outputSizeForLayer = hiddenSizes[layer];
-            } else {
-                // Output layer
-                inputSizeForLayer = hiddenSizes[numHiddenLayers - 1];
-                outputSizeForLayer = outputSize;
-            }
-
-            // Initialize weights for this layer
-            weights[layer] = new double[inputSizeForLayer][outputSizeForLayer];
-            for (int i = 0; i < inputSizeForLayer; i++) {
-                for (int j = 0; j < outputSizeForLayer; j++) {
-                    weights[layer][i][j] = random.nextGaussian() * 0.1;
+            int fanIn = layerSizes[layer];
+            int fanOut = layerSizes[layer + 1];
+
+            // Draw in [from][to] order so a given seed yields the same network as before
+            double[] w = new double[fanOut * fanIn];
+            for (int i = 0; i < fanIn; i++) {
+                for (int j = 0; j < fanOut; j++) {
+                    w[j * fanIn + i] = random.nextGaussian() * 0.1;
                 }
             }
+            layerWeights[layer] = w;
 
             // Initialize biases for this layer
-            biases[layer] = new double[outputSizeForLayer];
-            for (int i = 0; i < outputSizeForLayer; i++) {
+            biases[layer] = new double[fanOut];
+            for (int i = 0; i < fanOut; i++) {
                 biases[layer][i] = random.nextGaussian() * 0.1;
             }
         }
@@ -89,12 +163,12 @@ public class Classifier {
     /**
      * Apply activation function
      */
-    private double activate(double x, ActivationFunction function) {
+    static double activate(double x, ActivationFunction function) {
         switch (function) {
             case SIGMOID:
                 return 1.0 / (1.0 + Math.exp(-x));
             case TANH:
-                return Math.tanh(x);
+                return tanh(x);
             case RELU:
                 return Math.max(0, x);
             case LEAKY_RELU:
@@ -105,24 +179,19 @@ public class Classifier {
     }
 
     /**
-     * Calculate derivative of activation function
+     * tanh through the {@code Math.exp} intrinsic, about twice as fast as {@code Math.tanh}, which the JIT
+     * does not intrinsify; within {@link #TANH_ABSOLUTE_ERROR} of it. The Vector API backend uses the same
+     * identity lane-wise. Saturates cleanly: {@code exp(2x)} overflowing to infinity gives exactly 1.
      */
-    private double activationDerivative(double x, ActivationFunction function) {
-        switch (function) {
-            case SIGMOID:
-                double sigmoid = activate(x, ActivationFunction.SIGMOID);
-                return sigmoid * (1 - sigmoid);
-            case TANH:
-                double tanh = activate(x, ActivationFunction.TANH);
-                return 1 - tanh * tanh;
-            case RELU:
-                return x > 0 ? 1 : 0;
-            case LEAKY_RELU:
-                return x > 0 ? 1 : 0.01;
-            default:
-                double sigmoidDefault = activate(x, ActivationFunction.SIGMOID);
-                return sigmoidDefault * (1 - sigmoidDefault);
-        }
+    static double tanh(double x) {
+        return 1.0 - 2.0 / (Math.exp(2.0 * x) + 1.0);
+    }
+
+    private Activation[] layerActivations(ActivationFunction function) {
+        Activation[] activations = new Activation[numHiddenLayers + 1];
+        Arrays.fill(activations, Activation.of(function));
+        activations[numHiddenLayers] = Activation.of(ActivationFunction.SIGMOID);
+        return activations;
     }
 
     /**
@@ -131,66 +200,166 @@ public class Classifier {
      * @return Prediction probability (0-1, where >0.5 means spam)
      */
     public double predict(double[] input) {
-        double[] currentInput = input.clone();
+        return predictInto(input, THREAD_BUFFERS.get(layerSizes));
+    }
+
+    /**
+     * Forward propagation over sparse features; the first layer only touches non-zero inputs.
+     * @param input Input features (email word frequencies)
+     * @return Prediction probability (0-1, where >0.5 means spam)
+     */
+    public double predict(SparseVector input) {
+        return predictInto(input, THREAD_BUFFERS.get(layerSizes));
+    }
+
+    /**
+     * Forward propagation into caller-supplied buffers; allocates nothing.
+     * @param input Input features (email word frequencies)
+     * @param buffers Buffers from {@link #newBuffers()}, not shared between concurrent calls
+     * @return Prediction probability (0-1, where >0.5 means spam)
+     */
+    public double predictInto(double[] input, ActivationBuffers buffers) {
+        checkDimension(input);
+        return forward(input, null, buffers);
+    }
+
+    /**
+     * Sparse-input forward propagation into caller-supplied buffers; allocates nothing.
+     * @param input Input features (email word frequencies)
+     * @param buffers Buffers from {@link #newBuffers()}, not shared between concurrent calls
+     * @return Prediction probability (0-1, where >0.5 means spam)
+     */
+    public double predictInto(SparseVector input, ActivationBuffers buffers) {
+        checkDimension(input);
+        return forward(null, input, buffers);
+    }
+
+    /**
+     * Batched forward propagation: every layer runs as one matrix-matrix product over a block of inputs,
+     * instead of one matrix-vector product per input.
+     * @param inputs Input features (email word frequencies)
+     * @return Prediction probability per input, in the same order
+     */
+    public double[] predictBatch(SparseVector[] inputs) {
+        for (SparseVector input : inputs) {
+            checkDimension(input);
+        }
+        double[] scores = new double[inputs.length];
+        BatchBuffers buffers = THREAD_BATCH_BUFFERS.get(layerSizes);
+        int[] order = new int[inputs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int from = 0; from < inputs.length; from += PREDICT_BLOCK) {
+            int n = Math.min(PREDICT_BLOCK, inputs.length - from);
+            forwardBatch(inputs, order, from, n, buffers, null);
+            System.arraycopy(buffers.activations[numHiddenLayers], 0, scores, from, n);
+        }
+        return scores;
+    }
+
+    // Exactly one of dense and sparse is non-null
+    private double forward(double[] dense, SparseVector sparse, ActivationBuffers buffers) {
+        if (!buffers.fits(layerSizes)) {
+            throw new IllegalArgumentException("Activation buffers were sized for a different architecture");
+        }
+        double[][] activations = buffers.activations();
+        double[] currentInput = dense;
 
         // Forward through all layers
         for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
-            double[] nextLayer = new double[weights[layer][0].length];
+            int fanIn = layerSizes[layer];
+            double[] w = layerWeights[layer];
+            double[] nextLayer = activations[layer];
+            boolean sparseLayer = layer == 0 && sparse != null;
 
             for (int j = 0; j < nextLayer.length; j++) {
-                double sum = biases[layer][j];
-                for (int i = 0; i < currentInput.length; i++) {
-                    sum += currentInput[i] * weights[layer][i][j];
-                }
-
-                // Apply activation function (sigmoid for output layer, user-defined for hidden layers)
-                if (layer < numHiddenLayers) {
-                    nextLayer[j] = activate(sum, activationFunction);
-                } else {
-                    nextLayer[j] = activate(sum, ActivationFunction.SIGMOID); // Always sigmoid for output
-                }
+                nextLayer[j] = biases[layer][j] + (sparseLayer
+                        ? sparse.dot(w, j * fanIn)
+                        : MatrixKernels.dot(w, j * fanIn, currentInput, 0, fanIn));
             }
 
+            // Apply activation function (sigmoid for output layer, user-defined for hidden layers)
+            layerActivations[layer].apply(nextLayer, 0, nextLayer, 0, nextLayer.length);
+
             currentInput = nextLayer;
         }
 
         return currentInput[0]; // Return the single output
     }
 
+    private void checkDimension(SparseVector input) {
+        checkDimension(input.dimension());
+    }
+
+    private void checkDimension(double[] input) {
+        checkDimension(input.length);
+    }
+
+    private void checkDimension(int features) {
+        if (features != inputSize) {
+            throw new IllegalArgumentException(String.format("Expected %d input features, got %d",
+                    inputSize, features));
+        }
+    }
+
+    /**
+     * Allocates activation buffers sized for this network, for use with {@link #predictInto}.
+     */
+    public ActivationBuffers newBuffers() {
+        return new ActivationBuffers(layerSizes);
+    }
+
     /**
-     * Train the network on one sample (single email)
+     * Train the network on one sample (single email). Always a plain SGD step, whatever
+     * {@link #setOptimizer(Optimizer)} is set to; use a batch of one to go through the optimizer.
      * @param input Email features
      * @param target True label (0=not spam, 1=spam)
+     * @return Squared error of the prediction made before the update
      */
-    public void trainSample(double[] input, int target) {
-        // FORWARD PASS - store intermediate values for backprop
+    public double trainSample(double[] input, int target) {
+        checkDimension(input);
+        return trainSample(input, null, target);
+    }
+
+    /**
+     * Train the network on one sparse sample; first-layer products and updates only touch non-zero inputs
+     * @param input Email features
+     * @param target True label (0=not spam, 1=spam)
+     * @return Squared error of the prediction made before the update
+     */
+    public double trainSample(SparseVector input, int target) {
+        checkDimension(input);
+        return trainSample(null, input, target);
+    }
+
+    // Exactly one of dense and sparse is non-null
+    private double trainSample(double[] dense, SparseVector sparse, int target) {
+        // FORWARD PASS - store the activations for backprop; derivatives are taken from them
         double[][] layerOutputs = new double[numHiddenLayers + 2][]; // +2 for input and output
-        double[][] layerInputs = new double[numHiddenLayers + 1][]; // +1 for hidden and output layers
 
-        layerOutputs[0] = input.clone(); // Input layer
+        layerOutputs[0] = dense; // Input layer (read only; null for sparse input)
+        TrainingProfiler profiler = this.profiler;
+        long time = profiler != null ? System.nanoTime() : 0;
 
         // Forward through all layers
         for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
-            int inputSize = layerOutputs[layer].length;
-            int outputSize = weights[layer][0].length;
-
-            layerInputs[layer] = new double[outputSize];
-            layerOutputs[layer + 1] = new double[outputSize];
-
-            for (int j = 0; j < outputSize; j++) {
-                double sum = biases[layer][j];
-                for (int i = 0; i < inputSize; i++) {
-                    sum += layerOutputs[layer][i] * weights[layer][i][j];
-                }
-
-                layerInputs[layer][j] = sum;
+            int fanIn = layerSizes[layer];
+            int fanOut = layerSizes[layer + 1];
+            double[] w = layerWeights[layer];
+
+            double[] z = new double[fanOut];
+            for (int j = 0; j < fanOut; j++) {
+                z[j] = biases[layer][j] + (layer == 0 && sparse != null
+                        ? sparse.dot(w, j * fanIn)
+                        : MatrixKernels.dot(w, j * fanIn, layerOutputs[layer], 0, fanIn));
+            }
 
-                // Apply activation function
-                if (layer < numHiddenLayers) {
-                    layerOutputs[layer + 1][j] = activate(sum, activationFunction);
-                } else {
-                    layerOutputs[layer + 1][j] = activate(sum, ActivationFunction.SIGMOID);
-                }
+            // Apply activation function in place
+            layerActivations[layer].apply(z, 0, z, 0, fanOut);
+            layerOutputs[layer + 1] = z;
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.FORWARD, layer, time);
             }
         }
 
@@ -203,30 +372,41 @@ public class Classifier {
         double output = layerOutputs[outputLayerIndex + 1][0];
         double outputError = target - output;
         deltas[outputLayerIndex][0] = outputError * output * (1 - output); // Sigmoid derivative
+        if (profiler != null) {
+            time = profiler.lap(TrainingProfiler.Phase.BACKWARD, outputLayerIndex, time);
+        }
 
         // Calculate deltas for hidden layers (backpropagate)
         for (int layer = numHiddenLayers - 1; layer >= 0; layer--) {
-            deltas[layer] = new double[hiddenSizes[layer]];
-
-            for (int i = 0; i < hiddenSizes[layer]; i++) {
-                double error = 0.0;
-
-                // Sum errors from next layer
-                for (int j = 0; j < deltas[layer + 1].length; j++) {
-                    error += deltas[layer + 1][j] * weights[layer + 1][i][j];
-                }
+            int fanIn = layerSizes[layer + 1];
+            double[] nextWeights = layerWeights[layer + 1];
+            double[] nextDeltas = deltas[layer + 1];
+            double[] error = new double[fanIn];
+
+            // Sum errors from next layer, one contiguous weight row per downstream neuron
+            for (int j = 0; j < nextDeltas.length; j++) {
+                MatrixKernels.axpy(nextDeltas[j], nextWeights, j * fanIn, error, 0, fanIn);
+            }
 
-                // Apply derivative of activation function
-                deltas[layer][i] = error * activationDerivative(layerInputs[layer][i], activationFunction);
+            // Apply derivative of activation function
+            layerActivations[layer].multiplyDerivative(layerOutputs[layer + 1], 0, error, 0, fanIn);
+            deltas[layer] = error;
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.BACKWARD, layer, time);
             }
         }
 
         // UPDATE WEIGHTS AND BIASES
         for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
-            // Update weights
-            for (int i = 0; i < weights[layer].length; i++) {
-                for (int j = 0; j < weights[layer][i].length; j++) {
-                    weights[layer][i][j] += learningRate * deltas[layer][j] * layerOutputs[layer][i];
+            int fanIn = layerSizes[layer];
+            double[] w = layerWeights[layer];
+
+            // Update weights, one contiguous row per output neuron; sparse input rows only where non-zero
+            for (int j = 0; j < deltas[layer].length; j++) {
+                if (layer == 0 && sparse != null) {
+                    sparse.addScaledTo(learningRate * deltas[layer][j], w, j * fanIn);
+                } else {
+                    MatrixKernels.axpy(learningRate * deltas[layer][j], layerOutputs[layer], 0, w, j * fanIn, fanIn);
                 }
             }
 
@@ -234,7 +414,528 @@ public class Classifier {
             for (int j = 0; j < biases[layer].length; j++) {
                 biases[layer][j] += learningRate * deltas[layer][j];
             }
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.UPDATE, layer, time);
+            }
+        }
+        if (profiler != null) {
+            profiler.addSamples(TrainingProfiler.Phase.FORWARD, 1);
+            profiler.addSamples(TrainingProfiler.Phase.BACKWARD, 1);
+            profiler.addSamples(TrainingProfiler.Phase.UPDATE, 1);
+        }
+
+        return outputError * outputError;
+    }
+
+    /**
+     * Train the network on one mini-batch with a single averaged update
+     * @param inputs Email features, one row per sample
+     * @param targets True labels (0=not spam, 1=spam), indexed like {@code inputs}
+     * @param order Sample indices into {@code inputs}; the batch is {@code order[from..to)}
+     * @param buffers Buffers from {@link #newBatchBuffers(int)} with capacity of at least {@code to - from}
+     * @param gradients Scratch gradients from {@link #newGradients()}
+     * @return Sum of squared errors over the batch, measured before the update
+     */
+    public double trainBatch(double[][] inputs, int[] targets, int[] order, int from, int to,
+                             BatchBuffers buffers, Gradients gradients) {
+        double loss = computeBatchGradients(inputs, targets, order, from, to, buffers, gradients);
+        applyUpdate(gradients, to - from);
+        return loss;
+    }
+
+    /**
+     * Sparse-input variant of {@link #trainBatch(double[][], int[], int[], int, int, BatchBuffers, Gradients)};
+     * the first layer only touches the columns of non-zero features.
+     */
+    public double trainBatch(SparseVector[] inputs, int[] targets, int[] order, int from, int to,
+                             BatchBuffers buffers, Gradients gradients) {
+        double loss = computeBatchGradients(inputs, targets, order, from, to, buffers, gradients);
+        applyUpdate(gradients, to - from);
+        return loss;
+    }
+
+    /**
+     * Forward and backward pass over a mini-batch without touching the weights.
+     * Runs every layer as a blocked matrix-matrix product over the batch and overwrites
+     * {@code gradients} with the summed per-sample updates.
+     * @return Sum of squared errors over the batch
+     */
+    public double computeBatchGradients(double[][] inputs, int[] targets, int[] order, int from, int to,
+                                        BatchBuffers buffers, Gradients gradients) {
+        return computeBatchGradients(inputs, null, targets, order, from, to, buffers, gradients);
+    }
+
+    /**
+     * Sparse-input variant of
+     * {@link #computeBatchGradients(double[][], int[], int[], int, int, BatchBuffers, Gradients)}.
+     * First-layer products and gradients only touch the columns of non-zero features.
+     */
+    public double computeBatchGradients(SparseVector[] inputs, int[] targets, int[] order, int from, int to,
+                                        BatchBuffers buffers, Gradients gradients) {
+        return computeBatchGradients(null, inputs, targets, order, from, to, buffers, gradients);
+    }
+
+    // FORWARD PASS - Z = X * W^T + bias, A = f(Z) in place for the samples order[from, from + n);
+    // dense input is read from buffers.input when sparse is null; each layer is lapped on profiler when non-null
+    private void forwardBatch(SparseVector[] sparse, int[] order, int from, int n, BatchBuffers buffers,
+                              TrainingProfiler profiler) {
+        long time = profiler != null ? System.nanoTime() : 0;
+        double[] layerInput = buffers.input;
+        for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
+            int fanIn = layerSizes[layer];
+            int fanOut = layerSizes[layer + 1];
+            double[] w = layerWeights[layer];
+            double[] z = buffers.activations[layer];
+
+            for (int b = 0; b < n; b++) {
+                System.arraycopy(biases[layer], 0, z, b * fanOut, fanOut);
+            }
+            if (layer == 0 && sparse != null) {
+                // Gather only the weights of each sample's non-zero features
+                for (int b = 0; b < n; b++) {
+                    SparseVector x = sparse[order[from + b]];
+                    for (int j = 0; j < fanOut; j++) {
+                        z[b * fanOut + j] += x.dot(w, j * fanIn);
+                    }
+                }
+            } else {
+                MatrixKernels.gemmNT(layerInput, w, z, n, fanOut, fanIn);
+            }
+            layerActivations[layer].apply(z, 0, z, 0, n * fanOut);
+            layerInput = z;
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.FORWARD, layer, time);
+            }
+        }
+    }
+
+    // Exactly one of dense and sparse is non-null
+    private double computeBatchGradients(double[][] dense, SparseVector[] sparse, int[] targets, int[] order,
+                                         int from, int to, BatchBuffers buffers, Gradients gradients) {
+        int n = to - from;
+        if (!buffers.fits(layerSizes) || n > buffers.getCapacity()) {
+            throw new IllegalArgumentException("Batch buffers do not fit this architecture or batch size");
+        }
+
+        // Gather a dense batch into one contiguous [n][inputSize] block
+        if (dense != null) {
+            if (buffers.input == null) {
+                throw new IllegalArgumentException("Batch buffers were created for sparse input only");
+            }
+            for (int b = 0; b < n; b++) {
+                checkDimension(dense[order[from + b]]);
+                System.arraycopy(dense[order[from + b]], 0, buffers.input, b * inputSize, inputSize);
+            }
+        } else {
+            for (int b = 0; b < n; b++) {
+                checkDimension(sparse[order[from + b]]);
+            }
+        }
+
+        TrainingProfiler profiler = this.profiler;
+        forwardBatch(sparse, order, from, n, buffers, profiler);
+        long time = profiler != null ? System.nanoTime() : 0;
+
+        // BACKWARD PASS - output deltas, then E = D_next * W_next and D = E * f'(Z)
+        double loss = 0.0;
+        double[] outputs = buffers.activations[numHiddenLayers];
+        double[] outputDeltas = buffers.deltas[numHiddenLayers];
+        for (int b = 0; b < n; b++) {
+            double output = outputs[b];
+            double outputError = targets[order[from + b]] - output;
+            outputDeltas[b] = outputError * output * (1 - output); // Sigmoid derivative
+            loss += outputError * outputError;
+        }
+        if (profiler != null) {
+            time = profiler.lap(TrainingProfiler.Phase.BACKWARD, numHiddenLayers, time);
+        }
+
+        for (int layer = numHiddenLayers - 1; layer >= 0; layer--) {
+            int fanOut = layerSizes[layer + 1];
+            int nextFanOut = layerSizes[layer + 2];
+            double[] d = buffers.deltas[layer];
+
+            Arrays.fill(d, 0, n * fanOut, 0.0);
+            MatrixKernels.gemmNN(buffers.deltas[layer + 1], layerWeights[layer + 1], d, n, fanOut, nextFanOut);
+            layerActivations[layer].multiplyDerivative(buffers.activations[layer], 0, d, 0, n * fanOut);
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.BACKWARD, layer, time);
+            }
         }
+
+        // GRADIENTS - G = D^T * X, bias gradient = column sums of D
+        gradients.clear();
+        double[] layerInput = buffers.input;
+        for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
+            int fanIn = layerSizes[layer];
+            int fanOut = layerSizes[layer + 1];
+            double[] d = buffers.deltas[layer];
+            double[] g = gradients.weights[layer];
+
+            if (layer == 0 && sparse != null) {
+                // Scatter into the columns of each sample's non-zero features only
+                for (int b = 0; b < n; b++) {
+                    SparseVector x = sparse[order[from + b]];
+                    gradients.markTouched(x);
+                    for (int j = 0; j < fanOut; j++) {
+                        double delta = d[b * fanOut + j];
+                        if (delta != 0.0) {
+                            x.addScaledTo(delta, g, j * fanIn);
+                        }
+                    }
+                }
+            } else {
+                MatrixKernels.gemmTN(d, layerInput, g, fanOut, fanIn, n);
+            }
+            double[] biasGradient = gradients.biases[layer];
+            for (int b = 0; b < n; b++) {
+                MatrixKernels.axpy(1.0, d, b * fanOut, biasGradient, 0, fanOut);
+            }
+            layerInput = buffers.activations[layer];
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.BACKWARD, layer, time);
+            }
+        }
+        if (profiler != null) {
+            profiler.addSamples(TrainingProfiler.Phase.FORWARD, n);
+            profiler.addSamples(TrainingProfiler.Phase.BACKWARD, n);
+        }
+
+        return loss;
+    }
+
+    /**
+     * Adds {@code scale * gradients} to the weights and biases.
+     */
+    public void applyGradients(Gradients gradients, double scale) {
+        for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
+            applyWeightRows(gradients, scale, layer, 0, layerSizes[layer + 1]);
+            MatrixKernels.axpy(scale, gradients.biases[layer], 0, biases[layer], 0, biases[layer].length);
+        }
+    }
+
+    /**
+     * Applies the summed updates of a batch of {@code samples} through the optimizer, or as plain SGD
+     * with their mean when none is set.
+     */
+    private void applyUpdate(Gradients gradients, int samples) {
+        TrainingProfiler profiler = this.profiler;
+        long time = profiler != null ? System.nanoTime() : 0;
+        if (optimizer != null) {
+            optimizer.beginStep();
+        }
+        for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
+            if (optimizer == null) {
+                applyWeightRows(gradients, learningRate / samples, layer, 0, layerSizes[layer + 1]);
+                MatrixKernels.axpy(learningRate / samples, gradients.biases[layer], 0,
+                        biases[layer], 0, biases[layer].length);
+            } else {
+                applyOptimizerRows(gradients, 1.0 / samples, layer, 0, layerSizes[layer + 1]);
+                optimizer.apply(numHiddenLayers + 1 + layer, biases[layer], gradients.biases[layer],
+                        0, biases[layer].length, 1, 1.0 / samples, learningRate);
+            }
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.UPDATE, layer, time);
+            }
+        }
+        if (profiler != null) {
+            profiler.addSamples(TrainingProfiler.Phase.UPDATE, samples);
+        }
+    }
+
+    /**
+     * Prepares a parallel update from {@code parts[0..count)}: with an optimizer, starts its step and
+     * widens {@code parts[0]}'s touched columns to cover every part, since the slices sum into it.
+     * Must run once before the slices of an update.
+     */
+    void beginUpdate(Gradients[] parts, int count) {
+        if (optimizer == null) {
+            return;
+        }
+        for (int p = 1; p < count; p++) {
+            parts[0].markTouched(parts[p]);
+        }
+        optimizer.beginStep();
+    }
+
+    /**
+     * Applies the mean of {@code parts[0..count)} over {@code samples} to the weight rows (output neurons)
+     * {@code [rowFrom, rowTo)} of one layer. Disjoint row ranges may be applied concurrently, after
+     * {@link #beginUpdate(Gradients[], int)}.
+     */
+    void applyGradientSlice(Gradients[] parts, int count, int samples, int layer, int rowFrom, int rowTo) {
+        if (optimizer == null) {
+            for (int p = 0; p < count; p++) {
+                applyWeightRows(parts[p], learningRate / samples, layer, rowFrom, rowTo);
+            }
+            return;
+        }
+        // The optimizer needs the summed direction, so fold the other parts into the first
+        for (int p = 1; p < count; p++) {
+            sumWeightRows(parts[p], parts[0], layer, rowFrom, rowTo);
+        }
+        applyOptimizerRows(parts[0], 1.0 / samples, layer, rowFrom, rowTo);
+    }
+
+    private void applyWeightRows(Gradients gradients, double scale, int layer, int rowFrom, int rowTo) {
+        int fanIn = layerSizes[layer];
+        double[] w = layerWeights[layer];
+        double[] g = gradients.weights[layer];
+        if (layer == 0 && gradients.isSparseFirstLayer()) {
+            // Only the touched input columns hold non-zero gradients
+            for (int t = 0; t < gradients.touchedCount(); t++) {
+                int column = gradients.touchedColumn(t);
+                for (int j = rowFrom; j < rowTo; j++) {
+                    w[j * fanIn + column] += scale * g[j * fanIn + column];
+                }
+            }
+        } else {
+            MatrixKernels.axpy(scale, g, rowFrom * fanIn, w, rowFrom * fanIn, (rowTo - rowFrom) * fanIn);
+        }
+    }
+
+    private void sumWeightRows(Gradients part, Gradients sum, int layer, int rowFrom, int rowTo) {
+        int fanIn = layerSizes[layer];
+        double[] from = part.weights[layer];
+        double[] to = sum.weights[layer];
+        if (layer == 0 && part.isSparseFirstLayer()) {
+            for (int t = 0; t < part.touchedCount(); t++) {
+                int column = part.touchedColumn(t);
+                for (int j = rowFrom; j < rowTo; j++) {
+                    to[j * fanIn + column] += from[j * fanIn + column];
+                }
+            }
+        } else {
+            MatrixKernels.axpy(1.0, from, rowFrom * fanIn, to, rowFrom * fanIn, (rowTo - rowFrom) * fanIn);
+        }
+    }
+
+    private void applyOptimizerRows(Gradients gradients, double gradScale, int layer, int rowFrom, int rowTo) {
+        int fanIn = layerSizes[layer];
+        double[] w = layerWeights[layer];
+        double[] g = gradients.weights[layer];
+        if (layer == 0 && gradients.isSparseFirstLayer()) {
+            // Lazy update: untouched columns keep their parameters and optimizer state
+            for (int t = 0; t < gradients.touchedCount(); t++) {
+                int column = gradients.touchedColumn(t);
+                optimizer.apply(layer, w, g, rowFrom * fanIn + column, rowTo * fanIn, fanIn, gradScale, learningRate);
+            }
+        } else {
+            optimizer.apply(layer, w, g, rowFrom * fanIn, rowTo * fanIn, 1, gradScale, learningRate);
+        }
+    }
+
+    /**
+     * Applies the mean of {@code parts[0..count)} over {@code samples} to every bias.
+     */
+    void applyBiasGradients(Gradients[] parts, int count, int samples) {
+        for (int layer = 0; layer < numHiddenLayers + 1; layer++) {
+            if (optimizer == null) {
+                for (int p = 0; p < count; p++) {
+                    MatrixKernels.axpy(learningRate / samples, parts[p].biases[layer], 0,
+                            biases[layer], 0, biases[layer].length);
+                }
+                continue;
+            }
+            double[] sum = parts[0].biases[layer];
+            for (int p = 1; p < count; p++) {
+                MatrixKernels.axpy(1.0, parts[p].biases[layer], 0, sum, 0, sum.length);
+            }
+            optimizer.apply(numHiddenLayers + 1 + layer, biases[layer], sum, 0, sum.length, 1,
+                    1.0 / samples, learningRate);
+        }
+    }
+
+    /**
+     * Width of layer {@code layer}: 0 is the input, {@code getNumHiddenLayers() + 1} the output.
+     */
+    int layerSize(int layer) {
+        return layerSizes[layer];
+    }
+
+    /**
+     * The live flat weight block of one layer, {@code [to * fanIn + from]}.
+     */
+    double[] layerWeights(int layer) {
+        return layerWeights[layer];
+    }
+
+    /**
+     * Builds a classifier with zeroed parameters, to be filled through {@link #layerWeights(int)}
+     * and {@link #getBiases()}.
+     */
+    static Classifier allocate(int inputSize, int[] hiddenSizes, double learningRate,
+                               ActivationFunction activationFunction) {
+        return new Classifier(inputSize, hiddenSizes, learningRate, activationFunction, false);
+    }
+
+    /**
+     * Allocates mini-batch buffers sized for this network, for use with {@link #trainBatch}.
+     */
+    public BatchBuffers newBatchBuffers(int capacity) {
+        return new BatchBuffers(layerSizes, capacity);
+    }
+
+    /**
+     * Allocates a zeroed gradient accumulator shaped like this network's weights.
+     */
+    public Gradients newGradients() {
+        return new Gradients(layerSizes);
+    }
+
+    /**
+     * Replaces the biases, given as {@code [layer][neuron]}. They are copied; later changes to
+     * {@code biases} do not affect the network.
+     * @throws IllegalArgumentException if the shape does not match the network architecture
+     */
+    public void setBiases(double[][] biases) {
+        if (biases == null || biases.length != numHiddenLayers + 1) {
+            throw new IllegalArgumentException("Expected biases for " + (numHiddenLayers + 1) + " layers");
+        }
+        for (int layer = 0; layer < biases.length; layer++) {
+            if (biases[layer].length != layerSizes[layer + 1]) {
+                throw new IllegalArgumentException(String.format("Layer %d: expected %d biases, got %d",
+                        layer, layerSizes[layer + 1], biases[layer].length));
+            }
+        }
+        for (int layer = 0; layer < biases.length; layer++) {
+            System.arraycopy(biases[layer], 0, this.biases[layer], 0, biases[layer].length);
+        }
+    }
+
+    /**
+     * Returns the weights in the nested {@code [layer][from][to]} layout used by stored models.
+     * This is a copy; changes to it do not affect the network.
+     */
+    public double[][][] getWeights() {
+        double[][][] nested = new double[layerWeights.length][][];
+        for (int layer = 0; layer < layerWeights.length; layer++) {
+            int fanIn = layerSizes[layer];
+            int fanOut = layerSizes[layer + 1];
+            double[] w = layerWeights[layer];
+            nested[layer] = new double[fanIn][fanOut];
+            for (int j = 0; j < fanOut; j++) {
+                for (int i = 0; i < fanIn; i++) {
+                    nested[layer][i][j] = w[j * fanIn + i];
+                }
+            }
+        }
+        return nested;
+    }
+
+    /**
+     * Loads weights given in the nested {@code [layer][from][to]} layout used by stored models.
+     * @throws IllegalArgumentException if the shape does not match the network architecture
+     */
+    public void setWeights(double[][][] weights) {
+        if (weights == null || weights.length != numHiddenLayers + 1) {
+            throw new IllegalArgumentException("Expected weights for " + (numHiddenLayers + 1) + " layers");
+        }
+        for (int layer = 0; layer < weights.length; layer++) {
+            int fanIn = layerSizes[layer];
+            int fanOut = layerSizes[layer + 1];
+            if (weights[layer].length != fanIn) {
+                throw new IllegalArgumentException(String.format("Layer %d: expected %d input rows, got %d",
+                        layer, fanIn, weights[layer].length));
+            }
+            double[] w = layerWeights[layer];
+            for (int i = 0; i < fanIn; i++) {
+                if (weights[layer][i].length != fanOut) {
+                    throw new IllegalArgumentException(String.format("Layer %d: expected %d outputs, got %d",
+                            layer, fanOut, weights[layer][i].length));
+                }
+                for (int j = 0; j < fanOut; j++) {
+                    w[j * fanIn + i] = weights[layer][i][j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the weights and biases, one array per layer for weights followed by one per layer for biases.
+     * @param target Arrays from an earlier copy to overwrite, or null to allocate new ones
+     * @return The copy, {@code target} itself when it was given
+     */
+    public double[][] copyParameters(double[][] target) {
+        int layers = layerWeights.length;
+        if (target == null) {
+            target = new double[2 * layers][];
+            for (int layer = 0; layer < layers; layer++) {
+                target[layer] = new double[layerWeights[layer].length];
+                target[layers + layer] = new double[biases[layer].length];
+            }
+        }
+        for (int layer = 0; layer < layers; layer++) {
+            System.arraycopy(layerWeights[layer], 0, target[layer], 0, layerWeights[layer].length);
+            System.arraycopy(biases[layer], 0, target[layers + layer], 0, biases[layer].length);
+        }
+        return target;
+    }
+
+    /**
+     * Overwrites the weights and biases with a copy from {@link #copyParameters(double[][])}.
+     */
+    public void restoreParameters(double[][] saved) {
+        int layers = layerWeights.length;
+        if (saved.length != 2 * layers) {
+            throw new IllegalArgumentException("Expected parameters for " + layers + " layers");
+        }
+        for (int layer = 0; layer < layers; layer++) {
+            System.arraycopy(saved[layer], 0, layerWeights[layer], 0, layerWeights[layer].length);
+            System.arraycopy(saved[layers + layer], 0, biases[layer], 0, biases[layer].length);
+        }
+    }
+
+    /**
+     * Number of weights and biases, which dominates the memory a loaded network takes.
+     */
+    public long getParameterCount() {
+        long count = 0;
+        for (int layer = 0; layer + 1 < layerSizes.length; layer++) {
+            count += (long) (layerSizes[layer] + 1) * layerSizes[layer + 1];
+        }
+        return count;
+    }
+
+    /**
+     * Sets the update rule for mini-batch training; null restores plain SGD.
+     * @throws IllegalArgumentException If {@code optimizer} was created for a different architecture
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        if (optimizer != null && !optimizer.fits(layerSizes)) {
+            throw new IllegalArgumentException("Optimizer was created for a different architecture");
+        }
+        this.optimizer = optimizer;
+    }
+
+    public Optimizer getOptimizer() { return optimizer; }
+
+    /**
+     * Times the forward pass, backpropagation and updates of {@code trainSample} and {@code trainBatch}
+     * per layer into {@code profiler}; null stops profiling. Only for single-threaded training, since
+     * the profiler is not thread-safe; parallel workers calling {@code computeBatchGradients} must not
+     * run while one is set.
+     * @throws IllegalArgumentException If {@code profiler} was created for a different number of layers
+     */
+    public void setProfiler(TrainingProfiler profiler) {
+        if (profiler != null && profiler.getLayers() != numHiddenLayers + 1) {
+            throw new IllegalArgumentException("Profiler was created for a different number of layers");
+        }
+        this.profiler = profiler;
+    }
+
+    public TrainingProfiler getProfiler() { return profiler; }
+
+    public void setActivationFunction(ActivationFunction activationFunction) {
+        this.activationFunction = activationFunction;
+        this.layerActivations = layerActivations(activationFunction);
+    }
+
+    /**
+     * The activation strategy of weight layer {@code layer}, 0 next to the input.
+     */
+    public Activation getLayerActivation(int layer) {
+        return layerActivations[layer];
     }
 
     // Getters for network parameters
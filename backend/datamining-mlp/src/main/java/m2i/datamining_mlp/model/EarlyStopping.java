@@ -0,0 +1,79 @@
+package m2i.datamining_mlp.model;
+
+/**
+ * Tracks the validation loss of a training run, keeps a copy of the best weights seen, and tells the
+ * run to stop once the loss has not improved for {@code patience} epochs.
+ * <p>
+ * A loss counts as an improvement only when it beats the best one by more than {@code minDelta}, so
+ * a run on a plateau does not keep going on noise-level gains.
+ */
+public class EarlyStopping {
+
+    private final Classifier classifier;
+    private final int patience;
+    private final double minDelta;
+
+    private double[][] bestParameters;
+    private double bestLoss = Double.POSITIVE_INFINITY;
+    private int bestEpoch = -1;
+
+    /**
+     * @param patience Epochs without improvement before stopping; 0 never stops, but still keeps the best weights
+     * @param minDelta Smallest decrease of the loss that counts as an improvement
+     */
+    public EarlyStopping(Classifier classifier, int patience, double minDelta) {
+        if (patience < 0 || minDelta < 0) {
+            throw new IllegalArgumentException("Patience and minimum improvement must not be negative");
+        }
+        this.classifier = classifier;
+        this.patience = patience;
+        this.minDelta = minDelta;
+    }
+
+    /**
+     * Records the validation loss measured after {@code epoch}.
+     * @return Whether training should stop
+     */
+    public boolean update(int epoch, double validationLoss) {
+        if (bestEpoch < 0 || validationLoss < bestLoss - minDelta) {
+            bestLoss = validationLoss;
+            bestEpoch = epoch;
+            bestParameters = classifier.copyParameters(bestParameters);
+            return false;
+        }
+        return patience > 0 && epoch - bestEpoch >= patience;
+    }
+
+    /**
+     * Puts the best weights seen back into the classifier; does nothing before the first update.
+     */
+    public void restoreBest() {
+        if (bestParameters != null) {
+            classifier.restoreParameters(bestParameters);
+        }
+    }
+
+    public double getBestLoss() {
+        return bestLoss;
+    }
+
+    /**
+     * Epoch of the best loss, or -1 before the first update.
+     */
+    public int getBestEpoch() {
+        return bestEpoch;
+    }
+
+    /**
+     * Mean squared error of {@code classifier} on a labelled set, the same loss training reports.
+     */
+    public static double meanSquaredError(Classifier classifier, SparseVector[] inputs, int[] targets) {
+        double[] predictions = classifier.predictBatch(inputs);
+        double loss = 0.0;
+        for (int i = 0; i < predictions.length; i++) {
+            double error = targets[i] - predictions[i];
+            loss += error * error;
+        }
+        return predictions.length == 0 ? 0.0 : loss / predictions.length;
+    }
+}
@@ -0,0 +1,116 @@
+package m2i.datamining_mlp.model;
+
+import java.util.Arrays;
+
+/**
+ * Accumulated weight and bias updates for a {@link Classifier}, in the same flat layout as its weights.
+ * Values follow the sign convention of {@link Classifier#trainSample}: they point in the direction
+ * that reduces the loss (the negative gradient), summed over the samples of a batch.
+ * <p>
+ * After a batch of sparse inputs only the first-layer columns of the inputs' non-zero features are
+ * non-zero; those columns are tracked so that clearing and applying skip all the others.
+ */
+public class Gradients {
+    final double[][] weights; // [layer][to * fanIn + from]
+    final double[][] biases;  // [layer][neuron]
+
+    private final boolean[] columnTouched; // [input column]
+    private final int[] touchedColumns;
+    private int touchedCount;
+    private boolean sparseFirstLayer;
+
+    Gradients(int[] layerSizes) {
+        int totalLayers = layerSizes.length - 1;
+        this.weights = new double[totalLayers][];
+        this.biases = new double[totalLayers][];
+        for (int layer = 0; layer < totalLayers; layer++) {
+            weights[layer] = new double[layerSizes[layer] * layerSizes[layer + 1]];
+            biases[layer] = new double[layerSizes[layer + 1]];
+        }
+        this.columnTouched = new boolean[layerSizes[0]];
+        this.touchedColumns = new int[layerSizes[0]];
+    }
+
+    /**
+     * Resets every accumulated value to zero.
+     */
+    public void clear() {
+        if (sparseFirstLayer) {
+            // Only the tracked columns can be non-zero
+            double[] first = weights[0];
+            int fanIn = columnTouched.length;
+            for (int t = 0; t < touchedCount; t++) {
+                int column = touchedColumns[t];
+                for (int k = column; k < first.length; k += fanIn) {
+                    first[k] = 0.0;
+                }
+                columnTouched[column] = false;
+            }
+            touchedCount = 0;
+            sparseFirstLayer = false;
+        } else {
+            Arrays.fill(weights[0], 0.0);
+        }
+        for (int layer = 1; layer < weights.length; layer++) {
+            Arrays.fill(weights[layer], 0.0);
+        }
+        for (double[] bias : biases) {
+            Arrays.fill(bias, 0.0);
+        }
+    }
+
+    /**
+     * Records that the first-layer columns of {@code input}'s non-zero features may be non-zero.
+     * Must follow a {@link #clear()}, before any dense first-layer accumulation.
+     */
+    void markTouched(SparseVector input) {
+        sparseFirstLayer = true;
+        for (int k = 0; k < input.nonZeroCount(); k++) {
+            int column = input.indexAt(k);
+            if (!columnTouched[column]) {
+                columnTouched[column] = true;
+                touchedColumns[touchedCount++] = column;
+            }
+        }
+    }
+
+    /**
+     * Widens the tracked columns to cover {@code other}'s, so that values summed in from {@code other}
+     * are still cleared and applied. If {@code other}'s first layer is dense, this one becomes dense too.
+     */
+    void markTouched(Gradients other) {
+        if (!sparseFirstLayer) {
+            return;
+        }
+        if (!other.sparseFirstLayer) {
+            for (int t = 0; t < touchedCount; t++) {
+                columnTouched[touchedColumns[t]] = false;
+            }
+            touchedCount = 0;
+            sparseFirstLayer = false;
+            return;
+        }
+        for (int t = 0; t < other.touchedCount; t++) {
+            int column = other.touchedColumns[t];
+            if (!columnTouched[column]) {
+                columnTouched[column] = true;
+                touchedColumns[touchedCount++] = column;
+            }
+        }
+    }
+
+    /**
+     * Whether only the tracked first-layer columns are non-zero.
+     */
+    boolean isSparseFirstLayer() {
+        return sparseFirstLayer;
+    }
+
+    int touchedCount() {
+        return touchedCount;
+    }
+
+    int touchedColumn(int t) {
+        return touchedColumns[t];
+    }
+}
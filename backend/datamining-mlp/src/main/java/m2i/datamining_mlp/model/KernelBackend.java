@@ -0,0 +1,28 @@
+package m2i.datamining_mlp.model;
+
+/**
+ * Implementation of the innermost vector loops: dot products, axpy updates and element-wise activation.
+ * {@link MatrixKernels} picks one backend when it is first used and routes every call through it.
+ */
+public interface KernelBackend {
+
+    /**
+     * Short name for logs and benchmark reports.
+     */
+    String name();
+
+    /**
+     * Dot product of {@code n} consecutive elements of {@code a} and {@code b}.
+     */
+    double dot(double[] a, int aOffset, double[] b, int bOffset, int n);
+
+    /**
+     * {@code y[yOffset..] += alpha * x[xOffset..]} over {@code n} consecutive elements.
+     */
+    void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int n);
+
+    /**
+     * {@code out[outOffset + i] = function(z[zOffset + i])} for {@code i < n}; {@code out} may be {@code z}.
+     */
+    void activate(Classifier.ActivationFunction function, double[] z, int zOffset, double[] out, int outOffset, int n);
+}
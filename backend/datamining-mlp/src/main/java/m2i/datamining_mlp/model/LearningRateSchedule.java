@@ -0,0 +1,34 @@
+package m2i.datamining_mlp.model;
+
+/**
+ * How the learning rate changes from epoch to epoch, starting from the requested rate.
+ */
+public enum LearningRateSchedule {
+    /** The same rate for every epoch. */
+    CONSTANT,
+    /** Multiplied by {@code decay} every {@code stepSize} epochs. */
+    STEP,
+    /** Multiplied by {@code decay} after every epoch. */
+    EXPONENTIAL,
+    /** Follows half a cosine from the base rate down to 0 over the run. */
+    COSINE;
+
+    public static final double DEFAULT_STEP_DECAY = 0.5;
+    public static final double DEFAULT_EXPONENTIAL_DECAY = 0.95;
+    public static final int DEFAULT_STEP_SIZE = 10;
+
+    /**
+     * Rate for {@code epoch} (from 0) of a run of {@code epochs}.
+     * @param decay Factor for STEP and EXPONENTIAL; 0 uses the schedule's default
+     * @param stepSize Epochs per decay for STEP; 0 uses {@value #DEFAULT_STEP_SIZE}
+     */
+    public double rate(double base, int epoch, int epochs, double decay, int stepSize) {
+        return switch (this) {
+            case CONSTANT -> base;
+            case STEP -> base * Math.pow(decay > 0 ? decay : DEFAULT_STEP_DECAY,
+                    epoch / (stepSize > 0 ? stepSize : DEFAULT_STEP_SIZE));
+            case EXPONENTIAL -> base * Math.pow(decay > 0 ? decay : DEFAULT_EXPONENTIAL_DECAY, epoch);
+            case COSINE -> epochs <= 1 ? base : base * 0.5 * (1 + Math.cos(Math.PI * epoch / epochs));
+        };
+    }
+}
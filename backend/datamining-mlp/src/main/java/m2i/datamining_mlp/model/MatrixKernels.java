@@ -0,0 +1,177 @@
+package m2i.datamining_mlp.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dense linear-algebra kernels over flat, row-major {@code double[]} blocks.
+ * Every loop walks its operands sequentially so the JIT can unroll and vectorize it.
+ * <p>
+ * The innermost loops run on a {@link KernelBackend}: the Vector API backend when the
+ * {@code jdk.incubator.vector} module is available, plain Java otherwise. The system property
+ * {@value #BACKEND_PROPERTY} forces one or the other.
+ */
+public final class MatrixKernels {
+
+    // Tile sizes: a K_BLOCK x N_BLOCK tile of the right-hand matrix (128 KB) stays cache-resident
+    // while every row of the batch streams past it
+    private static final int K_BLOCK = 256;
+    private static final int N_BLOCK = 64;
+    private static final int COL_BLOCK = 512;
+
+    /** Kernel backend: "vector", "scalar", or "auto" (vector when jdk.incubator.vector is available). */
+    public static final String BACKEND_PROPERTY = "classifier.kernels";
+
+    private static final Logger log = LoggerFactory.getLogger(MatrixKernels.class);
+
+    // Static final, so the JIT sees a single implementation and inlines through the interface
+    private static final KernelBackend BACKEND = selectBackend(System.getProperty(BACKEND_PROPERTY, "auto"));
+
+    private MatrixKernels() {}
+
+    static KernelBackend selectBackend(String requested) {
+        if (!requested.equalsIgnoreCase("scalar")) {
+            KernelBackend vector = loadVectorBackend();
+            if (vector != null) {
+                return vector;
+            }
+            if (requested.equalsIgnoreCase("vector")) {
+                log.warn("Vector kernels requested but jdk.incubator.vector is not available; using scalar kernels");
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    // VectorKernels links against jdk.incubator.vector, so it is only touched once the module is known to be there
+    static KernelBackend loadVectorBackend() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            KernelBackend backend = (KernelBackend) Class.forName(MatrixKernels.class.getPackageName() + ".VectorKernels")
+                    .getDeclaredConstructor().newInstance();
+            backend.dot(new double[1], 0, new double[1], 0, 1);
+            return backend;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            log.warn("Could not load vector kernels: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * The backend behind {@link #dot}, {@link #axpy} and {@link #activate}.
+     */
+    public static KernelBackend backend() {
+        return BACKEND;
+    }
+
+    /**
+     * Dot product of {@code n} consecutive elements of {@code a} and {@code b}.
+     */
+    public static double dot(double[] a, int aOffset, double[] b, int bOffset, int n) {
+        return BACKEND.dot(a, aOffset, b, bOffset, n);
+    }
+
+    /**
+     * {@code y[yOffset..] += alpha * x[xOffset..]} over {@code n} consecutive elements.
+     */
+    public static void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int n) {
+        BACKEND.axpy(alpha, x, xOffset, y, yOffset, n);
+    }
+
+    /**
+     * {@code out[outOffset + i] = function(z[zOffset + i])} for {@code i < n}; {@code out} may be {@code z}.
+     */
+    public static void activate(Classifier.ActivationFunction function, double[] z, int zOffset,
+                                double[] out, int outOffset, int n) {
+        BACKEND.activate(function, z, zOffset, out, outOffset, n);
+    }
+
+    /**
+     * {@code C[m][n] += A[m][k] * B[n][k]^T}: every output is a dot product of two contiguous rows.
+     * Used for the forward pass, where B holds one weight row per output neuron.
+     */
+    public static void gemmNT(double[] a, double[] b, double[] c, int m, int n, int k) {
+        for (int k0 = 0; k0 < k; k0 += K_BLOCK) {
+            int kLen = Math.min(K_BLOCK, k - k0);
+            for (int j0 = 0; j0 < n; j0 += N_BLOCK) {
+                int jEnd = Math.min(j0 + N_BLOCK, n);
+                int i = 0;
+
+                // 2x2 register block: each loaded element feeds two multiply-adds
+                for (; i + 1 < m; i += 2) {
+                    int a0 = i * k + k0;
+                    int a1 = a0 + k;
+                    int j = j0;
+                    for (; j + 1 < jEnd; j += 2) {
+                        int b0 = j * k + k0;
+                        int b1 = b0 + k;
+                        double c00 = 0.0, c01 = 0.0, c10 = 0.0, c11 = 0.0;
+                        for (int p = 0; p < kLen; p++) {
+                            double x0 = a[a0 + p];
+                            double x1 = a[a1 + p];
+                            double y0 = b[b0 + p];
+                            double y1 = b[b1 + p];
+                            c00 += x0 * y0;
+                            c01 += x0 * y1;
+                            c10 += x1 * y0;
+                            c11 += x1 * y1;
+                        }
+                        c[i * n + j] += c00;
+                        c[i * n + j + 1] += c01;
+                        c[(i + 1) * n + j] += c10;
+                        c[(i + 1) * n + j + 1] += c11;
+                    }
+                    for (; j < jEnd; j++) {
+                        int b0 = j * k + k0;
+                        c[i * n + j] += dot(a, a0, b, b0, kLen);
+                        c[(i + 1) * n + j] += dot(a, a1, b, b0, kLen);
+                    }
+                }
+
+                // Odd last row
+                for (; i < m; i++) {
+                    for (int j = j0; j < jEnd; j++) {
+                        c[i * n + j] += dot(a, i * k + k0, b, j * k + k0, kLen);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code C[m][n] += A[m][k] * B[k][n]}, built from row axpys over column tiles of B.
+     * Used to backpropagate errors through a weight matrix. Zero entries of A are skipped.
+     */
+    public static void gemmNN(double[] a, double[] b, double[] c, int m, int n, int k) {
+        for (int n0 = 0; n0 < n; n0 += COL_BLOCK) {
+            int len = Math.min(COL_BLOCK, n - n0);
+            for (int i = 0; i < m; i++) {
+                for (int p = 0; p < k; p++) {
+                    double aip = a[i * k + p];
+                    if (aip != 0.0) {
+                        axpy(aip, b, p * n + n0, c, i * n + n0, len);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code C[m][n] += A[k][m]^T * B[k][n]}, built from row axpys over column tiles of B.
+     * Used to accumulate weight gradients over a batch. Zero entries of A are skipped.
+     */
+    public static void gemmTN(double[] a, double[] b, double[] c, int m, int n, int k) {
+        for (int n0 = 0; n0 < n; n0 += COL_BLOCK) {
+            int len = Math.min(COL_BLOCK, n - n0);
+            for (int p = 0; p < k; p++) {
+                for (int i = 0; i < m; i++) {
+                    double api = a[p * m + i];
+                    if (api != 0.0) {
+                        axpy(api, b, p * n + n0, c, i * n + n0, len);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package m2i.datamining_mlp.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact, versioned binary encoding of a {@link Classifier}.
+ * <p>
+ * Layout, all little-endian:
+ * <pre>
+ * int    magic "MLPB"
+ * short  format version
+ * short  flags (bit 0: parameters stored as float32)
+ * long   model version (opaque to the codec, 0 if unknown)
+ * short  activation name length, then the name in UTF-8
+ * double learning rate
+ * int    input size
+ * int    hidden layer count, then one int per hidden layer
+ * per layer: weights as [to][from] (the classifier's own flat layout), then biases
+ * </pre>
+ * Parameter blocks are copied with bulk buffer transfers, so decoding costs little more than a
+ * memory copy, and a file can be decoded straight from a memory map.
+ */
+public final class ModelCodec {
+
+    public static final int MAGIC = 0x42504C4D; // "MLPB" read as a little-endian int
+    public static final short FORMAT_VERSION = 1;
+
+    private static final short FLAG_FLOAT32 = 1;
+
+    private ModelCodec() {}
+
+    /**
+     * A decoded model together with the version number stored in its header.
+     */
+    public record Decoded(Classifier classifier, long modelVersion) {}
+
+    /**
+     * Encodes a classifier.
+     * @param float32 Store parameters as float32, halving the size at the cost of precision
+     * @param modelVersion Version number to store in the header
+     */
+    public static byte[] encode(Classifier classifier, boolean float32, long modelVersion) {
+        byte[] activation = classifier.getActivationFunction().name().getBytes(StandardCharsets.UTF_8);
+        int layers = classifier.getNumHiddenLayers() + 1;
+        long parameters = 0;
+        for (int layer = 0; layer < layers; layer++) {
+            parameters += (long) classifier.layerSize(layer + 1) * (classifier.layerSize(layer) + 1);
+        }
+        long size = 4 + 2 + 2 + 8 + 2 + activation.length + 8 + 4 + 4 + 4L * (layers - 1)
+                + parameters * (float32 ? Float.BYTES : Double.BYTES);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Model is too large to encode: " + size + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(FORMAT_VERSION);
+        buffer.putShort(float32 ? FLAG_FLOAT32 : 0);
+        buffer.putLong(modelVersion);
+        buffer.putShort((short) activation.length);
+        buffer.put(activation);
+        buffer.putDouble(classifier.getLearningRate());
+        buffer.putInt(classifier.getInputSize());
+        buffer.putInt(classifier.getNumHiddenLayers());
+        for (int layer = 1; layer < layers; layer++) {
+            buffer.putInt(classifier.layerSize(layer));
+        }
+
+        double[][] biases = classifier.getBiases();
+        for (int layer = 0; layer < layers; layer++) {
+            putBlock(buffer, classifier.layerWeights(layer), float32);
+            putBlock(buffer, biases[layer], float32);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a classifier from the buffer's current position; the buffer may be heap, direct or mapped.
+     * @throws IllegalArgumentException if the data is not a supported model encoding
+     */
+    public static Decoded decode(ByteBuffer source) {
+        ByteBuffer buffer = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a binary model: bad magic number");
+            }
+            short format = buffer.getShort();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported model format version " + format);
+            }
+            boolean float32 = (buffer.getShort() & FLAG_FLOAT32) != 0;
+            long modelVersion = buffer.getLong();
+            // Header sizes are checked against the remaining bytes before anything is allocated,
+            // so a corrupt file fails with an IllegalArgumentException rather than an OutOfMemoryError
+            byte[] activation = new byte[checkCount(buffer, buffer.getShort(), 1, "activation name length")];
+            buffer.get(activation);
+            double learningRate = buffer.getDouble();
+            int inputSize = buffer.getInt();
+            if (inputSize <= 0) {
+                throw new IllegalArgumentException("Invalid input size " + inputSize);
+            }
+            int[] hiddenSizes = new int[checkCount(buffer, buffer.getInt(), Integer.BYTES, "hidden layer count")];
+            for (int layer = 0; layer < hiddenSizes.length; layer++) {
+                hiddenSizes[layer] = buffer.getInt();
+                if (hiddenSizes[layer] <= 0) {
+                    throw new IllegalArgumentException("Invalid size " + hiddenSizes[layer]
+                            + " for hidden layer " + layer);
+                }
+            }
+            long available = buffer.remaining() / (float32 ? Float.BYTES : Double.BYTES);
+            long parameters = 0;
+            int previous = inputSize;
+            for (int layer = 0; layer <= hiddenSizes.length; layer++) {
+                int next = layer < hiddenSizes.length ? hiddenSizes[layer] : 1;
+                parameters += (long) next * ((long) previous + 1);
+                if (parameters > available) {
+                    throw new IllegalArgumentException("Truncated binary model: header declares "
+                            + "more parameters than stored");
+                }
+                previous = next;
+            }
+
+            Classifier classifier = Classifier.allocate(inputSize, hiddenSizes, learningRate,
+                    Classifier.ActivationFunction.valueOf(new String(activation, StandardCharsets.UTF_8)));
+            double[][] biases = classifier.getBiases();
+            for (int layer = 0; layer < hiddenSizes.length + 1; layer++) {
+                getBlock(buffer, classifier.layerWeights(layer), float32);
+                getBlock(buffer, biases[layer], float32);
+            }
+            return new Decoded(classifier, modelVersion);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary model", e);
+        }
+    }
+
+    /**
+     * Writes the encoding to {@code file}, replacing it atomically.
+     */
+    public static void write(Classifier classifier, boolean float32, long modelVersion, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, encode(classifier, float32, modelVersion));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a model file through a read-only memory map.
+     */
+    public static Decoded read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Validates a count read from the header against the bytes left in the buffer
+    private static int checkCount(ByteBuffer buffer, int count, int bytesEach, String field) {
+        if (count < 0 || (long) count * bytesEach > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid " + field + " " + count);
+        }
+        return count;
+    }
+
+    private static void putBlock(ByteBuffer buffer, double[] values, boolean float32) {
+        if (float32) {
+            for (double value : values) {
+                buffer.putFloat((float) value);
+            }
+        } else {
+            buffer.asDoubleBuffer().put(values);
+            buffer.position(buffer.position() + values.length * Double.BYTES);
+        }
+    }
+
+    private static void getBlock(ByteBuffer buffer, double[] values, boolean float32) {
+        if (float32) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buffer.getFloat();
+            }
+        } else {
+            buffer.asDoubleBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Double.BYTES);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package m2i.datamining_mlp.model;
+
+import java.util.Arrays;
+
+/**
+ * Stateful update rule applied to mini-batch gradients in place of plain SGD.
+ * <p>
+ * State is kept per parameter in flat arrays laid out like the parameters themselves: one array per
+ * layer's weights, then one per layer's biases, so an update allocates nothing. Only the entries an
+ * update touches are read or written; after a sparse batch that is the first-layer columns of the
+ * batch's non-zero features, so state for the other columns is left as is until they next receive a
+ * gradient (lazy updates, as in sparse Adam implementations).
+ * <p>
+ * Not thread-safe; {@link ParallelTrainer} applies disjoint ranges concurrently, which is safe because
+ * every entry's state is independent once {@link #beginStep()} has run.
+ */
+public abstract class Optimizer {
+
+    public enum Type {
+        MOMENTUM, NESTEROV, ADAM
+    }
+
+    public static final double DEFAULT_MOMENTUM = 0.9;
+    public static final double DEFAULT_BETA1 = 0.9;
+    public static final double DEFAULT_BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final int[] layerSizes;
+
+    Optimizer(int[] layerSizes) {
+        this.layerSizes = layerSizes.clone();
+    }
+
+    /**
+     * Creates an optimizer shaped for {@code classifier}'s parameters.
+     * @param momentum Velocity decay for MOMENTUM and NESTEROV; 0 uses {@value #DEFAULT_MOMENTUM}
+     * @param beta1 First-moment decay for ADAM; 0 uses {@value #DEFAULT_BETA1}
+     * @param beta2 Second-moment decay for ADAM; 0 uses {@value #DEFAULT_BETA2}
+     */
+    public static Optimizer create(Type type, Classifier classifier, double momentum, double beta1, double beta2) {
+        int[] layerSizes = new int[classifier.getNumHiddenLayers() + 2];
+        for (int layer = 0; layer < layerSizes.length; layer++) {
+            layerSizes[layer] = classifier.layerSize(layer);
+        }
+        return switch (type) {
+            case MOMENTUM -> new Momentum(layerSizes, orDefault(momentum, DEFAULT_MOMENTUM), false);
+            case NESTEROV -> new Momentum(layerSizes, orDefault(momentum, DEFAULT_MOMENTUM), true);
+            case ADAM -> new Adam(layerSizes, orDefault(beta1, DEFAULT_BETA1), orDefault(beta2, DEFAULT_BETA2));
+        };
+    }
+
+    private static double orDefault(double value, double fallback) {
+        if (value < 0 || value >= 1) {
+            throw new IllegalArgumentException("Decay rates must be in [0, 1)");
+        }
+        return value == 0 ? fallback : value;
+    }
+
+    boolean fits(int[] sizes) {
+        return Arrays.equals(layerSizes, sizes);
+    }
+
+    /**
+     * One state array per parameter array: {@code [layer]} weights, then {@code [layers + layer]} biases.
+     */
+    static double[][] newState(int[] layerSizes) {
+        int layers = layerSizes.length - 1;
+        double[][] state = new double[2 * layers][];
+        for (int layer = 0; layer < layers; layer++) {
+            state[layer] = new double[layerSizes[layer] * layerSizes[layer + 1]];
+            state[layers + layer] = new double[layerSizes[layer + 1]];
+        }
+        return state;
+    }
+
+    /**
+     * Starts an update; called once per mini-batch before any {@link #apply}.
+     */
+    abstract void beginStep();
+
+    /**
+     * Updates {@code params[from], params[from + stride], ...} below {@code to}.
+     * @param slot State slot of {@code params}: the layer for weights, layers + layer for biases
+     * @param direction Summed update direction (negative gradient), as accumulated in {@link Gradients}
+     * @param gradScale Factor turning {@code direction} into a mean over the batch
+     */
+    abstract void apply(int slot, double[] params, double[] direction, int from, int to, int stride,
+                        double gradScale, double learningRate);
+
+    /**
+     * Heavy-ball momentum, or Nesterov momentum, which steps along the velocity it is about to have.
+     */
+    static final class Momentum extends Optimizer {
+        private final double momentum;
+        private final boolean nesterov;
+        private final double[][] velocity;
+
+        Momentum(int[] layerSizes, double momentum, boolean nesterov) {
+            super(layerSizes);
+            this.momentum = momentum;
+            this.nesterov = nesterov;
+            this.velocity = newState(layerSizes);
+        }
+
+        @Override
+        void beginStep() {
+        }
+
+        @Override
+        void apply(int slot, double[] params, double[] direction, int from, int to, int stride,
+                   double gradScale, double learningRate) {
+            double[] v = velocity[slot];
+            for (int i = from; i < to; i += stride) {
+                double d = gradScale * direction[i];
+                double next = momentum * v[i] + d;
+                v[i] = next;
+                params[i] += learningRate * (nesterov ? momentum * next + d : next);
+            }
+        }
+    }
+
+    /**
+     * Adam with bias-corrected first and second moment estimates.
+     */
+    static final class Adam extends Optimizer {
+        private final double beta1;
+        private final double beta2;
+        private final double[][] firstMoment;
+        private final double[][] secondMoment;
+        private long step;
+        private double correction1;
+        private double correction2;
+
+        Adam(int[] layerSizes, double beta1, double beta2) {
+            super(layerSizes);
+            this.beta1 = beta1;
+            this.beta2 = beta2;
+            this.firstMoment = newState(layerSizes);
+            this.secondMoment = newState(layerSizes);
+        }
+
+        @Override
+        void beginStep() {
+            step++;
+            correction1 = 1 - Math.pow(beta1, step);
+            correction2 = 1 - Math.pow(beta2, step);
+        }
+
+        @Override
+        void apply(int slot, double[] params, double[] direction, int from, int to, int stride,
+                   double gradScale, double learningRate) {
+            double[] m = firstMoment[slot];
+            double[] v = secondMoment[slot];
+            double stepSize = learningRate / correction1;
+            double sqrtCorrection2 = Math.sqrt(correction2);
+            for (int i = from; i < to; i += stride) {
+                double d = gradScale * direction[i];
+                double mi = beta1 * m[i] + (1 - beta1) * d;
+                double vi = beta2 * v[i] + (1 - beta2) * d * d;
+                m[i] = mi;
+                v[i] = vi;
+                params[i] += stepSize * mi / (Math.sqrt(vi) / sqrtCorrection2 + EPSILON);
+            }
+        }
+    }
+}
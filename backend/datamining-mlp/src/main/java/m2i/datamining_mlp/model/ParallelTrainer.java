@@ -0,0 +1,235 @@
+package m2i.datamining_mlp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Data-parallel training of one {@link Classifier} on a dedicated {@link ForkJoinPool}.
+ * <p>
+ * {@link Mode#SYNC} shards every mini-batch across the workers, lets each compute the gradients of its
+ * shard, then sums and applies them in parallel slices, so the result equals single-threaded
+ * mini-batch training, including with an {@link Optimizer}. {@link Mode#HOGWILD} shards the whole epoch and lets every worker update the
+ * shared weights without locks; updates may race, which is harmless for sparse, noisy SGD and needs no
+ * synchronization at all.
+ */
+public class ParallelTrainer implements AutoCloseable {
+
+    public enum Mode {
+        SYNC, HOGWILD
+    }
+
+    // Samples per synchronous mini-batch when the request does not set a batch size; fixed so that
+    // the optimization trajectory does not change with the thread count
+    private static final int DEFAULT_BATCH_SIZE = 128;
+
+    // Weights per reduction task; smaller layers are reduced by a single task
+    private static final int MIN_SLICE = 4096;
+
+    private final Classifier classifier;
+    private final Mode mode;
+    private final int threads;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+
+    private final BatchBuffers[] workerBuffers;
+    private BatchBuffers serialBuffers; // A whole SYNC batch for runSerialEpoch, allocated on first use
+    private final Gradients[] workerGradients;
+    private final double[] workerLoss;
+    private final long[] workerBusyNanos;
+    private final List<int[]> slices = new ArrayList<>(); // {layer, rowFrom, rowTo}
+
+    /**
+     * @param threads Number of worker threads (at least 1)
+     * @param batchSize Samples per update; for SYNC, 0 or 1 picks {@value #DEFAULT_BATCH_SIZE},
+     *                  for HOGWILD, 0 or 1 means per-sample updates
+     */
+    public ParallelTrainer(Classifier classifier, Mode mode, int threads, int batchSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        if (mode == Mode.HOGWILD && classifier.getOptimizer() != null) {
+            throw new IllegalArgumentException("HOGWILD training only supports plain SGD");
+        }
+        this.classifier = classifier;
+        this.mode = mode;
+        this.threads = threads;
+        if (mode == Mode.SYNC) {
+            this.batchSize = batchSize > 1 ? batchSize : DEFAULT_BATCH_SIZE;
+        } else {
+            this.batchSize = Math.max(1, batchSize);
+        }
+        this.pool = new ForkJoinPool(threads);
+
+        int shardCapacity = mode == Mode.SYNC ? (this.batchSize + threads - 1) / threads : this.batchSize;
+        this.workerBuffers = new BatchBuffers[threads];
+        this.workerGradients = new Gradients[threads];
+        for (int w = 0; w < threads; w++) {
+            workerBuffers[w] = classifier.newBatchBuffers(shardCapacity);
+            workerGradients[w] = classifier.newGradients();
+        }
+        this.workerLoss = new double[threads];
+        this.workerBusyNanos = new long[threads];
+
+        // Split every layer's weight rows (output neurons) into contiguous slices, one reduction task each
+        for (int layer = 0; layer < classifier.getNumHiddenLayers() + 1; layer++) {
+            int rows = classifier.layerSize(layer + 1);
+            int count = rows * classifier.layerSize(layer);
+            int parts = Math.max(1, Math.min(Math.min(threads, rows), count / MIN_SLICE));
+            for (int p = 0; p < parts; p++) {
+                slices.add(new int[]{layer, rows * p / parts, rows * (p + 1) / parts});
+            }
+        }
+    }
+
+    /**
+     * Trains one epoch over {@code order}, which the caller shuffles beforehand.
+     * @return Sum of squared errors over the epoch, measured before each update
+     */
+    public double runEpoch(SparseVector[] inputs, int[] targets, int[] order) {
+        return runEpoch(inputs, targets, order, threads);
+    }
+
+    /**
+     * Trains one epoch over {@code order} on the calling thread alone, with the same batch size and update
+     * rule as {@link #runEpoch}: the serial baseline a parallel epoch's time is compared against.
+     * @return Sum of squared errors over the epoch, measured before each update
+     */
+    public double runSerialEpoch(SparseVector[] inputs, int[] targets, int[] order) {
+        return runEpoch(inputs, targets, order, 1);
+    }
+
+    private double runEpoch(SparseVector[] inputs, int[] targets, int[] order, int workers) {
+        return mode == Mode.SYNC
+                ? runSyncEpoch(inputs, targets, order, workers)
+                : runHogwildEpoch(inputs, targets, order, workers);
+    }
+
+    private double runSyncEpoch(SparseVector[] inputs, int[] targets, int[] order, int workers) {
+        if (workers == 1 && serialBuffers == null) {
+            serialBuffers = classifier.newBatchBuffers(batchSize);
+        }
+        double loss = 0.0;
+        for (int start = 0; start < order.length; start += batchSize) {
+            int end = Math.min(start + batchSize, order.length);
+            int n = end - start;
+            int shards = Math.min(workers, n);
+            int batchStart = start;
+
+            // Each worker computes the summed gradients of its shard
+            runAll(workers, shards, w -> {
+                int from = batchStart + n * w / shards;
+                int to = batchStart + n * (w + 1) / shards;
+                workerLoss[w] = classifier.computeBatchGradients(inputs, targets, order, from, to,
+                        workers == 1 ? serialBuffers : workerBuffers[w], workerGradients[w]);
+            });
+            for (int w = 0; w < shards; w++) {
+                loss += workerLoss[w];
+            }
+
+            // Sum the shards and apply one averaged update, split by weight slices
+            classifier.beginUpdate(workerGradients, shards);
+            runAll(workers, slices.size(), t -> {
+                int[] slice = slices.get(t);
+                classifier.applyGradientSlice(workerGradients, shards, n, slice[0], slice[1], slice[2]);
+            });
+            classifier.applyBiasGradients(workerGradients, shards, n);
+        }
+        return loss;
+    }
+
+    private double runHogwildEpoch(SparseVector[] inputs, int[] targets, int[] order, int workers) {
+        int shards = Math.min(workers, order.length);
+        runAll(workers, shards, w -> {
+            int from = order.length * w / shards;
+            int to = order.length * (w + 1) / shards;
+            double loss = 0.0;
+            if (batchSize > 1) {
+                for (int start = from; start < to; start += batchSize) {
+                    loss += classifier.trainBatch(inputs, targets, order, start, Math.min(start + batchSize, to),
+                            workerBuffers[w], workerGradients[w]);
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    loss += classifier.trainSample(inputs[order[i]], targets[order[i]]);
+                }
+            }
+            workerLoss[w] = loss;
+        });
+
+        double loss = 0.0;
+        for (int w = 0; w < shards; w++) {
+            loss += workerLoss[w];
+        }
+        return loss;
+    }
+
+    /**
+     * Runs {@code task(0..count)} on the pool and waits for all of them; with a single worker, runs them
+     * in order on the calling thread instead.
+     * Task {@code i} runs on behalf of worker {@code i % threads}, whose busy time it is charged to.
+     */
+    private void runAll(int workers, int count, IntConsumer task) {
+        if (workers == 1) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                task.accept(i);
+            }
+            long elapsed = System.nanoTime() - begin;
+            synchronized (workerBusyNanos) {
+                workerBusyNanos[0] += elapsed;
+            }
+            return;
+        }
+        List<RecursiveAction> actions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            actions.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    long begin = System.nanoTime();
+                    task.accept(index);
+                    long elapsed = System.nanoTime() - begin;
+                    synchronized (workerBusyNanos) {
+                        workerBusyNanos[index % threads] += elapsed;
+                    }
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(actions);
+            }
+        });
+    }
+
+    /**
+     * Total time the workers spent computing, summed over all threads.
+     * Divided by the wall-clock time of the same epochs, this is the average number of busy workers
+     * (utilization), not a speedup: it does not account for work a single thread would have avoided.
+     */
+    public long getBusyNanos() {
+        long total = 0;
+        for (long nanos : workerBusyNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -3,29 +3,40 @@ package m2i.datamining_mlp.model;
 
 import m2i.datamining_mlp.DTO.TrainingResponse;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.io.Serializable;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 @Document(collection = "pretrained_models")
+@CompoundIndex(name = "name_revision", def = "{'name': 1, 'revision': -1}")
 public class PretrainedModel implements Serializable {
     @Id
-    private String id = "pretrained_model"; // Fixed ID for single pretrained model
-    private double[][][] weights; // Neural network weights
-    private double[][] biases; // Neural network biases
+    private String id = "pretrained_model"; // Fixed ID for the single pretrained model; "name@revision" in the registry
+    private String name; // Registry name, null for the single pretrained model
+    private int revision; // Registry version of the named model, counting from 1
+    private long createdAt; // Registry save time (ms)
+    private byte[] modelData; // Binary encoding from ModelCodec, when stored inline
+    private String modelFileId; // GridFS file holding the binary encoding, for models too large to inline
+    private double[][][] weights; // Legacy nested weights, only in documents saved before the binary format
+    private double[][] biases; // Legacy nested biases
     private int inputSize;
     private int[] hiddenSizes;
     private double learningRate;
     private String activationFunction;
     private TrainingResponse.TrainingMetrics metrics;
+    private long version; // Changes on every save, so other instances can detect a new model cheaply
 
     // Constructors
     public PretrainedModel() {}
 
     public PretrainedModel(Classifier classifier, TrainingResponse.TrainingMetrics metrics) {
-        this.weights = classifier.getWeights();
-        this.biases = classifier.getBiases();
+        this(classifier, metrics, false);
+    }
+
+    public PretrainedModel(Classifier classifier, TrainingResponse.TrainingMetrics metrics, boolean float32) {
+        this.modelData = ModelCodec.encode(classifier, float32, 0);
         this.inputSize = classifier.getInputSize();
         this.hiddenSizes = classifier.getHiddenSizes();
         this.learningRate = classifier.getLearningRate();
@@ -37,6 +48,21 @@ public class PretrainedModel implements Serializable {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getRevision() { return revision; }
+    public void setRevision(int revision) { this.revision = revision; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public byte[] getModelData() { return modelData; }
+    public void setModelData(byte[] modelData) { this.modelData = modelData; }
+
+    public String getModelFileId() { return modelFileId; }
+    public void setModelFileId(String modelFileId) { this.modelFileId = modelFileId; }
+
     public double[][][] getWeights() { return weights; }
     public void setWeights(double[][][] weights) { this.weights = weights; }
 
@@ -58,13 +84,19 @@ public class PretrainedModel implements Serializable {
     public TrainingResponse.TrainingMetrics getMetrics() { return metrics; }
     public void setMetrics(TrainingResponse.TrainingMetrics metrics) { this.metrics = metrics; }
 
-    // Convert to Classifier
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    // Convert to Classifier from the inline binary encoding, or from legacy nested arrays
     public Classifier toClassifier() {
-        Classifier classifier = new Classifier(inputSize, hiddenSizes, learningRate,
-                Classifier.ActivationFunction.valueOf(activationFunction));
-        classifier.setWeights(weights);
-        classifier.setBiases(biases);
-        return classifier;
+        if (modelData != null) {
+            return ModelCodec.decode(ByteBuffer.wrap(modelData)).classifier();
+        }
+        if (weights == null) {
+            throw new IllegalStateException("Model parameters are stored outside this document");
+        }
+        return Classifier.fromWeights(inputSize, hiddenSizes, learningRate,
+                Classifier.ActivationFunction.valueOf(activationFunction), weights, biases);
     }
 }
 
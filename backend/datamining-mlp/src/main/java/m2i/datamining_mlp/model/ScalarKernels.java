@@ -0,0 +1,44 @@
+package m2i.datamining_mlp.model;
+
+/**
+ * Plain Java kernels; always available, and written so the JIT can unroll them.
+ */
+final class ScalarKernels implements KernelBackend {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int n) {
+        // Four independent accumulators hide the latency of the floating-point adds
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        int i = 0;
+        for (; i <= n - 4; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int n) {
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    @Override
+    public void activate(Classifier.ActivationFunction function, double[] z, int zOffset,
+                         double[] out, int outOffset, int n) {
+        for (int i = 0; i < n; i++) {
+            out[outOffset + i] = Classifier.activate(z[zOffset + i], function);
+        }
+    }
+}
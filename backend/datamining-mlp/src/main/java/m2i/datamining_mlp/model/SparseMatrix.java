@@ -0,0 +1,81 @@
+package m2i.datamining_mlp.model;
+
+/**
+ * Immutable sparse matrix in compressed sparse row (CSR) form: row {@code r} holds the entries
+ * {@code [rowPointers[r], rowPointers[r + 1])} of the parallel column index and value arrays,
+ * with column indices strictly increasing within a row.
+ * <p>
+ * Rows are handed out as {@link SparseVector} views over the shared arrays, so selecting or
+ * reordering rows never copies their entries.
+ */
+public final class SparseMatrix {
+    private final int rows;
+    private final int columns;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    /**
+     * @param rowPointers {@code rows + 1} non-decreasing offsets, starting at 0 and ending at the entry count
+     * @param columnIndices Column of each entry, strictly increasing within a row and in {@code [0, columns)}
+     * @param values Value of each entry, same length as {@code columnIndices}
+     */
+    public SparseMatrix(int columns, int[] rowPointers, int[] columnIndices, double[] values) {
+        if (columns < 0 || rowPointers.length == 0 || rowPointers[0] != 0) {
+            throw new IllegalArgumentException("Row pointers must start at 0");
+        }
+        if (columnIndices.length != values.length || rowPointers[rowPointers.length - 1] != values.length) {
+            throw new IllegalArgumentException("Row pointers, column indices and values do not match");
+        }
+        for (int r = 0; r + 1 < rowPointers.length; r++) {
+            if (rowPointers[r + 1] < rowPointers[r]) {
+                throw new IllegalArgumentException("Row pointers must be non-decreasing");
+            }
+            for (int k = rowPointers[r]; k < rowPointers[r + 1]; k++) {
+                if (columnIndices[k] < 0 || columnIndices[k] >= columns
+                        || (k > rowPointers[r] && columnIndices[k] <= columnIndices[k - 1])) {
+                    throw new IllegalArgumentException("Column indices must be strictly increasing within row " + r);
+                }
+            }
+        }
+        this.rows = rowPointers.length - 1;
+        this.columns = columns;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * Number of stored (non-zero) entries.
+     */
+    public int nonZeroCount() {
+        return values.length;
+    }
+
+    /**
+     * View of row {@code r}; shares this matrix's arrays.
+     */
+    public SparseVector row(int r) {
+        int start = rowPointers[r];
+        return new SparseVector(columns, columnIndices, values, start, rowPointers[r + 1] - start);
+    }
+
+    /**
+     * Views of the rows listed in {@code order[from, to)}, in that order.
+     */
+    public SparseVector[] rows(int[] order, int from, int to) {
+        SparseVector[] selected = new SparseVector[to - from];
+        for (int i = from; i < to; i++) {
+            selected[i - from] = row(order[i]);
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,180 @@
+package m2i.datamining_mlp.model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sparse vector: the non-zero entries of a fixed-dimension vector as parallel
+ * index and value arrays, with indices strictly increasing.
+ * <p>
+ * A vector may be a view over a slice of larger arrays (for example one row of a CSR matrix);
+ * the arrays are never modified through it.
+ */
+public final class SparseVector {
+    private final int dimension;
+    private final int[] indices;
+    private final double[] values;
+    private final int offset;
+    private final int length;
+    private int hash; // Computed on first use, like String's; 0 until then
+
+    /**
+     * @param indices Strictly increasing indices in {@code [0, dimension)}
+     * @param values Value for each index, same length as {@code indices}
+     */
+    public SparseVector(int dimension, int[] indices, double[] values) {
+        this(dimension, indices, values, 0, indices.length);
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("Indices and values must have the same length");
+        }
+        for (int k = 0; k < indices.length; k++) {
+            if (indices[k] < 0 || indices[k] >= dimension || (k > 0 && indices[k] <= indices[k - 1])) {
+                throw new IllegalArgumentException("Indices must be strictly increasing and within the dimension");
+            }
+        }
+    }
+
+    /**
+     * View over {@code indices/values[offset, offset + length)}; the caller guarantees they are valid.
+     */
+    SparseVector(int dimension, int[] indices, double[] values, int offset, int length) {
+        this.dimension = dimension;
+        this.indices = indices;
+        this.values = values;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Sparse copy of the non-zero entries of a dense vector.
+     */
+    public static SparseVector fromDense(double[] dense) {
+        int count = 0;
+        for (double v : dense) {
+            if (v != 0.0) {
+                count++;
+            }
+        }
+        int[] indices = new int[count];
+        double[] values = new double[count];
+        int k = 0;
+        for (int i = 0; i < dense.length; i++) {
+            if (dense[i] != 0.0) {
+                indices[k] = i;
+                values[k] = dense[i];
+                k++;
+            }
+        }
+        return new SparseVector(dense.length, indices, values, 0, count);
+    }
+
+    /**
+     * Sparse vector of counts from a list of (possibly repeated) indices, e.g. token columns.
+     * @param columns Indices to count; sorted in place
+     * @param count Number of leading entries of {@code columns} to use
+     */
+    public static SparseVector ofCounts(int dimension, int[] columns, int count) {
+        Arrays.sort(columns, 0, count);
+        int distinct = 0;
+        for (int k = 0; k < count; k++) {
+            if (k == 0 || columns[k] != columns[k - 1]) {
+                distinct++;
+            }
+        }
+        int[] indices = new int[distinct];
+        double[] values = new double[distinct];
+        int d = -1;
+        for (int k = 0; k < count; k++) {
+            if (k == 0 || columns[k] != columns[k - 1]) {
+                d++;
+                indices[d] = columns[k];
+            }
+            values[d]++;
+        }
+        return new SparseVector(dimension, indices, values);
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Number of stored (non-zero) entries.
+     */
+    public int nonZeroCount() {
+        return length;
+    }
+
+    /**
+     * Index of the {@code k}-th stored entry.
+     */
+    public int indexAt(int k) {
+        return indices[offset + k];
+    }
+
+    /**
+     * Value of the {@code k}-th stored entry.
+     */
+    public double valueAt(int k) {
+        return values[offset + k];
+    }
+
+    public double[] toDense() {
+        double[] dense = new double[dimension];
+        for (int k = offset; k < offset + length; k++) {
+            dense[indices[k]] = values[k];
+        }
+        return dense;
+    }
+
+    /**
+     * Dot product with {@code dense[denseOffset, denseOffset + dimension)}, touching only stored entries.
+     */
+    public double dot(double[] dense, int denseOffset) {
+        double sum = 0.0;
+        for (int k = offset; k < offset + length; k++) {
+            sum += values[k] * dense[denseOffset + indices[k]];
+        }
+        return sum;
+    }
+
+    /**
+     * {@code dense[denseOffset + i] += alpha * this[i]} for every stored entry.
+     */
+    public void addScaledTo(double alpha, double[] dense, int denseOffset) {
+        for (int k = offset; k < offset + length; k++) {
+            dense[denseOffset + indices[k]] += alpha * values[k];
+        }
+    }
+
+    /**
+     * Equal when the dimension and every stored index and value are the same, whatever arrays back the two vectors.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SparseVector other) || dimension != other.dimension || length != other.length
+                || hashCode() != other.hashCode()) {
+            return false;
+        }
+        return Arrays.equals(indices, offset, offset + length, other.indices, other.offset, other.offset + length)
+                && Arrays.equals(values, offset, offset + length, other.values, other.offset, other.offset + length);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            // One multiply-add per stored entry, mixed over 64 bits and folded at the end
+            long mixed = dimension;
+            for (int k = offset; k < offset + length; k++) {
+                mixed = (mixed + indices[k]) * 0x9E3779B97F4A7C15L;
+                mixed = (mixed ^ Double.doubleToLongBits(values[k])) * 0xBF58476D1CE4E5B9L;
+            }
+            h = (int) (mixed ^ (mixed >>> 32));
+            hash = h;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,42 @@
+package m2i.datamining_mlp.model;
+
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * A few reusable buffers per thread, keyed by the layer widths they were sized for. Every classifier with
+ * the same architecture shares them, and the least recently used is replaced once a thread works with more
+ * architectures than there are slots, so what a thread holds is bounded by {@link #SLOTS}, not by the
+ * number of classifiers it has ever run. Lookups allocate nothing.
+ */
+final class ThreadScratch<T> {
+
+    static final int SLOTS = 4;
+
+    private final BiPredicate<T, int[]> fits;
+    private final Function<int[], T> create;
+    private final ThreadLocal<T[]> slots;
+
+    ThreadScratch(BiPredicate<T, int[]> fits, Function<int[], T> create, IntFunction<T[]> newArray) {
+        this.fits = fits;
+        this.create = create;
+        this.slots = ThreadLocal.withInitial(() -> newArray.apply(SLOTS));
+    }
+
+    /**
+     * This thread's buffers for {@code layerSizes}, created on first use; most recently used first.
+     */
+    T get(int[] layerSizes) {
+        T[] held = slots.get();
+        int slot = 0;
+        while (slot < held.length - 1 && held[slot] != null && !fits.test(held[slot], layerSizes)) {
+            slot++;
+        }
+        T buffers = held[slot] != null && fits.test(held[slot], layerSizes) ? held[slot] : create.apply(layerSizes);
+        // Shift the more recent slots down over the one taken (or the eldest), then put this one in front
+        System.arraycopy(held, 0, held, 1, slot);
+        held[0] = buffers;
+        return buffers;
+    }
+}
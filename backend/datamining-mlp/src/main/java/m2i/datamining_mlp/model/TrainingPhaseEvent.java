@@ -0,0 +1,39 @@
+package m2i.datamining_mlp.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event with the time one training phase (and layer) took during one epoch, summed over the epoch.
+ * Emitted by {@link TrainingProfiler} while a recording has the event enabled, e.g. with
+ * {@code jcmd <pid> JFR.start settings=profile}; aggregated per epoch so that recording adds no cost per sample.
+ */
+@Name("m2i.datamining_mlp.TrainingPhase")
+@Label("Training Phase")
+@Category({"Datamining MLP", "Training"})
+@Description("Time spent in one training phase during one epoch")
+@StackTrace(false)
+class TrainingPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Epoch")
+    @Description("Epoch the time was spent in; -1 outside the epoch loop")
+    int epoch;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Layer")
+    @Description("Weight layer, 0 next to the input; -1 for phases that are not split by layer")
+    int layer;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+
+    @Label("Samples")
+    long samples;
+}
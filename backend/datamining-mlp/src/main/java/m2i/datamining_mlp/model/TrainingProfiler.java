@@ -0,0 +1,152 @@
+package m2i.datamining_mlp.model;
+
+import jdk.jfr.EventType;
+import m2i.datamining_mlp.DTO.TrainingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wall time per training phase, and per layer for the forward pass, backpropagation and weight updates.
+ * <p>
+ * Callers time a phase by passing the {@link System#nanoTime()} it started at to {@link #lap}, which
+ * returns the time it ended at, so consecutive phases cost one clock read each. Sample counts are added
+ * separately, once per phase and epoch. Totals are kept for {@link #report()}; the increments of every
+ * epoch go to JFR as {@link TrainingPhaseEvent}s when a recording is listening.
+ * <p>
+ * Not thread-safe: parallel workers must not share one.
+ */
+public final class TrainingProfiler {
+
+    public enum Phase {
+        /** Reading the dataset, from the in-memory cache, the binary sidecar or the CSV. */
+        LOAD(false),
+        /** Train-test and validation splits. */
+        SPLIT(false),
+        /** Reordering the training set before each epoch. */
+        SHUFFLE(false),
+        FORWARD(true),
+        BACKWARD(true),
+        UPDATE(true),
+        /** Whole epochs on parallel workers, which are not split by phase or layer. */
+        PARALLEL(false),
+        /** Validation loss for early stopping. */
+        VALIDATION(false),
+        /** Accuracy on the test set. */
+        EVALUATION(false);
+
+        private final boolean perLayer;
+
+        Phase(boolean perLayer) {
+            this.perLayer = perLayer;
+        }
+
+        public boolean isPerLayer() {
+            return perLayer;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final int layers;
+    private final long[][] nanos;   // [phase][layer], a single slot for phases that are not per layer
+    private final long[] samples;   // [phase]
+    private final long[][] emittedNanos;
+    private final long[] emittedSamples;
+
+    /**
+     * @param layers Weight layers of the profiled network (hidden layers + 1)
+     */
+    public TrainingProfiler(int layers) {
+        this.layers = layers;
+        this.nanos = new long[PHASES.length][];
+        this.emittedNanos = new long[PHASES.length][];
+        for (Phase phase : PHASES) {
+            nanos[phase.ordinal()] = new long[phase.isPerLayer() ? layers : 1];
+            emittedNanos[phase.ordinal()] = new long[phase.isPerLayer() ? layers : 1];
+        }
+        this.samples = new long[PHASES.length];
+        this.emittedSamples = new long[PHASES.length];
+    }
+
+    /**
+     * Whether a JFR recording currently has {@link TrainingPhaseEvent} enabled.
+     */
+    public static boolean isRecording() {
+        return EventType.getEventType(TrainingPhaseEvent.class).isEnabled();
+    }
+
+    /**
+     * Adds the time since {@code start} to a phase that is not split by layer.
+     * @return The current {@link System#nanoTime()}, to start the next phase from
+     */
+    public long lap(Phase phase, long start) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()][0] += now - start;
+        return now;
+    }
+
+    /**
+     * Adds the time since {@code start} to one layer of a per-layer phase.
+     * @return The current {@link System#nanoTime()}, to start the next phase from
+     */
+    public long lap(Phase phase, int layer, long start) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()][layer] += now - start;
+        return now;
+    }
+
+    public void addSamples(Phase phase, long count) {
+        samples[phase.ordinal()] += count;
+    }
+
+    /**
+     * Emits what was recorded since the previous call as JFR events, if a recording wants them.
+     * @param epoch The epoch that just ended, or -1 for work outside the epoch loop
+     */
+    public void endEpoch(int epoch) {
+        if (!isRecording()) {
+            return;
+        }
+        for (Phase phase : PHASES) {
+            int p = phase.ordinal();
+            long sampleDelta = samples[p] - emittedSamples[p];
+            emittedSamples[p] = samples[p];
+            for (int layer = 0; layer < nanos[p].length; layer++) {
+                long delta = nanos[p][layer] - emittedNanos[p][layer];
+                emittedNanos[p][layer] = nanos[p][layer];
+                if (delta == 0) {
+                    continue;
+                }
+                TrainingPhaseEvent event = new TrainingPhaseEvent();
+                event.epoch = epoch;
+                event.phase = phase.name();
+                event.layer = phase.isPerLayer() ? layer : -1;
+                event.time = delta;
+                event.samples = sampleDelta;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Totals per phase, and per layer for per-layer phases, leaving out phases that never ran.
+     */
+    public List<TrainingResponse.PhaseTime> report() {
+        List<TrainingResponse.PhaseTime> report = new ArrayList<>();
+        for (Phase phase : PHASES) {
+            int p = phase.ordinal();
+            for (int layer = 0; layer < nanos[p].length; layer++) {
+                if (nanos[p][layer] > 0) {
+                    report.add(new TrainingResponse.PhaseTime(phase.name(), phase.isPerLayer() ? layer : null,
+                            nanos[p][layer], samples[p]));
+                }
+            }
+        }
+        return report;
+    }
+
+    public int getLayers() {
+        return layers;
+    }
+}
@@ -0,0 +1,83 @@
+package m2i.datamining_mlp.model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on the JDK Vector API ({@code jdk.incubator.vector}), using the widest SIMD shape the CPU offers.
+ * <p>
+ * Only loaded when the module is present at run time ({@code --add-modules jdk.incubator.vector});
+ * {@link MatrixKernels} falls back to {@link ScalarKernels} otherwise. Products are fused
+ * multiply-adds, so results may differ from the scalar backend in the last bit.
+ */
+final class VectorKernels implements KernelBackend {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final DoubleVector ONE = DoubleVector.broadcast(SPECIES, 1.0);
+    private static final DoubleVector TWO = DoubleVector.broadcast(SPECIES, 2.0);
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int n) {
+        int step = SPECIES.length();
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+        int i = 0;
+        // Two accumulators keep two independent FMA chains in flight
+        for (; i <= n - 2 * step; i += 2 * step) {
+            acc0 = DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i), acc0);
+            acc1 = DoubleVector.fromArray(SPECIES, a, aOffset + i + step)
+                    .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i + step), acc1);
+        }
+        for (; i <= n - step; i += step) {
+            acc0 = DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i), acc0);
+        }
+        double sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int n) {
+        int step = SPECIES.length();
+        DoubleVector scale = DoubleVector.broadcast(SPECIES, alpha);
+        int i = 0;
+        for (; i <= n - step; i += step) {
+            DoubleVector.fromArray(SPECIES, x, xOffset + i)
+                    .fma(scale, DoubleVector.fromArray(SPECIES, y, yOffset + i))
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    @Override
+    public void activate(Classifier.ActivationFunction function, double[] z, int zOffset,
+                         double[] out, int outOffset, int n) {
+        int step = SPECIES.length();
+        int i = 0;
+        for (; i <= n - step; i += step) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, z, zOffset + i);
+            DoubleVector result = switch (function) {
+                case TANH -> ONE.sub(TWO.div(v.add(v).lanewise(VectorOperators.EXP).add(1.0)));
+                case RELU -> v.max(0.0);
+                case LEAKY_RELU -> v.max(v.mul(0.01)); // x for x > 0, else 0.01x
+                default -> ONE.div(v.neg().lanewise(VectorOperators.EXP).add(1.0));
+            };
+            result.intoArray(out, outOffset + i);
+        }
+        for (; i < n; i++) {
+            out[outOffset + i] = Classifier.activate(z[zOffset + i], function);
+        }
+    }
+}
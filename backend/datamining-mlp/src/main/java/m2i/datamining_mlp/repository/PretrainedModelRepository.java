@@ -3,5 +3,9 @@ package m2i.datamining_mlp.repository;
 import m2i.datamining_mlp.model.PretrainedModel;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Optional;
+
 public interface PretrainedModelRepository extends MongoRepository<PretrainedModel, String> {
-}
\ No newline at end of file
+
+    Optional<PretrainedModel> findByNameAndRevision(String name, int revision);
+}
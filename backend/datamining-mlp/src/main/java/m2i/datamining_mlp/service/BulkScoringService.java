@@ -0,0 +1,83 @@
+package m2i.datamining_mlp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import m2i.datamining_mlp.bulk.BulkScorer;
+import m2i.datamining_mlp.bulk.MailRecordReader;
+import m2i.datamining_mlp.bulk.MboxMailReader;
+import m2i.datamining_mlp.bulk.NdjsonMailReader;
+import m2i.datamining_mlp.model.Classifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams large mail archives through a model: NDJSON or mbox in, one NDJSON result line per email out.
+ * Scoring runs on a fixed worker pool shared by all requests.
+ */
+@Service
+public class BulkScoringService {
+
+    public enum Format { NDJSON, MBOX }
+
+    private final ClassifierService classifierService;
+    private final ObjectMapper objectMapper;
+    private final int maxInFlight;
+    private final ExecutorService workers;
+
+    public BulkScoringService(ClassifierService classifierService, ObjectMapper objectMapper,
+                              @Value("${classifier.bulk.threads:0}") int threads,
+                              @Value("${classifier.bulk.max-in-flight:256}") int maxInFlight) {
+        this.classifierService = classifierService;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = maxInFlight;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(poolSize, task -> {
+            Thread thread = new Thread(task, "bulk-score-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The model a bulk run will use, fixed when the run starts.
+     * @throws IllegalStateException if there is no such model
+     */
+    public Classifier resolveClassifier(boolean pretrained) {
+        return classifierService.findClassifier(pretrained).orElseThrow(() -> new IllegalStateException(
+                pretrained ? "No pretrained model available" : "No trained model available"));
+    }
+
+    /**
+     * Scores every email in {@code in} with {@code classifier} and writes the results to {@code out}.
+     * @return Number of emails read
+     */
+    public long score(Classifier classifier, InputStream in, Format format, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        MailRecordReader records = format == Format.MBOX
+                ? new MboxMailReader(reader)
+                : new NdjsonMailReader(reader, objectMapper);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        BulkScorer scorer = new BulkScorer(classifier, classifierService::textToSparseFeatureVector, workers,
+                maxInFlight, objectMapper);
+        return scorer.score(records, writer);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
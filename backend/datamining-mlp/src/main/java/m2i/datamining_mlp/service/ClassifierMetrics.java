@@ -0,0 +1,128 @@
+package m2i.datamining_mlp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import m2i.datamining_mlp.model.Classifier;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the prediction path, split into its phases: tokenizing the email text, looking
+ * up the model, and the forward pass. Endpoint latency as a whole is measured by Spring's
+ * {@code http.server.requests}. Meters are created up front so recording allocates nothing.
+ */
+@Component
+public class ClassifierMetrics {
+
+    /** Which model served a prediction; the "model" tag. */
+    public enum ModelKind {
+        TRAINED, PRETRAINED, REGISTERED;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Timer tokenizeSingle;
+    private final Timer tokenizeBatch;
+    private final Map<ModelKind, Timer> lookup = new EnumMap<>(ModelKind.class);
+    private final Map<ModelKind, Timer> forwardSingle = new EnumMap<>(ModelKind.class);
+    private final Map<ModelKind, Timer> forwardBatch = new EnumMap<>(ModelKind.class);
+    private final Map<ModelKind, Counter> spam = new EnumMap<>(ModelKind.class);
+    private final Map<ModelKind, Counter> notSpam = new EnumMap<>(ModelKind.class);
+
+    public ClassifierMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.tokenizeSingle = timer("classifier.tokenize", "Email text to sparse feature counts", "mode", "single");
+        this.tokenizeBatch = timer("classifier.tokenize", "Email text to sparse feature counts", "mode", "batch");
+        for (ModelKind kind : ModelKind.values()) {
+            lookup.put(kind, timer("classifier.model.lookup", "Resolving the model to predict with",
+                    "model", kind.tag()));
+            forwardSingle.put(kind, timer("classifier.forward", "Forward pass of the network",
+                    "model", kind.tag(), "mode", "single"));
+            forwardBatch.put(kind, timer("classifier.forward", "Forward pass of the network",
+                    "model", kind.tag(), "mode", "batch"));
+            spam.put(kind, Counter.builder("classifier.verdicts").description("Emails classified")
+                    .tags("model", kind.tag(), "verdict", "spam").register(registry));
+            notSpam.put(kind, Counter.builder("classifier.verdicts").description("Emails classified")
+                    .tags("model", kind.tag(), "verdict", "not_spam").register(registry));
+        }
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Publishes the parameter count and estimated weight memory of the model {@code classifier} returns,
+     * read at every scrape; NaN while there is no such model.
+     */
+    public void registerModelGauges(ModelKind kind, Supplier<Optional<Classifier>> classifier) {
+        Gauge.builder("classifier.model.parameters",
+                        () -> classifier.get().map(c -> (Number) c.getParameterCount()).orElse(Double.NaN))
+                .description("Weights and biases of the loaded model")
+                .tag("model", kind.tag())
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("classifier.model.memory",
+                        () -> classifier.get().map(c -> (Number) (c.getParameterCount() * Double.BYTES)).orElse(Double.NaN))
+                .description("Heap held by the loaded model's weights and biases")
+                .baseUnit("bytes")
+                .tag("model", kind.tag())
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * Publishes the hits, misses, evictions and size of a model's prediction cache, read at every scrape.
+     * The hit rate is {@code classifier.prediction.cache.gets} with result "hit" over all results.
+     */
+    public void registerPredictionCache(ModelKind kind, PredictionCache cache) {
+        FunctionCounter.builder("classifier.prediction.cache.gets", cache, c -> c.stats().hits())
+                .description("Prediction cache lookups")
+                .tags("model", kind.tag(), "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("classifier.prediction.cache.gets", cache, c -> c.stats().misses())
+                .description("Prediction cache lookups")
+                .tags("model", kind.tag(), "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("classifier.prediction.cache.evictions", cache, c -> c.stats().evictions())
+                .description("Cached predictions dropped for size or age")
+                .tag("model", kind.tag())
+                .register(registry);
+        Gauge.builder("classifier.prediction.cache.size", cache, c -> c.stats().entries())
+                .description("Cached predictions")
+                .tag("model", kind.tag())
+                .register(registry);
+    }
+
+    public void recordTokenization(boolean batch, long nanos) {
+        (batch ? tokenizeBatch : tokenizeSingle).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLookup(ModelKind kind, long nanos) {
+        lookup.get(kind).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordForwardPass(ModelKind kind, boolean batch, long nanos) {
+        (batch ? forwardBatch : forwardSingle).get(kind).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void countVerdicts(ModelKind kind, int spamCount, int notSpamCount) {
+        spam.get(kind).increment(spamCount);
+        notSpam.get(kind).increment(notSpamCount);
+    }
+}
@@ -2,15 +2,38 @@ package m2i.datamining_mlp.service;
 
 import m2i.datamining_mlp.DTO.TrainingRequest;
 import m2i.datamining_mlp.DTO.TrainingResponse;
+import m2i.datamining_mlp.dataset.DatasetCache;
+import m2i.datamining_mlp.dataset.LabeledDataset;
+import m2i.datamining_mlp.feature.Vocabulary;
+import m2i.datamining_mlp.model.BatchBuffers;
 import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.EarlyStopping;
+import m2i.datamining_mlp.model.Gradients;
+import m2i.datamining_mlp.model.LearningRateSchedule;
+import m2i.datamining_mlp.model.Optimizer;
+import m2i.datamining_mlp.model.ParallelTrainer;
 import m2i.datamining_mlp.model.PretrainedModel;
-import m2i.datamining_mlp.repository.PretrainedModelRepository;
+import m2i.datamining_mlp.model.SparseVector;
+import m2i.datamining_mlp.model.TrainingProfiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service class for training and using a neural network classifier for email spam detection.
@@ -19,17 +42,60 @@ import java.util.*;
 @Service
 public class ClassifierService {
 
-    /** The currently trained classifier instance. */
-    private Classifier currentClassifier;
+    private static final Logger log = LoggerFactory.getLogger(ClassifierService.class);
 
-    /** Stores the metrics from the last training session. */
-    private TrainingResponse.TrainingMetrics lastTrainingMetrics;
+    static final String DATASET_PATH = "src/main/resources/dataset/emails.csv";
 
-    private final PretrainedModelRepository pretrainedModelRepository;
+    /** Share of the dataset used for training; the rest is the test set. */
+    static final double TRAIN_FRACTION = 0.8;
+
+    /** Seed of the train-test shuffle. */
+    static final long SPLIT_SEED = 42;
+
+    /** The last trained model and its metrics; swapped as a whole when a training run completes. */
+    private final AtomicReference<ModelSnapshot> currentModel = new AtomicReference<>();
+
+    /** Ready-to-use pretrained classifier, kept in memory instead of read from the database per request. */
+    private final PretrainedModelCache pretrainedModelCache;
+
+    /** Parsed training data, reused across training runs while the CSV is unchanged. */
+    private final DatasetCache datasetCache;
+
+    /** Named, versioned models saved from training runs. */
+    private final ModelRegistry modelRegistry;
+
+    /** Prediction phase timers, verdict counters and model size gauges. */
+    private final ClassifierMetrics metrics;
+
+    /** Recent scores of the trained and pretrained models; empty when disabled. Registered models are not cached. */
+    private final Map<ClassifierMetrics.ModelKind, PredictionCache> predictionCaches =
+            new EnumMap<>(ClassifierMetrics.ModelKind.class);
 
     @Autowired
-    public ClassifierService(PretrainedModelRepository pretrainedModelRepository) {
-        this.pretrainedModelRepository = pretrainedModelRepository;
+    public ClassifierService(PretrainedModelCache pretrainedModelCache, DatasetCache datasetCache,
+                             ModelRegistry modelRegistry, ClassifierMetrics metrics,
+                             @Value("${classifier.prediction-cache.max-entries:10000}") int predictionCacheEntries,
+                             @Value("${classifier.prediction-cache.ttl-ms:600000}") long predictionCacheTtlMs) {
+        this.pretrainedModelCache = pretrainedModelCache;
+        this.datasetCache = datasetCache;
+        this.modelRegistry = modelRegistry;
+        this.metrics = metrics;
+        // Scrapes read the models already in memory and never start a pretrained model load
+        metrics.registerModelGauges(ClassifierMetrics.ModelKind.TRAINED, () -> findClassifier(false));
+        metrics.registerModelGauges(ClassifierMetrics.ModelKind.PRETRAINED,
+                () -> pretrainedModelCache.peek().map(PretrainedModelCache.CachedModel::classifier));
+        if (predictionCacheEntries > 0) {
+            // Each cache only binds to the model its source serves now, never to one a slow request still holds
+            Map<ClassifierMetrics.ModelKind, Supplier<Classifier>> sources = Map.of(
+                    ClassifierMetrics.ModelKind.TRAINED, () -> findClassifier(false).orElse(null),
+                    ClassifierMetrics.ModelKind.PRETRAINED,
+                    () -> pretrainedModelCache.peek().map(PretrainedModelCache.CachedModel::classifier).orElse(null));
+            sources.forEach((kind, source) -> {
+                PredictionCache cache = new PredictionCache(predictionCacheEntries, predictionCacheTtlMs, source);
+                predictionCaches.put(kind, cache);
+                metrics.registerPredictionCache(kind, cache);
+            });
+        }
     }
 
 
@@ -44,6 +110,19 @@ public class ClassifierService {
      *         and epoch loss history.
      */
     public TrainingResponse trainModel(TrainingRequest request) {
+        return trainModel(request, TrainingListener.NONE);
+    }
+
+    /**
+     * Trains as {@link #trainModel(TrainingRequest)}, reporting every epoch to {@code listener} and
+     * stopping with status "cancelled" once it asks to. The new model replaces the current one only
+     * when training completes.
+     *
+     * @param request  The training request.
+     * @param listener Receives the average loss of each epoch; polled for cancellation between batches.
+     * @return A TrainingResponse as for {@link #trainModel(TrainingRequest)}.
+     */
+    public TrainingResponse trainModel(TrainingRequest request, TrainingListener listener) {
         TrainingResponse response = new TrainingResponse();
         List<TrainingResponse.EpochLoss> epochLosses = new ArrayList<>();
 
@@ -64,152 +143,172 @@ public class ClassifierService {
                 }
             }
 
-            // Parse and validate activation function
-            Classifier.ActivationFunction activationFunction;
-            try {
-                activationFunction = Classifier.ActivationFunction.valueOf(request.getActivationFunction().toUpperCase());
-            } catch (IllegalArgumentException e) {
+            // Batch size 0 or 1 keeps per-sample training
+            if (request.getBatchSize() < 0) {
                 response.setStatus("error");
-                response.setMessage("Invalid activation function. Valid options: SIGMOID, TANH, RELU, LEAKY_RELU");
+                response.setMessage("Batch size must not be negative");
                 return response;
             }
 
-            // Load dataset from CSV file
-            List<String[]> dataset = loadDataset();
-
-            // Check if dataset is valid
-            if (dataset.isEmpty()) {
+            // Parse and validate parallel training settings
+            if (request.getThreads() < 0) {
                 response.setStatus("error");
-                response.setMessage("Dataset is empty or invalid");
+                response.setMessage("Thread count must not be negative");
                 return response;
             }
+            ParallelTrainer.Mode parallelMode = ParallelTrainer.Mode.SYNC;
+            if (request.getParallelMode() != null) {
+                try {
+                    parallelMode = ParallelTrainer.Mode.valueOf(request.getParallelMode().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    response.setStatus("error");
+                    response.setMessage("Invalid parallel mode. Valid options: SYNC, HOGWILD");
+                    return response;
+                }
+            }
+            int threads = Math.min(Math.max(1, request.getThreads()), Runtime.getRuntime().availableProcessors());
 
-            // Determine feature count (excluding first column ID and last column target)
-            String[] header = dataset.get(0);
-            int featureCount = header.length - 2; // -2 to exclude ID and target columns
-
-            // Validate feature count
-            if (featureCount <= 0) {
+            // 0 or 1 fold trains a single model on the train-test split
+            if (request.getFolds() < 0) {
                 response.setStatus("error");
-                response.setMessage("No valid features found in dataset");
+                response.setMessage("Fold count must not be negative");
                 return response;
             }
 
-            // Initialize arrays for features and targets
-            double[][] features = new double[dataset.size() - 1][featureCount]; // -1 to skip header
-            int[] target = new int[dataset.size() - 1];
-
-            // Parse dataset, skipping first column (ID) and extracting last column as target
-            for (int i = 1; i < dataset.size(); i++) { // Start from 1 to skip header
-                String[] row = dataset.get(i);
+            // Validate early stopping settings
+            if (request.getValidationFraction() < 0 || request.getValidationFraction() >= 1) {
+                response.setStatus("error");
+                response.setMessage("Validation fraction must be at least 0 and below 1");
+                return response;
+            }
+            if (request.getValidationInterval() < 0 || request.getPatience() < 0 || request.getMinDelta() < 0) {
+                response.setStatus("error");
+                response.setMessage("Validation interval, patience and minimum improvement must not be negative");
+                return response;
+            }
 
-                // Parse features, starting from index 1 to skip ID
-                for (int j = 0; j < featureCount; j++) {
-                    try {
-                        features[i - 1][j] = Double.parseDouble(row[j + 1]);
-                    } catch (NumberFormatException e) {
-                        features[i - 1][j] = 0.0; // Default to 0 for invalid numbers
-                    }
+            // Parse the update rule and learning rate schedule; SGD applies updates without optimizer state
+            Optimizer.Type optimizerType = null;
+            if (request.getOptimizer() != null && !request.getOptimizer().equalsIgnoreCase("SGD")) {
+                try {
+                    optimizerType = Optimizer.Type.valueOf(request.getOptimizer().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    response.setStatus("error");
+                    response.setMessage("Invalid optimizer. Valid options: SGD, MOMENTUM, NESTEROV, ADAM");
+                    return response;
                 }
-
-                // Parse target from the last column
+                if (threads > 1 && parallelMode == ParallelTrainer.Mode.HOGWILD) {
+                    response.setStatus("error");
+                    response.setMessage("HOGWILD training only supports the SGD optimizer");
+                    return response;
+                }
+            }
+            LearningRateSchedule schedule = LearningRateSchedule.CONSTANT;
+            if (request.getLearningRateSchedule() != null) {
                 try {
-                    target[i - 1] = Integer.parseInt(row[header.length - 1]);
-                } catch (NumberFormatException e) {
-                    target[i - 1] = 0; // Default to 0 for invalid target
+                    schedule = LearningRateSchedule.valueOf(request.getLearningRateSchedule().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    response.setStatus("error");
+                    response.setMessage("Invalid learning rate schedule. Valid options: CONSTANT, STEP, EXPONENTIAL, COSINE");
+                    return response;
                 }
             }
-
-            // Calculate dataset statistics
-            int totalEmails = features.length;
-            int spamCount = 0;
-            for (int t : target) {
-                if (t == 1) spamCount++;
+            if (request.getLearningRateDecay() < 0 || request.getLearningRateStepSize() < 0) {
+                response.setStatus("error");
+                response.setMessage("Learning rate decay and step size must not be negative");
+                return response;
             }
 
-            // Split dataset into training (80%) and test (20%) sets
-            int trainSize = (int) (totalEmails * 0.8);
-            int testSize = totalEmails - trainSize;
-
-            // Shuffle indices for random train-test split
-            List<Integer> indices = new ArrayList<>();
-            for (int i = 0; i < totalEmails; i++) {
-                indices.add(i);
+            // Parse and validate activation function
+            Classifier.ActivationFunction activationFunction;
+            try {
+                activationFunction = Classifier.ActivationFunction.valueOf(request.getActivationFunction().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                response.setStatus("error");
+                response.setMessage("Invalid activation function. Valid options: SIGMOID, TANH, RELU, LEAKY_RELU");
+                return response;
             }
-            Collections.shuffle(indices, new Random(42));
 
-            // Initialize training and test sets
-            double[][] xTrain = new double[trainSize][featureCount];
-            double[][] xTest = new double[testSize][featureCount];
-            int[] yTrain = new int[trainSize];
-            int[] yTest = new int[testSize];
+            // Profile the phases when asked to, or when a JFR recording wants the events
+            TrainingProfiler profiler = request.isProfile() || TrainingProfiler.isRecording()
+                    ? new TrainingProfiler(request.getHiddenSizes().length + 1)
+                    : null;
+            long time = System.nanoTime();
 
-            // Populate training set
-            for (int i = 0; i < trainSize; i++) {
-                xTrain[i] = features[indices.get(i)].clone();
-                yTrain[i] = target[indices.get(i)];
+            // Load the dataset, parsing the CSV only when no cached copy matches it
+            LabeledDataset dataset;
+            try {
+                dataset = datasetCache.load(Path.of(DATASET_PATH));
+            } catch (IllegalArgumentException e) {
+                response.setStatus("error");
+                response.setMessage(e.getMessage());
+                return response;
             }
-
-            // Populate test set
-            for (int i = 0; i < testSize; i++) {
-                xTest[i] = features[indices.get(i + trainSize)].clone();
-                yTest[i] = target[indices.get(i + trainSize)];
+            if (profiler != null) {
+                time = profiler.lap(TrainingProfiler.Phase.LOAD, time);
+                profiler.addSamples(TrainingProfiler.Phase.LOAD, dataset.size());
             }
+            int featureCount = dataset.featureCount();
 
-            // Initialize classifier with specified architecture
-            currentClassifier = new Classifier(featureCount, request.getHiddenSizes(),
-                    request.getLearningRate(), activationFunction);
+            // Calculate dataset statistics
+            int totalEmails = dataset.size();
+            int spamCount = dataset.positiveCount();
 
-            // Train the model, tracking loss per epoch
-            for (int epoch = 0; epoch < request.getEpochs(); epoch++) {
-                double totalLoss = 0.0;
+            TrainingOptions options = new TrainingOptions(activationFunction, parallelMode, optimizerType, schedule);
 
-                // Shuffle training data for each epoch
-                List<Integer> trainIndices = new ArrayList<>();
-                for (int i = 0; i < trainSize; i++) {
-                    trainIndices.add(i);
+            // Cross-validation evaluates the settings on every fold instead of publishing a model
+            if (request.getFolds() > 1) {
+                if (request.getFolds() > totalEmails) {
+                    response.setStatus("error");
+                    response.setMessage("Fold count must not exceed the number of emails");
+                    return response;
                 }
-                Collections.shuffle(trainIndices);
-
-                // Train on each sample and compute loss
-                for (int idx : trainIndices) {
-                    currentClassifier.trainSample(xTrain[idx], yTrain[idx]);
+                return crossValidate(request, options, dataset, listener, response, epochLosses, profiler);
+            }
 
-                    double prediction = currentClassifier.predict(xTrain[idx]);
-                    double loss = Math.pow(yTrain[idx] - prediction, 2);
-                    totalLoss += loss;
-                }
+            // Split dataset into training (80%) and test (20%) sets, with a fixed seed so the split is repeatable
+            LabeledDataset.Split split = dataset.split(TRAIN_FRACTION, SPLIT_SEED);
+            SparseVector[] sparseTest = split.testFeatures();
+            int[] yTest = split.testLabels();
+            int testSize = yTest.length;
+            if (profiler != null) {
+                profiler.lap(TrainingProfiler.Phase.SPLIT, time);
+                profiler.addSamples(TrainingProfiler.Phase.SPLIT, totalEmails);
+            }
 
-                // Record average loss for every 10th epoch or the last epoch
-                double avgLoss = totalLoss / xTrain.length;
-                if (epoch % 5 == 0 || epoch == request.getEpochs() - 1) {
-                    epochLosses.add(new TrainingResponse.EpochLoss(epoch, avgLoss));
-                }
+            // Train the model; predictions keep using the previous model meanwhile
+            TrainingRun run = train(request, options, featureCount, split.trainFeatures(), split.trainLabels(),
+                    threads, listener, epochLosses, profiler);
+            Classifier classifier = run.classifier();
+            int trainSize = run.trainSize();
+            int epochsRun = run.epochsRun();
+            if (run.earlyStopping() != null) {
+                response.setBestEpoch(run.earlyStopping().getBestEpoch());
+                response.setBestValidationLoss(run.earlyStopping().getBestLoss());
             }
 
-            // Evaluate model on test set
-            int correct = 0;
-            int totalSpam = 0;
-            int correctSpam = 0;
-            int totalNotSpam = 0;
-            int correctNotSpam = 0;
-
-            for (int i = 0; i < xTest.length; i++) {
-                double prediction = currentClassifier.predict(xTest[i]);
-                int predictedClass = prediction > 0.5 ? 1 : 0;
-
-                if (predictedClass == yTest[i]) {
-                    correct++;
-                }
+            // Timing; utilization is the workers' summed busy time over the wall-clock training time, and
+            // speedup the single-threaded first epoch's time over that of the parallel ones
+            long trainingNanos = run.trainingNanos();
+            response.setEpochsRun(epochsRun);
+            response.setStoppedEarly(epochsRun < request.getEpochs());
+            response.setTimeSavedMs(epochsRun > 0
+                    ? trainingNanos / epochsRun * (request.getEpochs() - epochsRun) / 1_000_000
+                    : 0);
+            response.setTrainingTimeMs(trainingNanos / 1_000_000);
+            response.setThreads(threads);
+            response.setParallelUtilization(trainingNanos > 0 ? (double) run.busyNanos() / trainingNanos : 1.0);
+            response.setSpeedup(run.speedup());
 
-                if (yTest[i] == 1) {
-                    totalSpam++;
-                    if (predictedClass == 1) correctSpam++;
-                } else {
-                    totalNotSpam++;
-                    if (predictedClass == 0) correctNotSpam++;
-                }
+            // Evaluate model on test set
+            Evaluation evaluation = evaluate(classifier, sparseTest, yTest, profiler);
+            if (profiler != null) {
+                profiler.endEpoch(-1);
             }
+            int totalSpam = evaluation.totalSpam();
+            int correctSpam = evaluation.correctSpam();
+            int totalNotSpam = evaluation.totalNotSpam();
+            int correctNotSpam = evaluation.correctNotSpam();
 
             // Build response metrics
             TrainingResponse.TrainingMetrics metrics = new TrainingResponse.TrainingMetrics();
@@ -219,22 +318,20 @@ public class ClassifierService {
             metrics.setFeatureDimensions(featureCount);
             metrics.setTrainSize(trainSize);
             metrics.setTestSize(testSize);
-            metrics.setAccuracy((double) correct / testSize);
-            metrics.setSpamDetectionRate(totalSpam > 0 ? (double) correctSpam / totalSpam : 0);
-            metrics.setNonSpamDetectionRate(totalNotSpam > 0 ? (double) correctNotSpam / totalNotSpam : 0);
+            metrics.setAccuracy(evaluation.accuracy());
+            metrics.setSpamDetectionRate(evaluation.spamDetectionRate());
+            metrics.setNonSpamDetectionRate(evaluation.nonSpamDetectionRate());
 
             // Set neural network architecture information
             metrics.setHiddenLayerSizes(request.getHiddenSizes());
             metrics.setNumHiddenLayers(request.getHiddenSizes().length);
             metrics.setActivationFunction(request.getActivationFunction());
 
-            // Store metrics for later retrieval
-            lastTrainingMetrics = metrics;
+            // Publish the model together with its metrics; predictions switch over in one step
+            publish(classifier, metrics);
 
-            System.out.println(totalSpam);
-            System.out.println(correctSpam);
-            System.out.println(totalNotSpam);
-            System.out.println(correctNotSpam);
+            log.info("Test set: {}/{} spam and {}/{} non-spam emails classified correctly",
+                    correctSpam, totalSpam, correctNotSpam, totalNotSpam);
 
             // Set successful response
             response.setStatus("success");
@@ -242,7 +339,14 @@ public class ClassifierService {
                     request.getHiddenSizes().length, request.getActivationFunction()));
             response.setMetrics(metrics);
             response.setEpochLosses(epochLosses);
+            if (request.isProfile()) {
+                response.setProfile(profiler.report());
+            }
 
+        } catch (CancellationException e) {
+            response.setStatus("cancelled");
+            response.setMessage("Training cancelled");
+            response.setEpochLosses(epochLosses);
         } catch (Exception e) {
             response.setStatus("error");
             response.setMessage("Training failed: " + e.getMessage());
@@ -252,6 +356,455 @@ public class ClassifierService {
         return response;
     }
 
+    /**
+     * Makes {@code classifier} the current model. It must not be trained any further afterwards.
+     *
+     * @return The published snapshot.
+     */
+    ModelSnapshot publish(Classifier classifier, TrainingResponse.TrainingMetrics metrics) {
+        ModelSnapshot snapshot = currentModel.updateAndGet(previous ->
+                new ModelSnapshot(classifier, metrics, previous == null ? 1 : previous.version() + 1));
+        // Free the old model's scores now rather than on the next prediction
+        PredictionCache cache = predictionCaches.get(ClassifierMetrics.ModelKind.TRAINED);
+        if (cache != null) {
+            cache.clear();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Hit and eviction counters of the prediction caches, by model ("trained", "pretrained").
+     */
+    public Map<String, PredictionCache.Stats> getPredictionCacheStats() {
+        Map<String, PredictionCache.Stats> stats = new LinkedHashMap<>();
+        predictionCaches.forEach((kind, cache) -> stats.put(kind.name().toLowerCase(), cache.stats()));
+        return stats;
+    }
+
+    /**
+     * The last trained model, read without locking.
+     *
+     * @return The current snapshot, or empty if no training run has completed.
+     */
+    public Optional<ModelSnapshot> getCurrentModel() {
+        return Optional.ofNullable(currentModel.get());
+    }
+
+    private static void checkCancelled(TrainingListener listener) {
+        if (listener.isCancelled()) {
+            throw new CancellationException("Training cancelled");
+        }
+    }
+
+    /** Parsed training settings shared by the single-split and cross-validation paths. */
+    private record TrainingOptions(Classifier.ActivationFunction activationFunction, ParallelTrainer.Mode parallelMode,
+                                   Optimizer.Type optimizer, LearningRateSchedule schedule) {}
+
+    /**
+     * Outcome of {@link #train}.
+     * @param trainSize Samples trained on, after holding out the validation split
+     * @param earlyStopping Tracker of the validation loss, null without a validation split
+     * @param busyNanos Summed compute time of the training threads
+     * @param firstEpochNanos Time of the first epoch's updates, always run on one thread; 0 if none ran
+     * @param speedup Time of the first epoch over the average of the later, parallel ones; 1 on one thread,
+     *                null when parallel training stopped after the first epoch
+     */
+    private record TrainingRun(Classifier classifier, int trainSize, int epochsRun, EarlyStopping earlyStopping,
+                               long trainingNanos, long busyNanos, long firstEpochNanos, Double speedup) {}
+
+    /** Confusion counts of a classifier on a labelled set, with predictions thresholded at 0.5. */
+    private record Evaluation(int correct, int total, int totalSpam, int correctSpam, int totalNotSpam, int correctNotSpam) {
+
+        double accuracy() {
+            return (double) correct / total;
+        }
+
+        double spamDetectionRate() {
+            return totalSpam > 0 ? (double) correctSpam / totalSpam : 0;
+        }
+
+        double nonSpamDetectionRate() {
+            return totalNotSpam > 0 ? (double) correctNotSpam / totalNotSpam : 0;
+        }
+    }
+
+    /**
+     * Trains a new classifier on {@code sparseTrain}, holding out its tail as a validation split when the
+     * request asks for early stopping. Records every 5th epoch's average loss in {@code epochLosses}.
+     *
+     * @param threads Training threads; above 1, epochs run on a {@link ParallelTrainer}
+     * @param profiler Receives the time of every phase, and its JFR events at the end of every epoch; may be null.
+     *                 Parallel epochs are timed as a whole.
+     * @throws CancellationException Once {@code listener} asks to stop
+     */
+    private static TrainingRun train(TrainingRequest request, TrainingOptions options, int featureCount,
+                                     SparseVector[] sparseTrain, int[] yTrain, int threads, TrainingListener listener,
+                                     List<TrainingResponse.EpochLoss> epochLosses, TrainingProfiler profiler) {
+        long time = System.nanoTime();
+
+        // Hold out the tail of the (already shuffled) training set for early stopping
+        SparseVector[] sparseValidation = null;
+        int[] yValidation = null;
+        int validationSize = (int) (yTrain.length * request.getValidationFraction());
+        if (validationSize > 0) {
+            int kept = yTrain.length - validationSize;
+            sparseValidation = Arrays.copyOfRange(sparseTrain, kept, sparseTrain.length);
+            yValidation = Arrays.copyOfRange(yTrain, kept, yTrain.length);
+            sparseTrain = Arrays.copyOf(sparseTrain, kept);
+            yTrain = Arrays.copyOf(yTrain, kept);
+            if (profiler != null) {
+                profiler.lap(TrainingProfiler.Phase.SPLIT, time);
+            }
+        }
+        int trainSize = yTrain.length;
+
+        // Initialize classifier with specified architecture; predictions keep using the previous model meanwhile
+        Classifier classifier = new Classifier(featureCount, request.getHiddenSizes(),
+                request.getLearningRate(), options.activationFunction());
+
+        if (options.optimizer() != null) {
+            classifier.setOptimizer(Optimizer.create(options.optimizer(), classifier,
+                    request.getMomentum(), request.getBeta1(), request.getBeta2()));
+        }
+
+        // Mini-batch buffers are allocated once and reused for every batch; optimizers always go
+        // through the batch path, with batches of one for per-sample training
+        int batchSize = Math.max(1, request.getBatchSize());
+        boolean batched = batchSize > 1 || options.optimizer() != null;
+        BatchBuffers batchBuffers = batched ? classifier.newBatchBuffers(batchSize) : null;
+        Gradients gradients = batched ? classifier.newGradients() : null;
+        ParallelTrainer parallelTrainer = threads > 1
+                ? new ParallelTrainer(classifier, options.parallelMode(), threads, request.getBatchSize())
+                : null;
+        if (parallelTrainer == null) {
+            classifier.setProfiler(profiler);
+        }
+
+        int[] trainOrder = new int[trainSize];
+        for (int i = 0; i < trainSize; i++) {
+            trainOrder[i] = i;
+        }
+        Random shuffleRandom = new Random();
+        EarlyStopping earlyStopping = sparseValidation != null
+                ? new EarlyStopping(classifier, request.getPatience(), request.getMinDelta())
+                : null;
+        int validationInterval = Math.max(1, request.getValidationInterval());
+        int epochsRun = 0;
+        long firstEpochNanos = 0;
+        long parallelNanos = 0;
+        long trainingStart = System.nanoTime();
+
+        // Train the model, tracking loss per epoch
+        try {
+            for (int epoch = 0; epoch < request.getEpochs(); epoch++) {
+                checkCancelled(listener);
+                double totalLoss = 0.0;
+                classifier.setLearningRate(options.schedule().rate(request.getLearningRate(), epoch, request.getEpochs(),
+                        request.getLearningRateDecay(), request.getLearningRateStepSize()));
+
+                // Shuffle training data for each epoch
+                time = System.nanoTime();
+                shuffle(trainOrder, shuffleRandom);
+                if (profiler != null) {
+                    time = profiler.lap(TrainingProfiler.Phase.SHUFFLE, time);
+                    profiler.addSamples(TrainingProfiler.Phase.SHUFFLE, trainSize);
+                }
+
+                long epochStart = System.nanoTime();
+                if (parallelTrainer != null) {
+                    // Shard the epoch across the worker pool; loss is measured before each update. The first
+                    // epoch runs on one worker instead, timing the serial baseline of the speedup
+                    totalLoss = epoch == 0
+                            ? parallelTrainer.runSerialEpoch(sparseTrain, yTrain, trainOrder)
+                            : parallelTrainer.runEpoch(sparseTrain, yTrain, trainOrder);
+                    if (epoch > 0) {
+                        parallelNanos += System.nanoTime() - epochStart;
+                    }
+                    if (profiler != null) {
+                        profiler.lap(TrainingProfiler.Phase.PARALLEL, time);
+                        profiler.addSamples(TrainingProfiler.Phase.PARALLEL, trainSize);
+                    }
+                } else if (batched) {
+                    // One averaged update per mini-batch; loss is measured by the batch forward pass
+                    for (int start = 0; start < trainSize; start += batchSize) {
+                        checkCancelled(listener);
+                        int end = Math.min(start + batchSize, trainSize);
+                        totalLoss += classifier.trainBatch(sparseTrain, yTrain, trainOrder, start, end,
+                                batchBuffers, gradients);
+                    }
+                } else {
+                    // Train on each sample; loss is measured by the forward pass before each update
+                    for (int idx : trainOrder) {
+                        totalLoss += classifier.trainSample(sparseTrain[idx], yTrain[idx]);
+                    }
+                }
+
+                if (epoch == 0) {
+                    firstEpochNanos = System.nanoTime() - epochStart;
+                }
+
+                // Record average loss for every 5th epoch or the last epoch
+                double avgLoss = totalLoss / trainSize;
+                epochsRun = epoch + 1;
+                listener.onEpoch(epoch, avgLoss);
+                boolean stop = false;
+                if (earlyStopping != null
+                        && (epoch % validationInterval == validationInterval - 1 || epochsRun == request.getEpochs())) {
+                    time = System.nanoTime();
+                    stop = earlyStopping.update(epoch,
+                            EarlyStopping.meanSquaredError(classifier, sparseValidation, yValidation));
+                    if (profiler != null) {
+                        profiler.lap(TrainingProfiler.Phase.VALIDATION, time);
+                        profiler.addSamples(TrainingProfiler.Phase.VALIDATION, yValidation.length);
+                    }
+                }
+                if (profiler != null) {
+                    profiler.endEpoch(epoch);
+                }
+                if (epoch % 5 == 0 || epochsRun == request.getEpochs() || stop) {
+                    epochLosses.add(new TrainingResponse.EpochLoss(epoch, avgLoss));
+                }
+                if (stop) {
+                    break;
+                }
+            }
+        } finally {
+            if (parallelTrainer != null) {
+                parallelTrainer.close();
+            }
+            // The trained model keeps the requested rate and drops the optimizer state and profiler
+            classifier.setLearningRate(request.getLearningRate());
+            classifier.setOptimizer(null);
+            classifier.setProfiler(null);
+        }
+
+        // Keep the weights that did best on the validation set, not those of the last epoch
+        if (earlyStopping != null) {
+            earlyStopping.restoreBest();
+        }
+
+        long trainingNanos = System.nanoTime() - trainingStart;
+        long busyNanos = parallelTrainer != null ? parallelTrainer.getBusyNanos() : trainingNanos;
+        Double speedup = 1.0;
+        if (parallelTrainer != null) {
+            speedup = epochsRun > 1 && parallelNanos > 0
+                    ? (double) firstEpochNanos * (epochsRun - 1) / parallelNanos
+                    : null;
+        }
+        return new TrainingRun(classifier, trainSize, epochsRun, earlyStopping, trainingNanos, busyNanos,
+                firstEpochNanos, speedup);
+    }
+
+    private static Evaluation evaluate(Classifier classifier, SparseVector[] features, int[] labels,
+                                       TrainingProfiler profiler) {
+        long start = System.nanoTime();
+        int correct = 0;
+        int totalSpam = 0;
+        int correctSpam = 0;
+        int totalNotSpam = 0;
+        int correctNotSpam = 0;
+
+        for (int i = 0; i < labels.length; i++) {
+            double prediction = classifier.predict(features[i]);
+            int predictedClass = prediction > 0.5 ? 1 : 0;
+
+            if (predictedClass == labels[i]) {
+                correct++;
+            }
+
+            if (labels[i] == 1) {
+                totalSpam++;
+                if (predictedClass == 1) correctSpam++;
+            } else {
+                totalNotSpam++;
+                if (predictedClass == 0) correctNotSpam++;
+            }
+        }
+        if (profiler != null) {
+            profiler.lap(TrainingProfiler.Phase.EVALUATION, start);
+            profiler.addSamples(TrainingProfiler.Phase.EVALUATION, labels.length);
+        }
+        return new Evaluation(correct, labels.length, totalSpam, correctSpam, totalNotSpam, correctNotSpam);
+    }
+
+    /**
+     * k-fold cross-validation: trains one model per fold on its own thread, all over views of the same
+     * read-only feature matrix, and reports the mean and sample standard deviation of the test rates.
+     * The current model is left as is. Only the first fold reports its epochs to {@code listener}; every
+     * fold stops once it asks to, or once another fold has failed. Likewise only the first fold is profiled.
+     * The other folds start once the first one has finished its first epoch, which is thus timed alone as
+     * the serial baseline of the speedup.
+     */
+    private TrainingResponse crossValidate(TrainingRequest request, TrainingOptions options, LabeledDataset dataset,
+                                           TrainingListener listener, TrainingResponse response,
+                                           List<TrainingResponse.EpochLoss> epochLosses, TrainingProfiler profiler) {
+        int folds = request.getFolds();
+        long splitStart = System.nanoTime();
+        LabeledDataset.Split[] splits = dataset.folds(folds, SPLIT_SEED);
+        if (profiler != null) {
+            profiler.lap(TrainingProfiler.Phase.SPLIT, splitStart);
+            profiler.addSamples(TrainingProfiler.Phase.SPLIT, dataset.size());
+        }
+        int workers = Math.min(folds, Runtime.getRuntime().availableProcessors());
+        AtomicBoolean aborted = new AtomicBoolean();
+        CountDownLatch baselineTimed = new CountDownLatch(1);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "cross-validation-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        List<Future<TrainingRun>> runs = new ArrayList<>(folds);
+        Evaluation[] evaluations = new Evaluation[folds];
+        try {
+            for (int f = 0; f < folds; f++) {
+                int fold = f;
+                TrainingListener foldListener = new TrainingListener() {
+                    @Override
+                    public void onEpoch(int epoch, double loss) {
+                        if (fold == 0) {
+                            baselineTimed.countDown();
+                            listener.onEpoch(epoch, loss);
+                        }
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return aborted.get() || listener.isCancelled();
+                    }
+                };
+                runs.add(executor.submit(() -> {
+                    try {
+                        if (fold > 0) {
+                            baselineTimed.await();
+                        }
+                        LabeledDataset.Split split = splits[fold];
+                        TrainingProfiler foldProfiler = fold == 0 ? profiler : null;
+                        TrainingRun run = train(request, options, dataset.featureCount(), split.trainFeatures(),
+                                split.trainLabels(), 1, foldListener, fold == 0 ? epochLosses : new ArrayList<>(),
+                                foldProfiler);
+                        evaluations[fold] = evaluate(run.classifier(), split.testFeatures(), split.testLabels(),
+                                foldProfiler);
+                        if (foldProfiler != null) {
+                            foldProfiler.endEpoch(-1);
+                        }
+                        return run;
+                    } catch (RuntimeException e) {
+                        aborted.set(true);
+                        throw e;
+                    } finally {
+                        if (fold == 0) {
+                            baselineTimed.countDown();
+                        }
+                    }
+                }));
+            }
+
+            // Wait for every fold; a real failure wins over the cancellations it caused in the other folds
+            RuntimeException failure = null;
+            for (Future<TrainingRun> run : runs) {
+                try {
+                    run.get();
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+                            ? runtime : new IllegalStateException(e.getCause());
+                    if (failure == null || failure instanceof CancellationException) {
+                        failure = cause;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            aborted.set(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Training interrupted");
+        } finally {
+            executor.shutdown();
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        double[] accuracy = new double[folds];
+        double[] spamRate = new double[folds];
+        double[] nonSpamRate = new double[folds];
+        long busyNanos = 0;
+        long trainSize = 0;
+        long testSize = 0;
+        int epochsRun = 0;
+        long totalEpochs = 0;
+        for (int f = 0; f < folds; f++) {
+            TrainingRun run = runs.get(f).resultNow();
+            accuracy[f] = evaluations[f].accuracy();
+            spamRate[f] = evaluations[f].spamDetectionRate();
+            nonSpamRate[f] = evaluations[f].nonSpamDetectionRate();
+            busyNanos += run.busyNanos();
+            trainSize += run.trainSize();
+            testSize += evaluations[f].total();
+            epochsRun = Math.max(epochsRun, run.epochsRun());
+            totalEpochs += run.epochsRun();
+        }
+
+        TrainingResponse.TrainingMetrics metrics = new TrainingResponse.TrainingMetrics();
+        metrics.setTotalEmails(dataset.size());
+        metrics.setSpamEmails(dataset.positiveCount());
+        metrics.setNonSpamEmails(dataset.size() - dataset.positiveCount());
+        metrics.setFeatureDimensions(dataset.featureCount());
+        metrics.setTrainSize((int) Math.round((double) trainSize / folds));
+        metrics.setTestSize((int) Math.round((double) testSize / folds));
+        metrics.setAccuracy(mean(accuracy));
+        metrics.setSpamDetectionRate(mean(spamRate));
+        metrics.setNonSpamDetectionRate(mean(nonSpamRate));
+        metrics.setFolds(folds);
+        metrics.setAccuracyStdDev(standardDeviation(accuracy));
+        metrics.setSpamDetectionRateStdDev(standardDeviation(spamRate));
+        metrics.setNonSpamDetectionRateStdDev(standardDeviation(nonSpamRate));
+        metrics.setFoldAccuracies(accuracy);
+        metrics.setHiddenLayerSizes(request.getHiddenSizes());
+        metrics.setNumHiddenLayers(request.getHiddenSizes().length);
+        metrics.setActivationFunction(request.getActivationFunction());
+
+        response.setEpochsRun(epochsRun);
+        response.setStoppedEarly(epochsRun < request.getEpochs());
+        response.setTrainingTimeMs(wallNanos / 1_000_000);
+        response.setThreads(workers);
+        response.setParallelUtilization(wallNanos > 0 ? (double) busyNanos / wallNanos : 1.0);
+        // Time every fold's epochs would take one after another at the first epoch's pace, over the time taken
+        long firstEpochNanos = runs.get(0).resultNow().firstEpochNanos();
+        response.setSpeedup(wallNanos > 0 && firstEpochNanos > 0
+                ? (double) firstEpochNanos * totalEpochs / wallNanos
+                : null);
+        response.setStatus("success");
+        response.setMessage(String.format("Cross-validated %d folds with %d hidden layers using %s activation; "
+                        + "the current model is unchanged",
+                folds, request.getHiddenSizes().length, request.getActivationFunction()));
+        response.setMetrics(metrics);
+        response.setEpochLosses(epochLosses);
+        if (request.isProfile()) {
+            response.setProfile(profiler.report());
+        }
+        return response;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double standardDeviation(double[] values) {
+        double mean = mean(values);
+        double squares = 0.0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / (values.length - 1));
+    }
+
     /**
      * Predicts whether an email is spam based on its features.
      *
@@ -260,25 +813,128 @@ public class ClassifierService {
      *         spam classification, confidence, and model information.
      */
     public Map<String, Object> predictEmail(double[] features) {
-        Map<String, Object> result = new HashMap<>();
+        return predictEmail(SparseVector.fromDense(features));
+    }
 
-        // Check if a trained model exists
-        if (currentClassifier == null) {
+    /**
+     * Predicts whether an email is spam from a sparse feature vector.
+     *
+     * @param features The sparse feature vector of the email.
+     * @return A map containing the prediction result, as for {@link #predictEmail(double[])}.
+     */
+    public Map<String, Object> predictEmail(SparseVector features) {
+        // Check if a trained model exists; the snapshot is read once so every step below uses the same model
+        long start = System.nanoTime();
+        ModelSnapshot snapshot = currentModel.get();
+        metrics.recordLookup(ClassifierMetrics.ModelKind.TRAINED, System.nanoTime() - start);
+        if (snapshot == null) {
+            Map<String, Object> result = new HashMap<>();
             result.put("error", "No trained model available");
             return result;
         }
+        return predictSingle(snapshot.classifier(), features, "Network", ClassifierMetrics.ModelKind.TRAINED);
+    }
+
+    public Map<String, Object> predictPretrainedEmail(double[] features) {
+        return predictPretrainedEmail(SparseVector.fromDense(features));
+    }
+
+    /**
+     * Predicts whether an email is spam with the pretrained model, from a sparse feature vector.
+     *
+     * @param features The sparse feature vector of the email.
+     * @return A map containing the prediction result, or an error if no pretrained model exists.
+     */
+    public Map<String, Object> predictPretrainedEmail(SparseVector features) {
+        long start = System.nanoTime();
+        Optional<PretrainedModelCache.CachedModel> pretrainedModelOpt = pretrainedModelCache.get();
+        metrics.recordLookup(ClassifierMetrics.ModelKind.PRETRAINED, System.nanoTime() - start);
+        if (pretrainedModelOpt.isEmpty()) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("error", "No pretrained model available");
+            return result;
+        }
+        return predictSingle(pretrainedModelOpt.get().classifier(), features, "Pretrained Network",
+                ClassifierMetrics.ModelKind.PRETRAINED);
+    }
+
+    /**
+     * Predicts whether an email is spam with a registered model.
+     *
+     * @param name     The registered model name.
+     * @param revision The model version, or null for the latest one.
+     * @param features The sparse feature vector of the email.
+     * @return A map containing the prediction result, or an error if the model does not exist.
+     */
+    public Map<String, Object> predictRegisteredEmail(String name, Integer revision, SparseVector features) {
+        return withRegisteredModel(name, revision,
+                model -> predictSingle(model.classifier(), features, "Model " + model.name() + " v" + model.revision(),
+                        ClassifierMetrics.ModelKind.REGISTERED));
+    }
+
+    /**
+     * Predicts many emails with a registered model in one batched forward pass.
+     *
+     * @param name     The registered model name.
+     * @param revision The model version, or null for the latest one.
+     * @param features The sparse feature vectors of the emails.
+     * @return A map with one prediction result per email under "predictions", in input order.
+     */
+    public Map<String, Object> predictRegisteredEmails(String name, Integer revision, SparseVector[] features) {
+        return withRegisteredModel(name, revision,
+                model -> predictBatch(model.classifier(), features, "Model " + model.name() + " v" + model.revision(),
+                        ClassifierMetrics.ModelKind.REGISTERED));
+    }
+
+    private Map<String, Object> withRegisteredModel(String name, Integer revision,
+                                                    Function<ModelRegistry.ResolvedModel, Map<String, Object>> predict) {
+        Map<String, Object> result = new HashMap<>();
+        Optional<ModelRegistry.ResolvedModel> model;
+        long start = System.nanoTime();
+        try {
+            model = modelRegistry.find(name, revision);
+        } catch (IllegalArgumentException e) {
+            result.put("error", e.getMessage());
+            return result;
+        } finally {
+            metrics.recordLookup(ClassifierMetrics.ModelKind.REGISTERED, System.nanoTime() - start);
+        }
+        if (model.isEmpty()) {
+            result.put("error", revision == null
+                    ? "No model named " + name
+                    : "No version " + revision + " of model " + name);
+            return result;
+        }
+        result = predict.apply(model.get());
+        result.put("model", name);
+        result.put("version", model.get().revision());
+        return result;
+    }
 
+    private Map<String, Object> predictSingle(Classifier classifier, SparseVector features, String networkName,
+                                              ClassifierMetrics.ModelKind kind) {
+        Map<String, Object> result = new HashMap<>();
         try {
             // Validate feature vector size
-            if (features.length != currentClassifier.getInputSize()) {
+            if (features.dimension() != classifier.getInputSize()) {
                 result.put("error", String.format("Feature vector size mismatch. Expected %d, got %d",
-                        currentClassifier.getInputSize(), features.length));
+                        classifier.getInputSize(), features.dimension()));
                 return result;
             }
 
-            // Make prediction
-            double prediction = currentClassifier.predict(features);
+            // Make prediction, unless the same features were scored by this model recently
+            PredictionCache cache = predictionCaches.get(kind);
+            double prediction = cache != null ? cache.get(classifier, features) : Double.NaN;
+            if (Double.isNaN(prediction)) {
+                long start = System.nanoTime();
+                prediction = classifier.predict(features);
+                metrics.recordForwardPass(kind, false, System.nanoTime() - start);
+                if (cache != null) {
+                    cache.put(classifier, features, prediction);
+                }
+            }
             boolean isSpam = prediction > 0.5;
+            metrics.countVerdicts(kind, isSpam ? 1 : 0, isSpam ? 0 : 1);
             double confidence = isSpam ? prediction : (1 - prediction);
 
             // Populate result
@@ -286,9 +942,8 @@ public class ClassifierService {
             result.put("isSpam", isSpam);
             result.put("classification", isSpam ? "SPAM" : "NOT SPAM");
             result.put("confidence", confidence);
-            result.put("modelInfo", String.format("Network: %d layers, %s activation",
-                    currentClassifier.getNumHiddenLayers(),
-                    currentClassifier.getActivationFunction()));
+            result.put("modelInfo", String.format("%s: %d layers, %s activation", networkName,
+                    classifier.getNumHiddenLayers(), classifier.getActivationFunction()));
 
         } catch (Exception e) {
             result.put("error", "Prediction failed: " + e.getMessage());
@@ -297,36 +952,77 @@ public class ClassifierService {
         return result;
     }
 
+    /**
+     * Predicts many emails with the current model in one batched forward pass.
+     *
+     * @param features The sparse feature vectors of the emails.
+     * @return A map with one prediction result per email under "predictions", in input order.
+     */
+    public Map<String, Object> predictEmails(SparseVector[] features) {
+        long start = System.nanoTime();
+        ModelSnapshot snapshot = currentModel.get();
+        metrics.recordLookup(ClassifierMetrics.ModelKind.TRAINED, System.nanoTime() - start);
+        if (snapshot == null) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("error", "No trained model available");
+            return result;
+        }
+        return predictBatch(snapshot.classifier(), features, "Network", ClassifierMetrics.ModelKind.TRAINED);
+    }
 
-    public Map<String, Object> predictPretrainedEmail(double[] features) {
-        Map<String, Object> result = new HashMap<>();
-        Optional<PretrainedModel> pretrainedModelOpt = pretrainedModelRepository.findById("pretrained_model");
+    /**
+     * Predicts many emails with the pretrained model in one batched forward pass.
+     *
+     * @param features The sparse feature vectors of the emails.
+     * @return A map with one prediction result per email under "predictions", in input order.
+     */
+    public Map<String, Object> predictPretrainedEmails(SparseVector[] features) {
+        long start = System.nanoTime();
+        Optional<PretrainedModelCache.CachedModel> pretrainedModelOpt = pretrainedModelCache.get();
+        metrics.recordLookup(ClassifierMetrics.ModelKind.PRETRAINED, System.nanoTime() - start);
         if (pretrainedModelOpt.isEmpty()) {
+            Map<String, Object> result = new HashMap<>();
             result.put("error", "No pretrained model available");
             return result;
         }
+        return predictBatch(pretrainedModelOpt.get().classifier(), features, "Pretrained Network",
+                ClassifierMetrics.ModelKind.PRETRAINED);
+    }
 
-        PretrainedModel pretrainedModel = pretrainedModelOpt.get();
-        Classifier pretrainedClassifier = pretrainedModel.toClassifier();
-
+    private Map<String, Object> predictBatch(Classifier classifier, SparseVector[] features, String networkName,
+                                             ClassifierMetrics.ModelKind kind) {
+        Map<String, Object> result = new HashMap<>();
         try {
-            if (features.length != pretrainedClassifier.getInputSize()) {
-                result.put("error", String.format("Feature vector size mismatch. Expected %d, got %d",
-                        pretrainedClassifier.getInputSize(), features.length));
-                return result;
+            for (int i = 0; i < features.length; i++) {
+                if (features[i].dimension() != classifier.getInputSize()) {
+                    result.put("error", String.format("Feature vector size mismatch for email %d. Expected %d, got %d",
+                            i, classifier.getInputSize(), features[i].dimension()));
+                    return result;
+                }
             }
 
-            double prediction = pretrainedClassifier.predict(features);
-            boolean isSpam = prediction > 0.5;
-            double confidence = isSpam ? prediction : (1 - prediction);
+            double[] predictions = predictUncached(classifier, features, kind);
+            List<Map<String, Object>> items = new ArrayList<>(predictions.length);
+            int spamCount = 0;
+            for (double prediction : predictions) {
+                boolean isSpam = prediction > 0.5;
+                if (isSpam) {
+                    spamCount++;
+                }
+                Map<String, Object> item = new HashMap<>();
+                item.put("prediction", prediction);
+                item.put("isSpam", isSpam);
+                item.put("classification", isSpam ? "SPAM" : "NOT SPAM");
+                item.put("confidence", isSpam ? prediction : (1 - prediction));
+                items.add(item);
+            }
 
-            result.put("prediction", prediction);
-            result.put("isSpam", isSpam);
-            result.put("classification", isSpam ? "SPAM" : "NOT SPAM");
-            result.put("confidence", confidence);
-            result.put("modelInfo", String.format("Pretrained Network: %d layers, %s activation",
-                    pretrainedClassifier.getNumHiddenLayers(),
-                    pretrainedClassifier.getActivationFunction()));
+            metrics.countVerdicts(kind, spamCount, predictions.length - spamCount);
+
+            result.put("predictions", items);
+            result.put("count", predictions.length);
+            result.put("modelInfo", String.format("%s: %d layers, %s activation", networkName,
+                    classifier.getNumHiddenLayers(), classifier.getActivationFunction()));
 
         } catch (Exception e) {
             result.put("error", "Prediction failed: " + e.getMessage());
@@ -338,19 +1034,65 @@ public class ClassifierService {
 
 
 
+    // Batched forward pass over the emails the prediction cache does not know yet; scores in input order
+    private double[] predictUncached(Classifier classifier, SparseVector[] features, ClassifierMetrics.ModelKind kind) {
+        PredictionCache cache = predictionCaches.get(kind);
+        double[] predictions = new double[features.length];
+        int[] missing = new int[features.length];
+        int missCount = 0;
+        for (int i = 0; i < features.length; i++) {
+            predictions[i] = cache != null ? cache.get(classifier, features[i]) : Double.NaN;
+            if (Double.isNaN(predictions[i])) {
+                missing[missCount++] = i;
+            }
+        }
+        if (missCount == 0) {
+            return predictions;
+        }
+
+        SparseVector[] uncached = features;
+        if (missCount < features.length) {
+            uncached = new SparseVector[missCount];
+            for (int m = 0; m < missCount; m++) {
+                uncached[m] = features[missing[m]];
+            }
+        }
+        long start = System.nanoTime();
+        double[] scores = classifier.predictBatch(uncached);
+        metrics.recordForwardPass(kind, true, System.nanoTime() - start);
+        for (int m = 0; m < missCount; m++) {
+            predictions[missing[m]] = scores[m];
+            if (cache != null) {
+                cache.put(classifier, uncached[m], scores[m]);
+            }
+        }
+        return predictions;
+    }
+
+    /**
+     * The model to score with: the pretrained one, or the one from the last training run.
+     *
+     * @param pretrained Whether to use the pretrained model.
+     * @return The classifier, or empty if that model does not exist yet.
+     */
+    public Optional<Classifier> findClassifier(boolean pretrained) {
+        return pretrained
+                ? pretrainedModelCache.get().map(PretrainedModelCache.CachedModel::classifier)
+                : getCurrentModel().map(ModelSnapshot::classifier);
+    }
+
     /**
      * Retrieves the metrics from the last training session.
      *
      * @return The TrainingMetrics object containing details of the last training, or null if no training has occurred.
      */
     public TrainingResponse.TrainingMetrics getLastTrainingMetrics() {
-        return lastTrainingMetrics;
+        return getCurrentModel().map(ModelSnapshot::metrics).orElse(null);
     }
 
 
     public TrainingResponse.TrainingMetrics getPretrainedMetrics() {
-        Optional<PretrainedModel> pretrainedModelOpt = pretrainedModelRepository.findById("pretrained_model");
-        return pretrainedModelOpt.map(PretrainedModel::getMetrics).orElse(null);
+        return pretrainedModelCache.get().map(model -> model.document().getMetrics()).orElse(null);
     }
 
     /**
@@ -363,10 +1105,12 @@ public class ClassifierService {
         Map<String, Object> info = new HashMap<>();
 
         // Check if a trained model exists
-        if (currentClassifier == null) {
+        ModelSnapshot snapshot = currentModel.get();
+        if (snapshot == null) {
             info.put("error", "No trained model available");
             return info;
         }
+        Classifier currentClassifier = snapshot.classifier();
 
         // Populate model information
         info.put("inputSize", currentClassifier.getInputSize());
@@ -374,6 +1118,7 @@ public class ClassifierService {
         info.put("numHiddenLayers", currentClassifier.getNumHiddenLayers());
         info.put("activationFunction", currentClassifier.getActivationFunction().toString());
         info.put("learningRate", currentClassifier.getLearningRate());
+        info.put("version", snapshot.version());
 
         return info;
     }
@@ -381,81 +1126,57 @@ public class ClassifierService {
 
     public Map<String, Object> getPretrainedModelInfo() {
         Map<String, Object> info = new HashMap<>();
-        Optional<PretrainedModel> pretrainedModelOpt = pretrainedModelRepository.findById("pretrained_model");
+        Optional<PretrainedModelCache.CachedModel> pretrainedModelOpt = pretrainedModelCache.get();
         if (pretrainedModelOpt.isEmpty()) {
             info.put("error", "No pretrained model available");
             return info;
         }
 
-        PretrainedModel pretrainedModel = pretrainedModelOpt.get();
+        PretrainedModel pretrainedModel = pretrainedModelOpt.get().document();
         info.put("inputSize", pretrainedModel.getInputSize());
         info.put("hiddenLayerSizes", pretrainedModel.getHiddenSizes());
         info.put("numHiddenLayers", pretrainedModel.getHiddenSizes().length);
         info.put("activationFunction", pretrainedModel.getActivationFunction());
         info.put("learningRate", pretrainedModel.getLearningRate());
+        info.put("version", pretrainedModel.getVersion());
 
         return info;
     }
 
 
     public void savePretrainedModel() {
-        if (currentClassifier == null || lastTrainingMetrics == null) {
+        ModelSnapshot snapshot = currentModel.get();
+        if (snapshot == null || snapshot.metrics() == null) {
             throw new IllegalStateException("No trained model or metrics available to save");
         }
-        PretrainedModel pretrainedModel = new PretrainedModel(currentClassifier, lastTrainingMetrics);
-        pretrainedModelRepository.save(pretrainedModel);
+        pretrainedModelCache.save(snapshot.classifier(), snapshot.metrics());
     }
 
     /**
-     * Loads the email dataset from a CSV file.
+     * Saves the last trained model as the next version of a registered model.
      *
-     * @return A list of string arrays, where each array represents a row in the CSV file.
-     * @throws Exception If an error occurs while reading the file.
+     * @param name The registered model name.
+     * @return The name, version and metadata of the saved model.
+     * @throws IllegalStateException if no model has been trained yet
      */
-    private List<String[]> loadDataset() throws Exception {
-        List<String[]> dataset = new ArrayList<>();
-        String datasetPath = "src/main/resources/dataset/emails.csv";
-
-        try (BufferedReader br = new BufferedReader(new FileReader(datasetPath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                // Parse CSV line, handling quoted fields
-                String[] row = parseCsvLine(line);
-                dataset.add(row);
-            }
+    public Map<String, Object> registerCurrentModel(String name) {
+        ModelSnapshot snapshot = currentModel.get();
+        if (snapshot == null || snapshot.metrics() == null) {
+            throw new IllegalStateException("No trained model or metrics available to save");
         }
-
-        return dataset;
+        return ModelRegistry.describe(modelRegistry.register(name, snapshot.classifier(), snapshot.metrics()));
     }
 
     /**
-     * Parses a CSV line, handling quoted fields that may contain commas.
-     *
-     * @param line The CSV line to parse.
-     * @return An array of strings representing the fields in the line.
+     * Shuffles an index permutation in place (Fisher-Yates).
      */
-    private String[] parseCsvLine(String line) {
-        List<String> result = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder field = new StringBuilder();
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                result.add(field.toString().trim());
-                field = new StringBuilder();
-            } else {
-                field.append(c);
-            }
+    private static void shuffle(int[] order, Random random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
         }
-
-        // Add the last field
-        result.add(field.toString().trim());
-        return result.toArray(new String[0]);
-
     }
 
     private static String features = "the,to,ect,and,for,of,a,you,hou,in,on,is,this,enron,i,be,that,will,have,with,your,at,we,s,are,it,by,com,as,from,gas,or,not,me,deal,if,meter,hpl,please,re,e,any,our,corp,can,d,all,has,was,know,need,an,forwarded,new,t,may,up,j,mmbtu,should,do,am,get,out,see,no,there,price,daren,but,been,company,l,these,let,so,would,m,into,xls,farmer,attached,us,information,they,message,day,time,my,one,what,only,http,th,volume,mail,contract,which,month,more,robert,sitara,about,texas,nom,energy,pec,questions,www,deals,volumes,pm,ena,now,their,file,some,email,just,also,call,change,other,here,like,b,flow,net,following,p,production,when,over,back,want,original,them,below,o,ticket,c,he,could,make,inc,report,march,contact,were,days,list,nomination,system,who,april,number,sale,don,its,first,thanks,business,help,per,through,july,forward,font,free,daily,use,order,today,r,had,fw,set,plant,statements,go,gary,oil,line,sales,w,effective,well,tenaska,take,june,x,within,nbsp,she,how,north,america,being,under,next,week,than,january,last,two,service,purchase,name,less,height,off,agreement,k,work,tap,group,year,based,transport,after,think,made,each,available,changes,due,f,h,services,smith,send,management,stock,sent,ll,co,office,needs,cotten,did,actuals,u,money,before,looking,then,pills,online,request,look,desk,ami,his,same,george,chokshi,point,delivery,friday,does,size,august,product,pat,width,iv,noms,address,above,sure,give,october,future,find,market,n,mary,vance,melissa,said,internet,still,account,those,down,link,hsc,rate,people,pipeline,best,actual,very,end,home,houston,tu,high,her,team,products,many,currently,spot,receive,good,such,going,process,feb,monday,info,david,lloyd,again,both,click,subject,jackie,december,total,na,lisa,ve,september,hours,until,resources,because,aol,february,where,g,investment,issue,duke,since,pay,show,way,global,computron,further,most,place,offer,natural,activity,eastrans,graves,right,prices,date,john,utilities,november,clynes,jan,securities,meeting,susan,hplc,julie,able,received,align,term,id,revised,thursday,pg,fee,hplno,trading,additional,site,txu,data,wellhead,reply,taylor,news,unify,michael,provide,note,much,access,lannou,every,between,keep,tuesday,review,great,tom,put,done,long,save,section,must,v,part,nd,million,check,trade,bob,created,steve,prior,copy,continue,numbers,via,world,demand,hanks,contracts,phone,transaction,customer,possible,pefs,meyers,months,special,without,used,regarding,software,howard,support,buy,young,meters,thru,believe,gcs,cec,entered,control,dec,face,create,weissman,st,color,come,supply,brian,hplo,own,correct,customers,web,allocation,soon,using,development,mark,low,power,problem,once,however,tickets,border,performance,manager,rates,center,companies,risk,details,needed,international,field,even,someone,doc,fuel,lee,paid,while,start,index,include,nominations,act,pricing,scheduled,gathering,type,href,during,aimee,anything,feel,fuels,getting,advice,why,increase,path,sell,works,issues,three,enronxgate,camp,either,form,security,interest,financial,family,xp,plan,current,top,another,src,spreadsheet,allen,wednesday,read,him,working,wynne,add,deliveries,buyback,allocated,firm,james,marketing,tx,results,got,stocks,calpine,might,operations,position,logistics,fax,cost,party,zero,pops,old,pt,scheduling,flowed,dollars,update,gco,katy,including,follow,yahoo,already,suite,error,past,page,stop,changed,book,program,few,better,operating,equistar,move,cotton,aep,y,state,ees,rita,provided,employees,period,morning,cd,hotmail,entex,swing,real,exchange,tomorrow,lst,counterparty,parker,person,follows,valid,visit,little,professional,quality,confirm,something,megan,brenda,around,windows,im,storage,accounting,called,ranch,tax,problems,case,teco,fact,always,too,unsubscribe,amount,coastal,never,rodriguez,love,acton,shut,pipe,project,hope,limited,invoice,credit,full,survey,ray,carlos,anyone,wanted,yet,ic,scott,years,charlie,soft,notice,advise,addition,donald,lsk,wish,katherine,website,hplnl,schumack,prescription,cover,shares,cash,imbalance,united,handle,big,everyone,style,clear,producer,weekend,city,requested,stone,left,payment,mobil,shows,small,confirmed,technology,meet,extend,life,intended,sherlyn,schedule,else,letter,box,bill,richard,lamphier,complete,ever,release,newsletter,anita,clem,having,herod,beginning,papayoti,try,mike,enter,estimates,location,cut,question,things,personal,feedback,cialis,found,area,dow,terms,central,necessary,man,run,reason,third,midcon,charge,president,de,listed,meds,thomas,thought,capital,added,ask,weeks,investing,commercial,star,several,easy,view,cannot,extended,lauri,beaumont,union,times,open,cause,monthly,action,offers,industry,states,side,mailto,probably,neal,second,stephanie,download,flash,agree,mcf,transfer,doing,important,basis,different,final,koch,exxon,remove,microsoft,interested,application,sept,mg,write,lp,east,requirements,code,value,thank,together,exploration,mid,dfarmer,everything,receipt,thu,afternoon,late,enserch,coming,bank,response,tell,shipping,night,events,cynthia,lsp,close,legal,country,direct,expected,ces,corporation,options,really,voip,nominated,etc,latest,potential,priced,edward,valero,material,stack,victor,redeliveries,loss,remember,baumbach,option,private,longer,aware,included,drugs,public,reinhardt,version,hesse,discuss,related,asked,say,viagra,revision,bgcolor,kind,pro,completed,health,ready,plans,registered,regards,carthage,zone,fill,away,computer,systems,industrial,mentioned,told,therefore,growth,sold,track,reports,south,rd,jim,costs,image,expect,return,physical,el,browser,donna,stacey,begin,china,duty,approximately,showing,unit,jones,hard,verify,updated,eol,cs,orders,talk,trying,base,given,server,source,pathed,strong,bryan,directly,risks,whole,major,users,purchases,oo,karen,luong,level,required,delivered,portfolio,riley,ali,easttexas,poorman,bellamy,assistance,nothing,gif,thing,retail,didn,valley,department,cleburne,allow,gpgfin,answer,items,paste,avila,taken,mm,nguyen,ensure,reference,hall,later,lone,user,methanol,facility,network,spoke,though,tabs,taking,status,considered,purchased,says,yourself,paliourg,dy,jeff,businesses,fred,transportation,apache,morris,nov,ltd,brand,federal,statement,oasis,reflect,assets,lamadrid,general,bridge,ability,oct,play,enrononline,compliance,spam,availability,king,understanding,chance,quick,effort,points,reliantenergy,fixed,short,hill,cheryl,aepin,key,understand,valign,capacity,game,took,bring,guys,god,green,care,withers,property,hub,johnson,employee,wants,albrecht,meaning,expectations,mx,moved,cernosek,matter,devon,calls,worldwide,records,removed,lose,large,referenced,walker,iferc,enw,ponton,eileen,ship,upon,enerfin,jennifer,looks,staff,pc,target,waha,making,cp,impact,partner,immediately,shall,channel,takes,sat,others,hear,went,travel,listing,approved,processing,early,enough,sally,starting,distribution,tejas,transactions,stay,earl,superty,doesn,reserves,includes,choose,adobe,publisher,paso,cornhusker,training,markets,content,solution,shell,jpg,print,drive,pain,password,half,herrera,saturday,moopid,hotlist,balance,super,vacation,sex,happy,excess,existing,fund,stella,share,sign,wells,won,four,text,card,tisdale,fwd,appreciate,non,experience,savings,settlements,draft,couple,informed,biz,watch,plus,sun,expense,images,land,occur,flowing,mar,terry,darren,cheap,weight,dynegy,activities,become,mr,format,attention,entire,photoshop,williams,instructions,neon,janet,contains,ago,friends,against,boas,music,certain,liz,svcs,record,fast,dave,held,mind,ua,publication,differ,comments,fun,rest,instant,agent,communications,director,partners,investors,expedia,kevin,assist,safe,approval,allocate,black,none,intrastate,document,eric,hakemack,expired,lower,active,secure,cc,five,determine,press,colspan,missing,jill,discussion,relief,respect,specific,technologies,al,holmes,white,yesterday,medical,pinion,sorry,men,leave,pass,video,gomes,doctor,projects,limit,air,knle,pharmacy,confirmation,opportunity,involve,notify,gtc,class,ken,started,outage,confidential,room,blue,estimated,officer,reach,messages,database,words,prc,tracked,transition,light,national,hot,offering,gulf,provides,iit,demokritos,mckay,average,wide,heard,files,dan,billed,mccoy,rc,exactly,middle,select,bruce,louisiana,receiving,california,event,roll,mops,william,appear,perfect,html,features,join,greater,sunday,pick,featured,cdnow,prize,reveffo,olsen,expects,estimate,near,common,package,title,whether,bought,evergreen,difference,elizabeth,history,monitor,advised,result,sources,school,unaccounted,paragraph,turn,kimberly,increased,communication,members,concerns,uncertainties,associated,reduce,committed,wi,asap,goes,trader,waiting,canada,worth,representative,claim,ceo,london,discussions,php,brazos,trevino,calling,involved,la,gift,southern,groups,hour,tufco,previously,voice,normally,resolve,efforts,nor,recent,purchasing,county,ok,express,generic,according,respond,situation,hold,lot,interconnect,word,came,west,role,opportunities,corporate,remain,similar,readers,suggestions,subscribers,projections,lead,learn,resolved,agreed,sec,head,enjoy,img,rnd,responsible,outstanding,member,panenergy,american,cass,register,promotions,parties,winfree,selling,usage,appropriate,assignment,media,believes,require,submit,model,spinnaker,copano,facilities,opinion,factors,identified,beverly,ews,gdp,deliver,job,profile,across,neuweiler,suggest,girls,manage,usa,local,bad,greg,vs,fees,digital,cf,strangers,registration,delta,rolex,goliad,hesco,success,primary,quarter,course,chairman,petroleum,notes,medications,ei,instead,fine,lake,pre,force,seek,recipient,gain,placed,age,least,body,asking,discussed,hanson,emails,nominate,ext,known,ones,ed,assigned,htmlimg,means,present,various,invoices,gd,agency,along,located,reflects,solutions,ex,house,cds,br,owner,apr,sullivan,basin,linda,worked,car,seen,properties,booked,higher,store,est,revenue,wait,women,far,met,wholesale,range,kcs,recorded,brown,lots,match,input,grant,providing,huge,investor,kelly,apply,paths,handling,pipes,advantage,analysis,focus,draw,red,origination,connection,planning,wilson,golf,summary,item,bankruptcy,expenses,pgev,encina,beaty,memo,initial,thousand,mills,penis,friend,conversation,multiple,martin,names,bit,dth,talked,behalf,preliminary,button,herein,gisb,coupon,sa,oi,appears,door,texaco,csikos,arrangements,cpr,expires,popular,sending,research,conditions,gb,board,ca,applications,tried,paying,acquisition,reporting,normal,maintenance,resume,announced,attachment,buyer,objectives,prod,represent,sandi,hplnol,government,committee,running,tetco,discount,jo,holding,earlier,positions,happen,mailing,decided,recently,chris,xanax,valium,broadband,individual,station,td,financing,somehow,pena,critical,attend,kristen,inform,highly,hl,phillips,minutes,titles,affiliate,wife,lonestar,charlotte,quickly,paper,test,comes,mobile,internal,privacy,ideas,live,gotten,floor,benefit,percent,ms,dr,ebs,msn,gave,dallas,enterprise,rx,spring,ftar,ooking,hawkins,exclusive,selected,baxter,actually,single,shop,nominates,guarantee,minute,correctly,unique,bid,building,stated,accept,assumptions,centana,senior,pill,kinsey,sap,immediate,goals,category,mitchell,acceptance,termination,sweeney,facts,amazon,arrangement,josey,funds,among,accuracy,mean,rather,kim,egmnom,indicate,updates,extra,adjustment,accounts,lowest,gold,purposes,remaining,talking,entry,road,load,simply,europe,lindley,understood,logos,hi,speed,profit,notified,jackson,z,vols,serve,additionally,shipped,connor,fontfont,q,kept,dollar,jr,almost,fri,paul,documents,analyst,crude,cap,shopping,aug,clearance,schneider,ftworth,father,anticipated,resellers,congress,counterparties,epgt,buying,san,invest,cartwheel,brandywine,wrong,mtbe,split,submitted,hull,gra,children,leader,true,baseload,mb,letters,billion,rights,mtr,heidi,clean,historical,asset,foreign,gr,entity,developed,maybe,jeffrey,transmission,outside,lost,membership,invitation,ocean,legislation,hernandez,pep,payments,wallis,rev,kenneth,seaman,annual,guess,bammel,lines,guadalupe,zivley,exception,example,pathing,revisions,pipelines,equity,budget,wed,dealers,window,juno,claims,bottom,standard,alternative,merchant,braband,topica,telephone,reliant,speculative,yes,en,morgan,cable,edmondson,participate,usb,throughout,checked,myself,contents,fat,investments,six,build,giving,calendar,inherent,edition,darial,hr,trip,pull,moving,concern,proposed,rm,deer,enquiries,alt,tammy,front,reduction,evening,concerning,gets,effect,isn,haven,cowboy,sea,dvd,launch,minimum,changing,built,avoid,chief,stephen,chad,manual,finally,strategy,executive,thousands,conflict,resulting,policy,commission,stand,positive,quantity,programs,airmail,texoma,prepared,austin,matt,intent,uae,citibank,jaquet,hol,harris,min,hplr,advance,weather,terminated,whom,sheet,venturatos,cellpadding,hotel,leading,guaranteed,idea,announce,pleased,award,operational,prepare,schedulers,child,sum,quote,adjusted,warning,issued,ga,cross,detail,pertaining,tess,owe,crow,availabilities,griffin,christy,crosstex,eel,itoy,heart,licensed,overnight,cal,otherwise,luck,stretch,generation,broker,construed,except,traders,carry,column,approx,main,alert,charges,step,revenues,games,gottlob,looked,individuals,beck,stuff,welcome,port,glover,description,daniel,quantities,park,managing,town,seller,summer,tina,dates,eff,dudley,ferc,robin,charles,customerservice,zonedubai,emirates,aeor,clickathome,materia,island,vaughn,sexual,eiben,forms,delete,realize,tailgate,behind,villarreal,lon,benoit,simple,tech,ahead,double,ordering,se,miss,law,eb,post,outlook,equipment,leslie,reeves,org,tools,cold,adjustments,contained,saw,edit,deciding,finance,patti,listbot,river,kathryn,holiday,successful,unable,advisor,pool,bryce,outages,adjust,screen,otc,brent,helps,auto,foot,region,links,contain,knowledge,yvette,dial,pressure,detailed,indicated,charged,sites,makes,female,mcmills,cook,mazowita,meredith,allocations,meetings,particular,environment,drug,search,mailings,designed,rock,measurement,art,corrected,kids,benefits,tv,seems,husband,fix,grow,decision,wireless,mo,conference,interview,levels,copies,cindy,urgent,regular,payroll,shown,consumers,reliable,tr,indicating,coast,greif,severson,tri,vicodin,liquids,significant,intend,usd,pager,avails,spencer,ce,charset,verdana,fully,flynn,da,personnel,multi,closed,vice,administration,gmt,midstream,eye,speckels,studio,cilco,likely,managers,structure,sit,parent,preparation,mix,mmbtus,timing,happening,lottery,killing,acquire,mack,pcx,fares,internationa,notification,swift,identify,areas,separate,unless,producers,allows,pretty,waste,joanie,drop,taxes,premium,teams,choice,largest,addressed,dolphin,ngo,self,davis,htm,ad,graphics,hit,competitive,thus,incorrect,ti,acts,previous,edu,proven,electric,pictures,charlene,benedict,chevron,treatment,lesson,player,sds,wc,intraday,assurance,sdsnom,rebecca,quit,netco,intra,whatever,lyondell,reviewed,solicitation,filings,log,noon,locations,joe,completely,rivers,language,street,automatically,ft,powerful,specials,alone,fyi,properly,proper,explode,decrease,medication,desks,impacted,anywhere,completion,banking,consider,certificate,exercise,zeroed,websites,tonight,diligence,education,club,vegas,affordable,sports,predictions,billing,diamond,posted,prayer,actions,nomad,resuits,jason,purpose,deposit,entertainment,materially,blank,resolution,anderson,nat,rom,soma,organization,aquila,solid,affected,transco,spend,responsibilities,assume,header,accountant,functionality,meant,killed,analysts,rick,rolled,noted,discovered,offices,torch,often,york,joint,briley,competition,guide,intercompany,son,settlement,presently,cart,tim,entries,russ,valadez,rules,molly,apple,atleast,scheduler,pi,hector,dell,opm,hottlist,yap,gone,heal,llc,setting,reached,proposal,hundred,trust,official,table,mcgee,written,operation,cellspacing,laptop,feature,ram,victoria,larry,units,requests,continued,external,pack,couldn,lateral,strictly,resource,although,sr,commodity,pulled,protocol,bed,generated,redmond,girl,apparently,tool,reviews,released,movies,inside,shareholder,rr,compensation,beliefs,foresee,lease,rule,marta,chemical,hillary,hp,tongue,adonis,advises,master,eight,wasn,itself,documentation,xl,humble,elsa,pics,hughes,brokered,distribute,consultation,sheri,lists,cannon,treated,factor,putting,verified,releases,enhanced,controls,craig,worksheet,conversion,max,hrs,helpful,hand,producing,dl,developing,design,woman,understands,standards,promotion,sarco,hospital,ffffff,respective,richmond,conoco,driver,easily,sean,den,gateway,holdings,brad,college,gains,adult,dated,em,mcloughlin,anticipates,henderson,julia,negotiations,sofftwaares,garrick,comstock,trochta,imceanotes,ecom,larger,nommensen,coordinate,partnership,otcbb,announces,louis,dealer,reliance,season,agua,dulce,offshore,gathered,forever,function,happened,sample,easier,aim,pa,expensive,thinks,maximum,war,mining,drilling,owned,todd,advanced,provider,pending,providers,silver,cherry,hundreds,thoughts,addresses,beach,baby,requires,caused,variance,extension,carbide,anytime,adding,triple,dawn,martinez,entering,login,bretz,ls,writeoff,locker,wiil,block,blood,romeo,responsibility,brennan,btu,venture,connected,nascar,opinions,executed,cell,flag,doctors,invoiced,marlin,coffey,nice,amazing,ii,determined,handled,keeping,touch,upgrade,shipment,brought,forwarding,confidence,hesitate,seem,electronic,appreciated,deadline,franklin,heather,reasons,passed,safety,procedures,payback,networks,utility,count,africa,exact,creating,loading,processed,court,tier,sender,att,mailbox,glad,buddy,profiles,portion,protection,compressor,okay,oba,finding,heads,bar,turned,remote,illustrator,oem,noticed,mails,darron,nick,urbanek,jerry,barrett,ehronline,und,abdv,egm,couid,technoiogies,owns,improved,eat,moment,owners,develop,installed,videos,frank,hearing,inches,busy,ref,valuable,et,un,url,shawna,iso,capture,extremely,ya,causing,consent,anyway,round,discrepancies,cheapest,confidentiality,disclosure,prohibited,vol,correction,communicate,processes,spain,shareholders,supported,smoking,mine,biggest,erections,platform,miles,exciting,association,die,restricted,ma,income,goal,bane,collection,nathan,wind,piece,familiar,gore,experiencing,pico,mai,dewpoint,tessie,hair,bussell,diane,delivering,originally,accurate,began,seven,tracking,randall,gay,emerging,prescriptions,story,arial,florida,space,ownership,european,sutton,concerned,male,spent,agreements,industries,picture,filled,continues,death,choate,majeure,device,hence,ten,campaign,massive,eyes,requesting,lives,reminder,eliminate,copied,consemiu,died,sound,offered,expressed,anti,duplicate,steps,books,improve,implementation,gives,ac,peggy,proprietary,ways,advertisement,published,earnings,mortgage,consumer,ct,tape,fl,cia,organizational,agenda,rental,carriere,moshou,church,trouble,medium,aggressive,smart,zajac,ail,participants,gap,earthlink,wire,trades,messaging,ut,wil,richardson,blvd,glo,seneca,pubiisher,imited,isc,contacts,sleep,kyle,cooperation,possibly,leaving,motor,hopefully,tie,speak,mi,suggested,canadian,uses,connect,pvr,rich,places,auction,po,spacer,client,recommended,royalty,amended,default,living,regardless,human,bringing,focused,stores,variety,netherlands,leaders,bowen,salary,signed,penny,loan,desktop,chase,pleasure,compare,session,overall,stranger,length,planned,sp,darrel,raise,palestinian,expiration,serial,premiere,suzanne,reduced,players,applicable,impotence,buckley,wayne,hansen,indicative,sabrae,dating,winners,marshall,highest,ea,presentation,allowed,square,danny,gepl,hydrocarbon,alpine,christmas,muscle,souza,relating,begins,ecf,forth,answers,audit,approve,lunch,types,starts,difficult,le,lasts,series,till,edge,growing,covered,shipper,sometime,republic,filter,sooner,increasing,nelson,percentage,returned,pop,interface,kin,experienced,prime,merger,obtain,ryan,servers,attachments,achieve,effects,gov,examples,procedure,explore,caribbean,rally,amounts,comfort,attempt,greatly,amelia,engel,delay,fare,der,cove,filing,fletcher,leth,undervalued,cents,esther,hlavaty,reid,lls,troy,palmer,metals,las,carter,luis,migration,brief,hess,therein,ur,pond,joanne,community,tglo,eogi,ml,wysak,felipe,errors,affect,convenient,minimal,boost,incremental,decide,reserve,superior,kerr,willing,quite,wild,unlimited,sans,mother,computers,unfortunately,ordered,satisfaction,priority,traded,testing,portal,ward,lets,aren,knows,refer,shot,fda,tue,saying,cancel,forecast,cousino,bass,permanent,phones,technical,whose,objective,cards,distributed,learning,fire,drill,towards,forget,explosion,gloria,formula,redelivery,audio,visual,encoding,approach,doubt,staffing,excite,corel,tm,enronavailso,contacting,alland,heavy,economic,nigeria,milwaukee,phillip,curve,returns,padre,kathy,buttons,sir,vary,sounds,disclose,authority,flw,straight,worldnet,beemer,ooo,defs,thorough,officers,flight,prefer,awesome,macintosh,feet,constitutes,formosa,porn,armstrong,driscoll,watches,newsietter,twenty,tommy,fields,method,setup,allocating,initially,missed,clarification,especially,dorcheus,del,millions,insurance,pooling,trial,tennessee,ellis,direction,bold,catch,performing,accepted,matters,batch,continuing,winning,symbol,offsystem,decisions,produced,ended,greatest,degree,solmonson,imbalances,fall,fear,hate,fight,reallocated,debt,reform,australia,plain,prompt,remains,ifhsc,enhancements,connevey,jay,valued,lay,infrastructure,military,allowing,ff,dry";
@@ -464,25 +1185,59 @@ public class ClassifierService {
     // Predefined list of features (words) in the specified order
     private static final String[] FEATURES = features.split(",");
 
+    // Hash index from word to column, built once from FEATURES
+    private static final Vocabulary VOCABULARY = new Vocabulary(FEATURES);
+
+    /**
+     * Converts email text into word counts over the FEATURES vocabulary, tokenizing in a single
+     * case-insensitive pass.
+     *
+     * @param text The email text.
+     * @return A vector with one count per feature word.
+     */
     public double[] textToFeatureVector(String text) {
         // Initialize the feature vector with zeros
         double[] featureVector = new double[FEATURES.length];
 
-        // Convert text to lowercase for case-insensitive matching
-        text = text.toLowerCase();
-
-        // Split text into words (simple tokenization by spaces and punctuation)
-        String[] words = text.split("[\\s\\p{Punct}]+");
-
         // Count occurrences of each feature word
-        for (String word : words) {
-            for (int i = 0; i < FEATURES.length; i++) {
-                if (word.equals(FEATURES[i])) {
-                    featureVector[i]++;
-                }
-            }
-        }
+        VOCABULARY.count(text, featureVector);
 
         return featureVector;
     }
+
+    /**
+     * Converts email text into sparse word counts over the FEATURES vocabulary; only the words
+     * that occur are stored.
+     *
+     * @param text The email text.
+     * @return A sparse vector with one entry per distinct feature word found.
+     */
+    public SparseVector textToSparseFeatureVector(String text) {
+        long start = System.nanoTime();
+        SparseVector features = VOCABULARY.countSparse(text);
+        metrics.recordTokenization(false, System.nanoTime() - start);
+        return features;
+    }
+
+    /**
+     * The FEATURES vocabulary, for tools that featurize emails without a running application.
+     */
+    public static Vocabulary vocabulary() {
+        return VOCABULARY;
+    }
+
+    /**
+     * Converts many emails into sparse feature vectors, tokenizing them in parallel.
+     *
+     * @param texts The email texts; null entries are treated as empty.
+     * @return One sparse vector per email, in input order.
+     */
+    public SparseVector[] textsToSparseFeatureVectors(List<String> texts) {
+        long start = System.nanoTime();
+        SparseVector[] features = texts.parallelStream()
+                .map(text -> VOCABULARY.countSparse(text != null ? text : ""))
+                .toArray(SparseVector[]::new);
+        metrics.recordTokenization(true, System.nanoTime() - start);
+        return features;
+    }
 }
@@ -0,0 +1,371 @@
+package m2i.datamining_mlp.service;
+
+import jakarta.annotation.PreDestroy;
+import m2i.datamining_mlp.DTO.SearchRequest;
+import m2i.datamining_mlp.DTO.SearchResponse;
+import m2i.datamining_mlp.dataset.DatasetCache;
+import m2i.datamining_mlp.dataset.LabeledDataset;
+import m2i.datamining_mlp.model.BatchBuffers;
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.Gradients;
+import m2i.datamining_mlp.model.SparseVector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches architectures, activation functions and learning rates with successive halving.
+ * <p>
+ * Every candidate first trains for a small share of the epoch budget. After each round the candidates are
+ * ranked by validation loss and only the best 1 in {@code reductionFactor} continue, each round training
+ * {@code reductionFactor} times longer than the last, so the finalists reach the full {@code epochs}.
+ * Candidates in a round train concurrently on a shared worker pool, all reading the same parsed dataset.
+ * <p>
+ * Validation uses the last fifth of the training part of the usual train-test split; the test set stays
+ * unseen, so a model retrained with the winning settings can still be evaluated fairly.
+ */
+@Service
+public class HyperparameterSearchService {
+
+    private static final double VALIDATION_FRACTION = 0.2;
+    private static final int DEFAULT_REDUCTION_FACTOR = 3;
+
+    private final DatasetCache datasetCache;
+    private final int maxCandidates;
+    private final ExecutorService workers;
+    private final int workerCount;
+    // Runs the rounds of each search; bounded like training jobs so searches cannot pile up
+    private final ThreadPoolExecutor coordinator;
+
+    public HyperparameterSearchService(DatasetCache datasetCache,
+                                       @Value("${classifier.search.threads:0}") int threads,
+                                       @Value("${classifier.search.max-candidates:64}") int maxCandidates,
+                                       @Value("${classifier.search.queue-capacity:2}") int queueCapacity) {
+        this.datasetCache = datasetCache;
+        this.maxCandidates = maxCandidates;
+        this.workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger workerThreads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, task -> {
+            Thread thread = new Thread(task, "search-" + workerThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coordinator = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "search-coordinator");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Validates the search space and runs the search in the background.
+     * @return Completes with the leaderboard, or with status "error" for an invalid request
+     * @throws RejectedExecutionException if too many searches are already queued
+     */
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        List<Candidate> candidates;
+        try {
+            candidates = candidates(request);
+        } catch (IllegalArgumentException e) {
+            SearchResponse response = new SearchResponse();
+            response.setStatus("error");
+            response.setMessage(e.getMessage());
+            return CompletableFuture.completedFuture(response);
+        }
+        int reductionFactor = request.getReductionFactor() >= 2 ? request.getReductionFactor() : DEFAULT_REDUCTION_FACTOR;
+        return CompletableFuture.supplyAsync(
+                () -> run(candidates, request.getEpochs(), Math.max(1, request.getBatchSize()), reductionFactor),
+                coordinator);
+    }
+
+    private SearchResponse run(List<Candidate> candidates, int epochs, int batchSize, int reductionFactor) {
+        SearchResponse response = new SearchResponse();
+        long start = System.nanoTime();
+        try {
+            LabeledDataset.Split split = datasetCache.load(Path.of(ClassifierService.DATASET_PATH))
+                    .split(ClassifierService.TRAIN_FRACTION, ClassifierService.SPLIT_SEED);
+            int trainSize = split.trainLabels().length - (int) (split.trainLabels().length * VALIDATION_FRACTION);
+            SparseVector[] features = split.trainFeatures();
+            int[] labels = split.trainLabels();
+            SparseVector[] trainFeatures = Arrays.copyOfRange(features, 0, trainSize);
+            int[] trainLabels = Arrays.copyOfRange(labels, 0, trainSize);
+            SparseVector[] validationFeatures = Arrays.copyOfRange(features, trainSize, features.length);
+            int[] validationLabels = Arrays.copyOfRange(labels, trainSize, labels.length);
+            if (trainFeatures.length == 0 || validationFeatures.length == 0) {
+                throw new IllegalArgumentException("Dataset too small to hold out a validation set");
+            }
+
+            List<Candidate> alive = new ArrayList<>(candidates);
+            int rounds = roundCount(candidates.size(), reductionFactor);
+            for (int round = 0; round < rounds; round++) {
+                // Budgets grow by the reduction factor each round; the last round trains to the full epochs
+                int budget = (int) Math.max(1, Math.round(epochs / Math.pow(reductionFactor, rounds - 1 - round)));
+                List<Callable<Void>> tasks = new ArrayList<>(alive.size());
+                for (Candidate candidate : alive) {
+                    tasks.add(() -> {
+                        candidate.trainTo(budget, trainFeatures, trainLabels, batchSize);
+                        candidate.validate(validationFeatures, validationLabels);
+                        return null;
+                    });
+                }
+                for (Future<Void> done : workers.invokeAll(tasks)) {
+                    done.get();
+                }
+                alive.sort(Comparator.comparingDouble(candidate -> candidate.validationLoss));
+                if (round < rounds - 1) {
+                    int survivors = (alive.size() + reductionFactor - 1) / reductionFactor;
+                    // Cut candidates stay on the leaderboard, but their networks are no longer needed
+                    for (Candidate cut : alive.subList(survivors, alive.size())) {
+                        cut.release();
+                    }
+                    alive = new ArrayList<>(alive.subList(0, survivors));
+                }
+            }
+
+            response.setStatus("success");
+            response.setMessage(String.format("Searched %d candidates in %d rounds", candidates.size(), rounds));
+            response.setCandidates(candidates.size());
+            response.setRounds(rounds);
+            response.setLeaderboard(leaderboard(candidates));
+        } catch (ExecutionException e) {
+            response.setStatus("error");
+            response.setMessage("Search failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setStatus("error");
+            response.setMessage("Search interrupted");
+        } catch (Exception e) {
+            response.setStatus("error");
+            response.setMessage("Search failed: " + e.getMessage());
+        }
+        response.setThreads(workerCount);
+        response.setTotalTimeMs((System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    /**
+     * Rounds needed to narrow {@code candidates} down to one.
+     */
+    static int roundCount(int candidates, int reductionFactor) {
+        int rounds = 1;
+        for (int alive = candidates; alive > 1; alive = (alive + reductionFactor - 1) / reductionFactor) {
+            rounds++;
+        }
+        return rounds;
+    }
+
+    // Later rounds rank above earlier ones, then lower validation loss
+    private static List<SearchResponse.CandidateResult> leaderboard(List<Candidate> candidates) {
+        List<Candidate> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator.comparingInt((Candidate candidate) -> -candidate.roundsCompleted)
+                .thenComparingDouble(candidate -> candidate.validationLoss));
+        List<SearchResponse.CandidateResult> results = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            Candidate candidate = ranked.get(i);
+            SearchResponse.CandidateResult result = new SearchResponse.CandidateResult();
+            result.setRank(i + 1);
+            result.setHiddenSizes(candidate.hiddenSizes);
+            result.setActivationFunction(candidate.activationFunction.name());
+            result.setLearningRate(candidate.learningRate);
+            result.setEpochsTrained(candidate.epochsTrained);
+            result.setRoundsCompleted(candidate.roundsCompleted);
+            result.setValidationLoss(candidate.validationLoss);
+            result.setValidationAccuracy(candidate.validationAccuracy);
+            result.setTrainingTimeMs(candidate.trainingNanos / 1_000_000);
+            results.add(result);
+        }
+        return results;
+    }
+
+    // Expands the search space into candidates, validating every value
+    private List<Candidate> candidates(SearchRequest request) {
+        if (request.getEpochs() <= 0) {
+            throw new IllegalArgumentException("Epochs must be positive");
+        }
+        if (request.getBatchSize() < 0) {
+            throw new IllegalArgumentException("Batch size must not be negative");
+        }
+        List<int[]> hiddenSizes = request.getHiddenSizes();
+        if (hiddenSizes == null || hiddenSizes.isEmpty()) {
+            throw new IllegalArgumentException("At least one hidden layer configuration must be specified");
+        }
+        for (int[] sizes : hiddenSizes) {
+            if (sizes == null || sizes.length == 0 || Arrays.stream(sizes).anyMatch(size -> size <= 0)) {
+                throw new IllegalArgumentException("All hidden layer sizes must be positive");
+            }
+        }
+        List<Classifier.ActivationFunction> functions = new ArrayList<>();
+        List<String> names = request.getActivationFunctions() != null && !request.getActivationFunctions().isEmpty()
+                ? request.getActivationFunctions()
+                : List.of(Classifier.ActivationFunction.SIGMOID.name());
+        for (String name : names) {
+            try {
+                functions.add(Classifier.ActivationFunction.valueOf(name.toUpperCase()));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Invalid activation function. Valid options: SIGMOID, TANH, RELU, LEAKY_RELU");
+            }
+        }
+
+        boolean random = request.getStrategy() != null && request.getStrategy().equalsIgnoreCase("RANDOM");
+        if (!random && request.getStrategy() != null && !request.getStrategy().equalsIgnoreCase("GRID")) {
+            throw new IllegalArgumentException("Invalid strategy. Valid options: GRID, RANDOM");
+        }
+        boolean learningRateRange = random && request.getMinLearningRate() != null && request.getMaxLearningRate() != null;
+        List<Double> learningRates = request.getLearningRates();
+        if (learningRateRange) {
+            if (request.getMinLearningRate() <= 0 || request.getMaxLearningRate() < request.getMinLearningRate()) {
+                throw new IllegalArgumentException("Learning rate range must be positive and ordered");
+            }
+        } else if (learningRates == null || learningRates.isEmpty()
+                || learningRates.stream().anyMatch(rate -> rate == null || rate <= 0)) {
+            throw new IllegalArgumentException("At least one positive learning rate must be specified");
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        // Also draws each candidate's shuffle seed, so a seeded search is repeatable end to end
+        Random rng = request.getSeed() != null ? new Random(request.getSeed()) : new Random();
+        if (random) {
+            if (request.getSamples() <= 0) {
+                throw new IllegalArgumentException("Random search needs a positive number of samples");
+            }
+            checkCandidateCount(request.getSamples());
+            double logMin = learningRateRange ? Math.log(request.getMinLearningRate()) : 0;
+            double logMax = learningRateRange ? Math.log(request.getMaxLearningRate()) : 0;
+            for (int i = 0; i < request.getSamples(); i++) {
+                double learningRate = learningRateRange
+                        ? Math.exp(logMin + rng.nextDouble() * (logMax - logMin))
+                        : learningRates.get(rng.nextInt(learningRates.size()));
+                candidates.add(new Candidate(hiddenSizes.get(rng.nextInt(hiddenSizes.size())),
+                        functions.get(rng.nextInt(functions.size())), learningRate, rng.nextLong()));
+            }
+        } else {
+            checkCandidateCount((long) hiddenSizes.size() * functions.size() * learningRates.size());
+            for (int[] sizes : hiddenSizes) {
+                for (Classifier.ActivationFunction function : functions) {
+                    for (double learningRate : learningRates) {
+                        candidates.add(new Candidate(sizes, function, learningRate, rng.nextLong()));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void checkCandidateCount(long count) {
+        if (count > maxCandidates) {
+            throw new IllegalArgumentException(String.format(
+                    "Search space has %d candidates, more than the limit of %d", count, maxCandidates));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * One configuration and the network trained for it so far. Trained by one worker at a time.
+     */
+    private static final class Candidate {
+        final int[] hiddenSizes;
+        final Classifier.ActivationFunction activationFunction;
+        final double learningRate;
+        final Random shuffleRandom;
+
+        Classifier classifier;
+        int[] order;
+        BatchBuffers batchBuffers;
+        Gradients gradients;
+        int epochsTrained;
+        int roundsCompleted;
+        long trainingNanos;
+        double validationLoss = Double.POSITIVE_INFINITY;
+        double validationAccuracy;
+
+        Candidate(int[] hiddenSizes, Classifier.ActivationFunction activationFunction, double learningRate,
+                  long shuffleSeed) {
+            this.hiddenSizes = hiddenSizes.clone();
+            this.activationFunction = activationFunction;
+            this.learningRate = learningRate;
+            this.shuffleRandom = new Random(shuffleSeed);
+        }
+
+        void trainTo(int epochs, SparseVector[] features, int[] labels, int batchSize) {
+            long start = System.nanoTime();
+            if (classifier == null) {
+                // Networks are built lazily on the worker, so memory grows only with the candidates in flight
+                classifier = new Classifier(features[0].dimension(), hiddenSizes, learningRate, activationFunction);
+                order = new int[features.length];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                if (batchSize > 1) {
+                    batchBuffers = classifier.newBatchBuffers(batchSize);
+                    gradients = classifier.newGradients();
+                }
+            }
+            for (; epochsTrained < epochs; epochsTrained++) {
+                for (int i = order.length - 1; i > 0; i--) {
+                    int j = shuffleRandom.nextInt(i + 1);
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+                if (batchSize > 1) {
+                    for (int from = 0; from < order.length; from += batchSize) {
+                        classifier.trainBatch(features, labels, order, from, Math.min(from + batchSize, order.length),
+                                batchBuffers, gradients);
+                    }
+                } else {
+                    for (int idx : order) {
+                        classifier.trainSample(features[idx], labels[idx]);
+                    }
+                }
+            }
+            roundsCompleted++;
+            trainingNanos += System.nanoTime() - start;
+        }
+
+        void validate(SparseVector[] features, int[] labels) {
+            double[] predictions = classifier.predictBatch(features);
+            double loss = 0.0;
+            int correct = 0;
+            for (int i = 0; i < predictions.length; i++) {
+                double error = labels[i] - predictions[i];
+                loss += error * error;
+                if ((predictions[i] > 0.5 ? 1 : 0) == labels[i]) {
+                    correct++;
+                }
+            }
+            validationLoss = loss / predictions.length;
+            validationAccuracy = (double) correct / predictions.length;
+        }
+
+        // Drops the network and its training state once the candidate is cut; its results are kept
+        void release() {
+            classifier = null;
+            order = null;
+            batchBuffers = null;
+            gradients = null;
+        }
+    }
+}
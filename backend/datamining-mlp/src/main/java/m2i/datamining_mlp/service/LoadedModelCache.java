@@ -0,0 +1,144 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.model.Classifier;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Deserialized classifiers kept in memory, bounded by the estimated size of their parameters rather
+ * than by count, since one wide model can outweigh hundreds of small ones. A model larger than the whole
+ * budget is served without being cached.
+ * <p>
+ * Hits go to a {@link ConcurrentHashMap} without locking and only stamp the entry's last access, so
+ * predictions on different models, or the same one, never wait for each other. Eviction is approximate
+ * least recently used: once over the budget, one inserting thread drops the least recently used models
+ * in a single sweep until the rest fit. Loading happens outside any lock; two threads missing on the same
+ * key at once may both load it, and the first one cached wins.
+ */
+public class LoadedModelCache {
+
+    /**
+     * Counters since startup, plus the current occupancy.
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, long weightBytes, long maxWeightBytes) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private static final class Entry {
+        final Classifier classifier;
+        final long weight;
+        volatile long lastAccess;
+
+        Entry(Classifier classifier, long weight, long lastAccess) {
+            this.classifier = classifier;
+            this.weight = weight;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final long maxWeightBytes;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong weightBytes = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LoadedModelCache(long maxWeightBytes) {
+        this(maxWeightBytes, System::nanoTime);
+    }
+
+    LoadedModelCache(long maxWeightBytes, LongSupplier clock) {
+        if (maxWeightBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxWeightBytes = maxWeightBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * The cached classifier for {@code key}, or the one {@code loader} returns, which is then cached.
+     * @return null if the loader returns null, which is not cached
+     */
+    public Classifier get(String key, Supplier<Classifier> loader) {
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            cached.lastAccess = clock.getAsLong();
+            hits.increment();
+            return cached.classifier;
+        }
+        misses.increment();
+
+        Classifier loaded = loader.get();
+        if (loaded == null) {
+            return null;
+        }
+        long weight = weightOf(loaded);
+        if (weight > maxWeightBytes) {
+            return loaded;
+        }
+        Entry raced = entries.putIfAbsent(key, new Entry(loaded, weight, clock.getAsLong()));
+        if (raced != null) {
+            return raced.classifier;
+        }
+        if (weightBytes.addAndGet(weight) > maxWeightBytes && evicting.compareAndSet(false, true)) {
+            try {
+                evictOverflow();
+            } finally {
+                evicting.set(false);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weightBytes.addAndGet(-removed.weight);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), weightBytes.get(), maxWeightBytes);
+    }
+
+    /**
+     * Estimated memory of a loaded classifier: its parameters as doubles.
+     */
+    static long weightOf(Classifier classifier) {
+        return classifier.getParameterCount() * Double.BYTES;
+    }
+
+    // Drops the least recently used entries until the rest fit the budget
+    private void evictOverflow() {
+        // Access stamps are copied first: hits keep updating them while the sweep sorts
+        record Aged(String key, Entry entry, long lastAccess) {}
+        List<Aged> byAge = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> mapping : entries.entrySet()) {
+            byAge.add(new Aged(mapping.getKey(), mapping.getValue(), mapping.getValue().lastAccess));
+        }
+        byAge.sort(Comparator.comparingLong(Aged::lastAccess));
+        for (Aged eldest : byAge) {
+            if (weightBytes.get() <= maxWeightBytes) {
+                return;
+            }
+            if (entries.remove(eldest.key(), eldest.entry())) {
+                weightBytes.addAndGet(-eldest.entry().weight);
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.PretrainedModel;
+import m2i.datamining_mlp.repository.PretrainedModelRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Named, versioned models, for example one per tenant. Each save of a name creates the next revision,
+ * stored like the pretrained model (inline when small, otherwise in GridFS) with id {@code name@revision}.
+ * Revisions are never overwritten, so a revision number always denotes the same parameters.
+ * <p>
+ * Loaded classifiers are shared through a {@link LoadedModelCache}. Requests without a revision use the
+ * latest one, which is looked up at most once per {@code classifier.registry.latest-ttl-ms} per name.
+ */
+@Service
+public class ModelRegistry {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    // Two instances registering the same name at once: the loser retries with the next revision
+    private static final int MAX_REGISTER_ATTEMPTS = 5;
+
+    /**
+     * A loaded registry model.
+     */
+    public record ResolvedModel(String name, int revision, Classifier classifier) {}
+
+    private record LatestRevision(int revision, long checkedAt) {}
+
+    private final PretrainedModelRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final GridFsTemplate gridFsTemplate;
+    private final boolean float32;
+    private final long latestTtlMs;
+    private final LoadedModelCache cache;
+    private final Map<String, LatestRevision> latestRevisions = new ConcurrentHashMap<>();
+
+    public ModelRegistry(PretrainedModelRepository repository, MongoTemplate mongoTemplate,
+                         GridFsTemplate gridFsTemplate,
+                         @Value("${classifier.pretrained.float32:false}") boolean float32,
+                         @Value("${classifier.registry.cache-max-mb:256}") long cacheMaxMb,
+                         @Value("${classifier.registry.latest-ttl-ms:30000}") long latestTtlMs) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.gridFsTemplate = gridFsTemplate;
+        this.float32 = float32;
+        this.latestTtlMs = latestTtlMs;
+        this.cache = new LoadedModelCache(cacheMaxMb * 1024 * 1024);
+    }
+
+    /**
+     * Saves {@code classifier} as the next revision of {@code name}.
+     * @return The stored document, without its parameters
+     * @throws IllegalArgumentException if the name is not 1-64 letters, digits, '.', '_' or '-'
+     */
+    public PretrainedModel register(String name, Classifier classifier, TrainingResponse.TrainingMetrics metrics) {
+        checkName(name);
+        for (int attempt = 0; attempt < MAX_REGISTER_ATTEMPTS; attempt++) {
+            int revision = findLatestRevision(name).orElse(0) + 1;
+            long now = System.currentTimeMillis();
+            PretrainedModel model = new PretrainedModel(classifier, metrics, float32);
+            model.setId(name + "@" + revision);
+            model.setName(name);
+            model.setRevision(revision);
+            model.setCreatedAt(now);
+            model.setVersion(now);
+            if (model.getModelData().length > PretrainedModelCache.INLINE_LIMIT_BYTES) {
+                model.setModelFileId(PretrainedModelCache.storeInGridFs(gridFsTemplate, model.getModelData(),
+                        model.getId() + ".mlpb"));
+                model.setModelData(null);
+            }
+            try {
+                mongoTemplate.insert(model);
+            } catch (DuplicateKeyException e) {
+                if (model.getModelFileId() != null) {
+                    PretrainedModelCache.deleteFromGridFs(gridFsTemplate, model.getModelFileId());
+                }
+                continue;
+            }
+            latestRevisions.put(name, new LatestRevision(revision, now));
+            return PretrainedModelCache.withoutParameters(model);
+        }
+        throw new IllegalStateException("Could not register model " + name + ": too many concurrent registrations");
+    }
+
+    /**
+     * Loads a revision of {@code name}, or its latest revision when {@code revision} is null.
+     * @return empty if there is no such model
+     * @throws IllegalArgumentException if the name is invalid
+     */
+    public Optional<ResolvedModel> find(String name, Integer revision) {
+        checkName(name);
+        Optional<Integer> resolved = revision != null ? Optional.of(revision) : cachedLatestRevision(name);
+        return resolved.flatMap(r -> Optional.ofNullable(cache.get(name + "@" + r, () ->
+                        repository.findByNameAndRevision(name, r)
+                                .map(model -> PretrainedModelCache.decode(gridFsTemplate, model))
+                                .orElse(null)))
+                .map(classifier -> new ResolvedModel(name, r, classifier)));
+    }
+
+    /**
+     * Metadata of every registered revision, or of those of {@code name} when not null, newest first per name.
+     */
+    public List<PretrainedModel> list(String name) {
+        Criteria criteria = name != null ? Criteria.where("name").is(name) : Criteria.where("name").ne(null);
+        Query query = Query.query(criteria).with(Sort.by(Sort.Order.asc("name"), Sort.Order.desc("revision")));
+        query.fields().exclude("modelData").exclude("weights").exclude("biases");
+        return mongoTemplate.find(query, PretrainedModel.class);
+    }
+
+    public LoadedModelCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * The fields of a registry document worth showing to clients.
+     */
+    public static Map<String, Object> describe(PretrainedModel model) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("name", model.getName());
+        description.put("version", model.getRevision());
+        description.put("createdAt", model.getCreatedAt());
+        description.put("inputSize", model.getInputSize());
+        description.put("hiddenLayerSizes", model.getHiddenSizes());
+        description.put("activationFunction", model.getActivationFunction());
+        description.put("learningRate", model.getLearningRate());
+        description.put("metrics", model.getMetrics());
+        return description;
+    }
+
+    private Optional<Integer> cachedLatestRevision(String name) {
+        LatestRevision latest = latestRevisions.get(name);
+        long now = System.currentTimeMillis();
+        if (latest != null && now - latest.checkedAt() < latestTtlMs) {
+            return Optional.of(latest.revision());
+        }
+        Optional<Integer> found = findLatestRevision(name);
+        found.ifPresent(revision -> latestRevisions.put(name, new LatestRevision(revision, now)));
+        return found;
+    }
+
+    private Optional<Integer> findLatestRevision(String name) {
+        Query query = Query.query(Criteria.where("name").is(name)).with(Sort.by(Sort.Direction.DESC, "revision"));
+        query.fields().include("revision");
+        return Optional.ofNullable(mongoTemplate.findOne(query, PretrainedModel.class)).map(PretrainedModel::getRevision);
+    }
+
+    private static void checkName(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Model names are 1-64 letters, digits, '.', '_' or '-'");
+        }
+    }
+}
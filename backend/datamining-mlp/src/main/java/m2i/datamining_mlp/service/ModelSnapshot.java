@@ -0,0 +1,15 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import m2i.datamining_mlp.model.Classifier;
+
+/**
+ * A trained model as published to prediction callers: the classifier, the metrics it was evaluated
+ * with, and a version that grows with every publication.
+ * <p>
+ * The classifier is never trained again once published; a new training run builds its own instance
+ * and publishes a new snapshot. Readers can therefore use a snapshot without locking, and the weights,
+ * metrics and version they see always belong together.
+ */
+public record ModelSnapshot(Classifier classifier, TrainingResponse.TrainingMetrics metrics, long version) {
+}
@@ -0,0 +1,201 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.SparseVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Scores of recently predicted emails for one model, keyed by their sparse feature vector, so copies of a
+ * campaign email, and near-duplicates that tokenize to the same word counts, skip the forward pass.
+ * <p>
+ * Lookups and inserts go to a {@link ConcurrentHashMap} without locking. Bounded by entry count with
+ * approximate least recently used eviction: once over the limit, one inserting thread drops the least
+ * recently read tenth of the entries in a single sweep. Entries older than the TTL are dropped when next
+ * read or swept. Keys are compared in full on a hash match, so collisions cannot return another email's score.
+ * <p>
+ * The entries and the model that scored them form one immutable generation, swapped atomically. The cache
+ * moves to a new generation only for the model its source currently serves, so a request still holding a
+ * replaced model misses without disturbing the new model's entries, and its late scores are dropped.
+ */
+public class PredictionCache {
+
+    /**
+     * Counters since startup, plus the current occupancy.
+     * @param evictions Entries dropped for size or age
+     * @param clears Times the cache was emptied because the model changed
+     */
+    public record Stats(long hits, long misses, long evictions, long clears, int entries, int maxEntries) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private static final class Entry {
+        final double score;
+        final long storedAt;
+        volatile long lastAccess;
+
+        Entry(double score, long storedAt) {
+            this.score = score;
+            this.storedAt = storedAt;
+            this.lastAccess = storedAt;
+        }
+    }
+
+    // The model the entries were scored with; null once cleared, until the next model is bound
+    private record Generation(Classifier model, ConcurrentHashMap<SparseVector, Entry> entries) {}
+
+    private final int maxEntries;
+    private final int evictionTarget;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Supplier<Classifier> currentModel;
+    private final AtomicReference<Generation> generation;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+
+    /**
+     * @param ttlMillis Age after which an entry is no longer served; 0 keeps entries until evicted for size
+     * @param currentModel The model currently served, or null if none; only that model is cached
+     */
+    public PredictionCache(int maxEntries, long ttlMillis, Supplier<Classifier> currentModel) {
+        this(maxEntries, ttlMillis, currentModel, System::nanoTime);
+    }
+
+    PredictionCache(int maxEntries, long ttlMillis, Supplier<Classifier> currentModel, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("Cache TTL must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.evictionTarget = maxEntries - Math.max(1, maxEntries / 10);
+        this.ttlNanos = ttlMillis == 0 ? Long.MAX_VALUE : ttlMillis * 1_000_000;
+        this.currentModel = currentModel;
+        this.clock = clock;
+        this.generation = new AtomicReference<>(new Generation(null, new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * The score {@code model} gave {@code features}, if cached and not expired.
+     * @return NaN on a miss
+     */
+    public double get(Classifier model, SparseVector features) {
+        Generation current = bind(model);
+        Entry entry = current != null ? current.entries().get(features) : null;
+        long now = clock.getAsLong();
+        if (entry != null && now - entry.storedAt > ttlNanos) {
+            if (current.entries().remove(features, entry)) {
+                evictions.increment();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return Double.NaN;
+        }
+        entry.lastAccess = now;
+        hits.increment();
+        return entry.score;
+    }
+
+    /**
+     * Caches a score; dropped unless {@code model} is the one the cache is bound to.
+     */
+    public void put(Classifier model, SparseVector features, double score) {
+        Generation current = generation.get();
+        if (model != current.model()) {
+            return;
+        }
+        current.entries().put(features, new Entry(score, clock.getAsLong()));
+        if (current.entries().size() > maxEntries && evicting.compareAndSet(false, true)) {
+            try {
+                evict(current.entries());
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Drops every entry, for when the model is known to have changed.
+     */
+    public void clear() {
+        Generation previous = generation.getAndSet(new Generation(null, new ConcurrentHashMap<>()));
+        if (!previous.entries().isEmpty()) {
+            clears.increment();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), clears.sum(),
+                generation.get().entries().size(), maxEntries);
+    }
+
+    // The generation for model, starting one if model is the source's current model; null for a stale model
+    private Generation bind(Classifier model) {
+        Generation current = generation.get();
+        if (current.model() == model) {
+            return current;
+        }
+        if (model != currentModel.get()) {
+            return null;
+        }
+        Generation next = new Generation(model, new ConcurrentHashMap<>());
+        if (generation.compareAndSet(current, next)) {
+            if (!current.entries().isEmpty()) {
+                clears.increment();
+            }
+            return next;
+        }
+        Generation winner = generation.get();
+        return winner.model() == model ? winner : null;
+    }
+
+    // Drops expired entries, then the least recently read ones down to the eviction target
+    private void evict(ConcurrentHashMap<SparseVector, Entry> entries) {
+        long now = clock.getAsLong();
+        List<Map.Entry<SparseVector, Entry>> live = new ArrayList<>(entries.size());
+        for (Map.Entry<SparseVector, Entry> mapping : entries.entrySet()) {
+            if (now - mapping.getValue().storedAt > ttlNanos) {
+                if (entries.remove(mapping.getKey(), mapping.getValue())) {
+                    evictions.increment();
+                }
+            } else {
+                live.add(mapping);
+            }
+        }
+        int excess = live.size() - evictionTarget;
+        if (excess <= 0) {
+            return;
+        }
+        long[] accessTimes = new long[live.size()];
+        for (int i = 0; i < accessTimes.length; i++) {
+            accessTimes[i] = live.get(i).getValue().lastAccess;
+        }
+        Arrays.sort(accessTimes);
+        long cutoff = accessTimes[excess - 1];
+        for (Map.Entry<SparseVector, Entry> mapping : live) {
+            if (excess > 0 && mapping.getValue().lastAccess <= cutoff
+                    && entries.remove(mapping.getKey(), mapping.getValue())) {
+                evictions.increment();
+                excess--;
+            }
+        }
+    }
+}
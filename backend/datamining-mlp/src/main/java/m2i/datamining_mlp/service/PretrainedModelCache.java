@@ -0,0 +1,285 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.ModelCodec;
+import m2i.datamining_mlp.model.PretrainedModel;
+import m2i.datamining_mlp.repository.PretrainedModelRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process cache of the pretrained model as a ready-to-use {@link Classifier}.
+ * <p>
+ * The cache is filled in the background at startup and swapped atomically when this instance saves a
+ * new model. A periodic check reads only the stored metadata, and reloads the parameters when another
+ * instance has saved a different version. Predictions therefore never wait for the database once the
+ * cache is warm.
+ * <p>
+ * Parameters are stored in the {@link ModelCodec} binary format: inline in the document when small
+ * enough, otherwise in GridFS. When {@code classifier.pretrained.local-file} is set, the latest model is
+ * also kept in that file and memory-mapped at startup, so the cache is warm before the database answers.
+ */
+@Component
+public class PretrainedModelCache {
+
+    public static final String MODEL_ID = "pretrained_model";
+
+    // Leaves headroom below MongoDB's 16 MB document limit for the metadata
+    static final int INLINE_LIMIT_BYTES = 15 * 1024 * 1024;
+
+    // After a failed load, requests report no model for this long instead of each querying the database again
+    static final long RETRY_BACKOFF_NANOS = 5_000_000_000L;
+
+    private static final Logger log = LoggerFactory.getLogger(PretrainedModelCache.class);
+
+    /**
+     * A loaded pretrained model. The classifier is never trained further, so it is safe to share.
+     * The document holds the metadata and metrics only; its parameter fields are dropped after loading.
+     */
+    public record CachedModel(long version, Classifier classifier, PretrainedModel document) {}
+
+    private final PretrainedModelRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final GridFsTemplate gridFsTemplate;
+    private final boolean float32;
+    private final Path localFile;
+
+    // null until the first successful load; Optional.empty() when no model is stored
+    private final AtomicReference<Optional<CachedModel>> current = new AtomicReference<>();
+
+    // Serializes loads and saves: concurrent cold requests decode the model once, a reload that read the
+    // old document cannot replace a newer saved model, and only one thread writes the local file at a time
+    private final Object loadLock = new Object();
+    // System.nanoTime() before which a failed load is not retried on the request path; guarded by loadLock
+    private long retryAfter;
+    private boolean failed;
+
+    public PretrainedModelCache(PretrainedModelRepository repository, MongoTemplate mongoTemplate,
+                                GridFsTemplate gridFsTemplate,
+                                @Value("${classifier.pretrained.float32:false}") boolean float32,
+                                @Value("${classifier.pretrained.local-file:}") String localFile) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.gridFsTemplate = gridFsTemplate;
+        this.float32 = float32;
+        this.localFile = localFile == null || localFile.isBlank() ? null : Path.of(localFile);
+        loadLocalFile();
+    }
+
+    /**
+     * The cached pretrained model, loading it on this thread if the background load has not finished yet.
+     * Concurrent callers wait for a single load. When loading fails, this returns empty, and keeps doing so
+     * without querying the database until {@link #RETRY_BACKOFF_NANOS} have passed or a refresh succeeds.
+     */
+    public Optional<CachedModel> get() {
+        Optional<CachedModel> cached = current.get();
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (loadLock) {
+            cached = current.get();
+            if (cached != null) {
+                return cached;
+            }
+            if (failed && System.nanoTime() - retryAfter < 0) {
+                return Optional.empty();
+            }
+            try {
+                return reload();
+            } catch (RuntimeException e) {
+                failed = true;
+                retryAfter = System.nanoTime() + RETRY_BACKOFF_NANOS;
+                log.warn("Could not load the pretrained model: {}", e.getMessage());
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * The cached pretrained model as it is now, without ever loading it; empty until the first load completes.
+     */
+    public Optional<CachedModel> peek() {
+        Optional<CachedModel> cached = current.get();
+        return cached != null ? cached : Optional.empty();
+    }
+
+    /**
+     * Saves a classifier as the new pretrained model and makes it the cached one.
+     * The version is bumped so other instances pick up the change on their next check.
+     * Waits for a load in progress, so the saved model is the one left cached.
+     */
+    public CachedModel save(Classifier classifier, TrainingResponse.TrainingMetrics metrics) {
+        PretrainedModel model = new PretrainedModel(classifier, metrics, float32);
+        // Cache a decoded copy: it is detached from the caller's classifier and matches what other instances load
+        Classifier stored = ModelCodec.decode(ByteBuffer.wrap(model.getModelData())).classifier();
+        synchronized (loadLock) {
+            Optional<CachedModel> previous = current.get() != null ? current.get() : Optional.empty();
+            model.setVersion(Math.max(previous.map(CachedModel::version).orElse(0L) + 1, System.currentTimeMillis()));
+            if (model.getModelData().length > INLINE_LIMIT_BYTES) {
+                model.setModelFileId(storeInGridFs(gridFsTemplate, model.getModelData(),
+                        MODEL_ID + "-" + model.getVersion() + ".mlpb"));
+                model.setModelData(null);
+            }
+            repository.save(model);
+            previous.map(cached -> cached.document().getModelFileId())
+                    .ifPresent(fileId -> deleteFromGridFs(gridFsTemplate, fileId));
+
+            CachedModel cached = new CachedModel(model.getVersion(), stored, withoutParameters(model));
+            current.set(Optional.of(cached));
+            failed = false;
+            writeLocalFile(cached);
+            return cached;
+        }
+    }
+
+    /**
+     * Compares the stored version with the cached one and reloads on change.
+     * Runs once right after startup and then at the configured interval.
+     */
+    @Scheduled(initialDelayString = "${classifier.pretrained.refresh-initial-delay-ms:0}",
+            fixedDelayString = "${classifier.pretrained.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            Optional<CachedModel> cached = current.get();
+            PretrainedModel stored = findStoredMetadata();
+            Long storedVersion = stored != null ? stored.getVersion() : null;
+            Long cachedVersion = cached != null ? cached.map(CachedModel::version).orElse(null) : null;
+            if (cached == null || !Objects.equals(storedVersion, cachedVersion)) {
+                reload();
+            } else if (stored != null && cached.get().document().getMetrics() == null) {
+                // Loaded from the local file, which carries no metrics: take them from the database
+                current.compareAndSet(cached, Optional.of(
+                        new CachedModel(stored.getVersion(), cached.get().classifier(), stored)));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the pretrained model cache: {}", e.getMessage());
+        }
+    }
+
+    private Optional<CachedModel> reload() {
+        synchronized (loadLock) {
+            Optional<CachedModel> loaded = repository.findById(MODEL_ID).map(this::toCached);
+            current.set(loaded);
+            failed = false;
+            loaded.ifPresent(model -> {
+                log.info("Loaded pretrained model version {}", model.version());
+                writeLocalFile(model);
+            });
+            return loaded;
+        }
+    }
+
+    // Reads the document without its parameter fields; null if no model is stored
+    private PretrainedModel findStoredMetadata() {
+        Query query = Query.query(Criteria.where("_id").is(MODEL_ID));
+        query.fields().exclude("modelData").exclude("weights").exclude("biases");
+        return mongoTemplate.findOne(query, PretrainedModel.class);
+    }
+
+    private CachedModel toCached(PretrainedModel model) {
+        return new CachedModel(model.getVersion(), decode(gridFsTemplate, model), withoutParameters(model));
+    }
+
+    /**
+     * The classifier stored in a model document, reading its parameters from GridFS when they are not inline.
+     */
+    static Classifier decode(GridFsTemplate gridFsTemplate, PretrainedModel model) {
+        if (model.getModelData() == null && model.getModelFileId() != null) {
+            return ModelCodec.decode(ByteBuffer.wrap(readFromGridFs(gridFsTemplate, model.getModelFileId()))).classifier();
+        }
+        return model.toClassifier();
+    }
+
+    // Metadata document for a decoded model, taken from its header fields without re-encoding the parameters
+    private static PretrainedModel describe(ModelCodec.Decoded decoded) {
+        Classifier classifier = decoded.classifier();
+        PretrainedModel document = new PretrainedModel();
+        document.setInputSize(classifier.getInputSize());
+        document.setHiddenSizes(classifier.getHiddenSizes());
+        document.setLearningRate(classifier.getLearningRate());
+        document.setActivationFunction(classifier.getActivationFunction().toString());
+        document.setVersion(decoded.modelVersion());
+        return document;
+    }
+
+    static PretrainedModel withoutParameters(PretrainedModel model) {
+        model.setModelData(null);
+        model.setWeights(null);
+        model.setBiases(null);
+        return model;
+    }
+
+    static String storeInGridFs(GridFsTemplate gridFsTemplate, byte[] data, String filename) {
+        try (InputStream in = new ByteArrayInputStream(data)) {
+            return gridFsTemplate.store(in, filename).toHexString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readFromGridFs(GridFsTemplate gridFsTemplate, String fileId) {
+        Query query = Query.query(Criteria.where("_id").is(new ObjectId(fileId)));
+        GridFsResource resource = gridFsTemplate.getResource(
+                Objects.requireNonNull(gridFsTemplate.findOne(query), "Missing model file " + fileId));
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteFromGridFs(GridFsTemplate gridFsTemplate, String fileId) {
+        try {
+            gridFsTemplate.delete(Query.query(Criteria.where("_id").is(new ObjectId(fileId))));
+        } catch (RuntimeException e) {
+            log.warn("Could not delete the previous model file {}: {}", fileId, e.getMessage());
+        }
+    }
+
+    // Warms the cache from the local file; the database check later fills in metrics or replaces it
+    private void loadLocalFile() {
+        if (localFile == null || !Files.isRegularFile(localFile)) {
+            return;
+        }
+        try {
+            ModelCodec.Decoded decoded = ModelCodec.read(localFile);
+            PretrainedModel document = describe(decoded);
+            current.set(Optional.of(new CachedModel(decoded.modelVersion(), decoded.classifier(), document)));
+            log.info("Loaded pretrained model version {} from {}", decoded.modelVersion(), localFile);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable model file {}: {}", localFile, e.getMessage());
+        }
+    }
+
+    private void writeLocalFile(CachedModel model) {
+        if (localFile == null) {
+            return;
+        }
+        try {
+            ModelCodec.write(model.classifier(), float32, model.version(), localFile);
+        } catch (IOException e) {
+            log.warn("Could not write model file {}: {}", localFile, e.getMessage());
+        }
+    }
+}
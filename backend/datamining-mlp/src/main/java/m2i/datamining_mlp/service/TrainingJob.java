@@ -0,0 +1,172 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.DTO.TrainingRequest;
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One submitted training run: its state, the loss of every epoch so far, and the SSE clients
+ * following it. Progress is recorded by the training thread and read by request threads.
+ */
+public class TrainingJob implements TrainingListener {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    private final String id;
+    private final TrainingRequest request;
+    private final long submittedAt = System.currentTimeMillis();
+    private final CompletableFuture<TrainingResponse> result = new CompletableFuture<>();
+
+    private final List<TrainingResponse.EpochLoss> epochs = new ArrayList<>();
+    private final List<SseEmitter> emitters = new ArrayList<>();
+    private Status status = Status.QUEUED;
+    private volatile boolean cancelRequested;
+
+    TrainingJob(String id, TrainingRequest request) {
+        this.id = id;
+        this.request = request;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    TrainingRequest getRequest() {
+        return request;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Completes with the training response once the job has finished, whatever its outcome.
+     */
+    public CompletableFuture<TrainingResponse> getResult() {
+        return result;
+    }
+
+    public synchronized boolean isFinished() {
+        return status != Status.QUEUED && status != Status.RUNNING;
+    }
+
+    /**
+     * Status, progress and, once finished, the training response.
+     */
+    public synchronized Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("jobId", id);
+        description.put("status", status);
+        description.put("submittedAt", submittedAt);
+        description.put("epochs", request.getEpochs());
+        description.put("epochLosses", new ArrayList<>(epochs));
+        if (result.isDone()) {
+            description.put("result", result.join());
+        }
+        return description;
+    }
+
+    @Override
+    public synchronized void onEpoch(int epoch, double loss) {
+        TrainingResponse.EpochLoss epochLoss = new TrainingResponse.EpochLoss(epoch, loss);
+        epochs.add(epochLoss);
+        broadcast(SseEmitter.event().name("epoch").data(epochLoss));
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    /**
+     * Asks the job to stop; a queued job never starts, a running one stops at its next batch.
+     * @return Whether the job was still unfinished
+     */
+    synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    /**
+     * Moves a queued job to RUNNING, unless it was cancelled while queued.
+     */
+    synchronized boolean start() {
+        if (cancelRequested) {
+            return false;
+        }
+        status = Status.RUNNING;
+        broadcast(statusEvent());
+        return true;
+    }
+
+    void finish(TrainingResponse response) {
+        synchronized (this) {
+            status = switch (response.getStatus()) {
+                case "success" -> Status.SUCCEEDED;
+                case "cancelled" -> Status.CANCELLED;
+                default -> Status.FAILED;
+            };
+            broadcast(statusEvent());
+            broadcast(SseEmitter.event().name("result").data(response));
+            emitters.forEach(SseEmitter::complete);
+            emitters.clear();
+        }
+        result.complete(response);
+    }
+
+    /**
+     * Replays the progress so far to {@code emitter}, then keeps it updated until the job finishes.
+     */
+    synchronized void subscribe(SseEmitter emitter) {
+        try {
+            emitter.send(statusEvent());
+            for (TrainingResponse.EpochLoss epochLoss : epochs) {
+                emitter.send(SseEmitter.event().name("epoch").data(epochLoss));
+            }
+            if (result.isDone()) {
+                emitter.send(SseEmitter.event().name("result").data(result.join()));
+                emitter.complete();
+                return;
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return;
+        }
+        emitters.add(emitter);
+        Runnable remove = () -> {
+            synchronized (this) {
+                emitters.remove(emitter);
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+    }
+
+    private SseEmitter.SseEventBuilder statusEvent() {
+        return SseEmitter.event().name("status").data(Map.of("jobId", id, "status", status));
+    }
+
+    // A client that went away is dropped; it never holds up training
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        emitters.removeIf(emitter -> {
+            try {
+                emitter.send(event);
+                return false;
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                return true;
+            }
+        });
+    }
+}
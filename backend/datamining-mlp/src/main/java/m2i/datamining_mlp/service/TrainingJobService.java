@@ -0,0 +1,122 @@
+package m2i.datamining_mlp.service;
+
+import jakarta.annotation.PreDestroy;
+import m2i.datamining_mlp.DTO.TrainingRequest;
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs training requests as background jobs on a dedicated, bounded pool, so request threads are
+ * never held by training. Jobs beyond the pool and its queue are rejected rather than piled up.
+ * Finished jobs are kept for inspection until {@code classifier.training.retained-jobs} newer ones exist.
+ */
+@Service
+public class TrainingJobService {
+
+    private final ClassifierService classifierService;
+    private final ThreadPoolExecutor executor;
+    private final int retainedJobs;
+    private final Map<String, TrainingJob> jobs = new LinkedHashMap<>();
+
+    public TrainingJobService(ClassifierService classifierService,
+                              @Value("${classifier.training.threads:1}") int threads,
+                              @Value("${classifier.training.queue-capacity:4}") int queueCapacity,
+                              @Value("${classifier.training.retained-jobs:32}") int retainedJobs) {
+        this.classifierService = classifierService;
+        this.retainedJobs = retainedJobs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "training-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a training run.
+     * @throws RejectedExecutionException if the pool and its queue are full
+     */
+    public TrainingJob submit(TrainingRequest request) {
+        TrainingJob job = new TrainingJob(UUID.randomUUID().toString(), request);
+        synchronized (jobs) {
+            executor.execute(() -> run(job));
+            jobs.put(job.getId(), job);
+            evictFinished();
+        }
+        return job;
+    }
+
+    public Optional<TrainingJob> find(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    /**
+     * @return Whether the job exists and was still unfinished
+     */
+    public boolean cancel(String id) {
+        return find(id).map(TrainingJob::cancel).orElse(false);
+    }
+
+    /**
+     * An SSE stream of the job's status, epoch losses and final result, starting with what happened so far.
+     */
+    public Optional<SseEmitter> subscribe(String id) {
+        return find(id).map(job -> {
+            SseEmitter emitter = new SseEmitter();
+            job.subscribe(emitter);
+            return emitter;
+        });
+    }
+
+    private void run(TrainingJob job) {
+        TrainingResponse response;
+        if (!job.start()) {
+            response = new TrainingResponse();
+            response.setStatus("cancelled");
+            response.setMessage("Training cancelled before it started");
+        } else {
+            try {
+                response = classifierService.trainModel(job.getRequest(), job);
+            } catch (RuntimeException e) {
+                response = new TrainingResponse();
+                response.setStatus("error");
+                response.setMessage("Training failed: " + e.getMessage());
+            }
+        }
+        job.finish(response);
+    }
+
+    private void evictFinished() {
+        int excess = jobs.size() - retainedJobs;
+        var iterator = jobs.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (jobs) {
+            jobs.values().forEach(TrainingJob::cancel);
+        }
+        executor.shutdownNow();
+    }
+}
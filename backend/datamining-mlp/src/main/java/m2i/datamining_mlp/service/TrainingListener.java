@@ -0,0 +1,20 @@
+package m2i.datamining_mlp.service;
+
+/**
+ * Observes a training run: receives the average loss of each epoch and can ask the run to stop.
+ * Called on the training thread.
+ */
+public interface TrainingListener {
+
+    TrainingListener NONE = new TrainingListener() {};
+
+    default void onEpoch(int epoch, double loss) {
+    }
+
+    /**
+     * Polled between epochs and mini-batches; once true, the run stops without replacing the current model.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
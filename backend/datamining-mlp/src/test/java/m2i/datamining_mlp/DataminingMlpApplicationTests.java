@@ -3,7 +3,8 @@ package m2i.datamining_mlp;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// No MongoDB in the test environment: keep the pretrained model cache from polling it
+@SpringBootTest(properties = "classifier.pretrained.refresh-initial-delay-ms=3600000")
 class DataminingMlpApplicationTests {
 
 	@Test
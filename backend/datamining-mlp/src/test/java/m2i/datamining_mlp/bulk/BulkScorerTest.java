@@ -0,0 +1,91 @@
+package m2i.datamining_mlp.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.SparseVector;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkScorerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	// Text length as the single feature, so every email gets a distinct score
+	private static final Function<String, SparseVector> LENGTH =
+			text -> SparseVector.fromDense(new double[]{text.length() / 10.0});
+
+	@Test
+	void resultsKeepInputOrderBeyondTheInFlightLimit() throws Exception {
+		Classifier classifier = new Classifier(1, new int[]{4}, 0.05, Classifier.ActivationFunction.TANH);
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			input.append(objectMapper.writeValueAsString(
+					Map.of("id", "m" + i, "email", "x".repeat(i)))).append('\n');
+		}
+		input.append("{not json\n\n{\"id\":\"empty\"}\n");
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		StringWriter out = new StringWriter();
+		try {
+			NdjsonMailReader reader = new NdjsonMailReader(
+					new BufferedReader(new StringReader(input.toString())), objectMapper);
+			long count = new BulkScorer(classifier, LENGTH, executor, 8, objectMapper).score(reader, out);
+			assertEquals(102, count);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		String[] lines = out.toString().split("\n");
+		assertEquals(102, lines.length);
+		for (int i = 0; i < 100; i++) {
+			JsonNode line = objectMapper.readTree(lines[i]);
+			assertEquals(i, line.get("index").asInt());
+			assertEquals("m" + i, line.get("id").asText());
+			assertEquals(classifier.predict(LENGTH.apply("x".repeat(i))), line.get("prediction").asDouble(), 1e-12);
+		}
+		assertTrue(objectMapper.readTree(lines[100]).has("error"));
+		JsonNode missing = objectMapper.readTree(lines[101]);
+		assertEquals("empty", missing.get("id").asText());
+		assertTrue(missing.has("error"));
+	}
+
+	@Test
+	void mboxReaderSplitsMessagesAndUnquotesSeparators() throws Exception {
+		String mbox = """
+				preamble
+				From alice@example.com Mon Jan  1 00:00:00 2024
+				Message-ID: <1@example.com>
+				Subject: hello
+
+				>From the start
+				>>From kept once
+				From bob@example.com Mon Jan  1 00:00:01 2024
+				Subject: second
+
+				body
+				""";
+		MboxMailReader reader = new MboxMailReader(new BufferedReader(new StringReader(mbox)));
+
+		MailRecord first = reader.next();
+		assertEquals(0, first.index());
+		assertEquals("<1@example.com>", first.id());
+		assertTrue(first.text().contains("\nFrom the start\n>From kept once\n"));
+		assertFalse(first.text().contains("preamble"));
+
+		MailRecord second = reader.next();
+		assertEquals(1, second.index());
+		assertNull(second.id());
+		assertEquals("Subject: second\n\nbody\n", second.text());
+		assertNull(reader.next());
+	}
+}
@@ -0,0 +1,80 @@
+package m2i.datamining_mlp.dataset;
+
+import m2i.datamining_mlp.model.SparseVector;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvDatasetParserTest {
+
+	private static byte[] csv(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void parsesRowsIntoSparseFeaturesAndLabels() {
+		LabeledDataset dataset = CsvDatasetParser.parse(csv(
+				"Email No.,the,to,ect,Prediction\n" +
+				"Email 1,0,3,0,0\n" +
+				"Email 2,2,0,1.5,1\n"));
+
+		assertEquals(2, dataset.size());
+		assertEquals(3, dataset.featureCount());
+		assertEquals(3, dataset.features().nonZeroCount());
+		assertArrayEquals(new int[]{0, 1}, dataset.labels());
+		assertArrayEquals(new double[]{0, 3, 0}, dataset.features().row(0).toDense());
+		assertArrayEquals(new double[]{2, 0, 1.5}, dataset.features().row(1).toDense());
+		assertEquals(1, dataset.positiveCount());
+	}
+
+	@Test
+	void readsOddFieldsLikeTheStringParser() {
+		LabeledDataset dataset = CsvDatasetParser.parse(csv(
+				"id,a,b,c,d,label\r\n" +
+				"\"x, y\", 4 ,\"7\",1e2,abc, 1 \r\n" +
+				"\n" +
+				"z,-0.25,+3.,.5,0x1p1,oops"));
+
+		assertEquals(2, dataset.size());
+		assertArrayEquals(new double[]{4, 7, 100, 0}, dataset.features().row(0).toDense());
+		assertArrayEquals(new double[]{-0.25, 3, 0.5, 2}, dataset.features().row(1).toDense());
+		assertArrayEquals(new int[]{1, 0}, dataset.labels());
+	}
+
+	@Test
+	void chunkedParsingMatchesASingleChunk() {
+		Random random = new Random(5);
+		StringBuilder text = new StringBuilder("id,f0,f1,f2,f3,f4,f5,label\n");
+		for (int row = 0; row < 500; row++) {
+			text.append("Email ").append(row);
+			for (int column = 0; column < 6; column++) {
+				text.append(',').append(random.nextInt(3) == 0 ? random.nextInt(20) : 0);
+			}
+			text.append(',').append(random.nextInt(2)).append('\n');
+		}
+		byte[] data = csv(text.toString());
+
+		LabeledDataset single = CsvDatasetParser.parse(data, 1);
+		for (int chunks : new int[]{2, 7, 64}) {
+			LabeledDataset chunked = CsvDatasetParser.parse(data, chunks);
+			assertArrayEquals(single.labels(), chunked.labels());
+			for (int row = 0; row < single.size(); row++) {
+				SparseVector expected = single.features().row(row);
+				SparseVector actual = chunked.features().row(row);
+				assertArrayEquals(expected.toDense(), actual.toDense());
+				assertEquals(expected.nonZeroCount(), actual.nonZeroCount());
+			}
+		}
+	}
+
+	@Test
+	void rejectsEmptyFeaturelessAndShortInput() {
+		assertThrows(IllegalArgumentException.class, () -> CsvDatasetParser.parse(csv("")));
+		assertThrows(IllegalArgumentException.class, () -> CsvDatasetParser.parse(csv("id,label\n1,0\n")));
+		assertThrows(IllegalArgumentException.class, () -> CsvDatasetParser.parse(csv("id,a,b,label\n")));
+		assertThrows(IllegalArgumentException.class, () -> CsvDatasetParser.parse(csv("id,a,b,label\n1,2,3\n")));
+	}
+}
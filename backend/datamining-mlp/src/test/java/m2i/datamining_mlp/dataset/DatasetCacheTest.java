@@ -0,0 +1,71 @@
+package m2i.datamining_mlp.dataset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetCacheTest {
+
+	@TempDir
+	Path dir;
+
+	private Path writeCsv(String secondRow, long modifiedMillis) throws Exception {
+		Path csv = dir.resolve("emails.csv");
+		Files.writeString(csv, "id,a,b,label\n1,0,2.5,1\n" + secondRow + "\n");
+		Files.setLastModifiedTime(csv, FileTime.fromMillis(modifiedMillis));
+		return csv;
+	}
+
+	@Test
+	void keepsTheParsedDatasetInMemory() throws Exception {
+		Path csv = writeCsv("2,4,0,0", 1_000_000);
+		DatasetCache cache = new DatasetCache();
+
+		LabeledDataset first = cache.load(csv);
+		assertSame(first, cache.load(csv));
+		assertTrue(Files.isRegularFile(DatasetCache.sidecarOf(csv.toAbsolutePath())));
+	}
+
+	@Test
+	void nextInstanceReadsTheSidecarInsteadOfTheCsv() throws Exception {
+		Path csv = writeCsv("2,4,0,0", 1_000_000);
+		new DatasetCache().load(csv);
+
+		// Same size and timestamp: the sidecar is trusted, so the edit is not seen
+		writeCsv("2,9,0,0", 1_000_000);
+		LabeledDataset cached = new DatasetCache().load(csv);
+		assertArrayEquals(new double[]{4, 0}, cached.features().row(1).toDense());
+		assertArrayEquals(new double[]{0, 2.5}, cached.features().row(0).toDense());
+		assertArrayEquals(new int[]{1, 0}, cached.labels());
+	}
+
+	@Test
+	void changedContentUnderANewTimestampIsParsedAgain() throws Exception {
+		Path csv = writeCsv("2,4,0,0", 1_000_000);
+		new DatasetCache().load(csv);
+
+		writeCsv("2,9,0,0", 2_000_000);
+		assertArrayEquals(new double[]{9, 0}, new DatasetCache().load(csv).features().row(1).toDense());
+
+		// Touched but unchanged: the hash matches and the sidecar is reused
+		writeCsv("2,9,0,0", 3_000_000);
+		assertArrayEquals(new double[]{9, 0}, new DatasetCache().load(csv).features().row(1).toDense());
+	}
+
+	@Test
+	void corruptSidecarFallsBackToParsing() throws Exception {
+		Path csv = writeCsv("2,4,0,0", 1_000_000);
+		new DatasetCache().load(csv);
+		Path sidecar = DatasetCache.sidecarOf(csv.toAbsolutePath());
+		byte[] bytes = Files.readAllBytes(sidecar);
+		Files.write(sidecar, Arrays.copyOf(bytes, bytes.length - 5));
+
+		assertArrayEquals(new double[]{4, 0}, new DatasetCache().load(csv).features().row(1).toDense());
+	}
+}
@@ -0,0 +1,58 @@
+package m2i.datamining_mlp.dataset;
+
+import m2i.datamining_mlp.model.SparseMatrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabeledDatasetTest {
+
+	/** Row r has the single feature value r, so rows can be told apart after shuffling. */
+	private static LabeledDataset dataset(int rows) {
+		int[] rowPointers = new int[rows + 1];
+		int[] columns = new int[rows];
+		double[] values = new double[rows];
+		int[] labels = new int[rows];
+		for (int r = 0; r < rows; r++) {
+			values[r] = r;
+			labels[r] = r % 2;
+			rowPointers[r + 1] = r + 1;
+		}
+		return new LabeledDataset(new SparseMatrix(1, rowPointers, columns, values), labels);
+	}
+
+	@Test
+	void everyRowIsTestedInExactlyOneFold() {
+		LabeledDataset dataset = dataset(23);
+		LabeledDataset.Split[] folds = dataset.folds(5, 42);
+		assertEquals(5, folds.length);
+
+		int[] tested = new int[23];
+		for (LabeledDataset.Split fold : folds) {
+			assertEquals(23, fold.trainLabels().length + fold.testLabels().length);
+			assertTrue(fold.testLabels().length == 4 || fold.testLabels().length == 5);
+			boolean[] inTest = new boolean[23];
+			for (int i = 0; i < fold.testFeatures().length; i++) {
+				int row = (int) fold.testFeatures()[i].toDense()[0];
+				assertEquals(row % 2, fold.testLabels()[i]);
+				inTest[row] = true;
+				tested[row]++;
+			}
+			for (int i = 0; i < fold.trainFeatures().length; i++) {
+				int row = (int) fold.trainFeatures()[i].toDense()[0];
+				assertEquals(row % 2, fold.trainLabels()[i]);
+				assertFalse(inTest[row]);
+			}
+		}
+		for (int count : tested) {
+			assertEquals(1, count);
+		}
+	}
+
+	@Test
+	void rejectsFoldCountsOutsideTheDataset() {
+		LabeledDataset dataset = dataset(4);
+		assertThrows(IllegalArgumentException.class, () -> dataset.folds(1, 42));
+		assertThrows(IllegalArgumentException.class, () -> dataset.folds(5, 42));
+	}
+}
@@ -0,0 +1,86 @@
+package m2i.datamining_mlp.feature;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VocabularyTest {
+
+	private static final String[] WORDS = {"the", "to", "ect", "and", "enron", "hou", "s", "a", "http", "re", "k", "xp", "1", "2000"};
+
+	// The tokenizer this index replaces: regex split, then a linear scan per token
+	private static double[] reference(String text) {
+		double[] counts = new double[WORDS.length];
+		for (String word : text.toLowerCase().split("[\\s\\p{Punct}]+")) {
+			for (int i = 0; i < WORDS.length; i++) {
+				if (word.equals(WORDS[i])) {
+					counts[i]++;
+				}
+			}
+		}
+		return counts;
+	}
+
+	private static double[] counts(Vocabulary vocabulary, String text) {
+		double[] counts = new double[vocabulary.size()];
+		vocabulary.count(text, counts);
+		return counts;
+	}
+
+	@Test
+	void countsMatchRegexTokenizer() {
+		Vocabulary vocabulary = new Vocabulary(WORDS);
+		String[] texts = {
+				"",
+				"The THE the,tHe.",
+				"Subject: re: ENRON/HOU ect @ 2000 -- see http://www.enron.com/the_to",
+				"  leading and trailing separators!!  ",
+				"unicode café theé Kp K enron’s naïve s",
+				"İ tabs\tand\nnewlines\u000Band\fform\rfeeds",
+				"theenronhoutheenronhou the1 1the 2000 20000",
+		};
+		for (String text : texts) {
+			assertArrayEquals(reference(text), counts(vocabulary, text), text);
+		}
+	}
+
+	@Test
+	void countsMatchRegexTokenizerOnRandomText() {
+		Vocabulary vocabulary = new Vocabulary(WORDS);
+		String alphabet = "theTHEandANDenronxpk12 0,.;:!?-_'\"\t\néK";
+		Random random = new Random(4);
+		for (int n = 0; n < 500; n++) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(200);
+			for (int i = 0; i < length; i++) {
+				text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			assertArrayEquals(reference(text.toString()), counts(vocabulary, text.toString()), text.toString());
+		}
+	}
+
+	@Test
+	void sparseCountsMatchDenseCounts() {
+		Vocabulary vocabulary = new Vocabulary(WORDS);
+		String text = "the enron THE to xp, the; 2000 2000 k unrelated words " + "a ".repeat(40);
+		assertArrayEquals(counts(vocabulary, text), vocabulary.countSparse(text).toDense());
+		assertEquals(0, vocabulary.countSparse("nothing here").nonZeroCount());
+	}
+
+	@Test
+	void indexOfIsCaseInsensitive() {
+		Vocabulary vocabulary = new Vocabulary(WORDS);
+		assertEquals(4, vocabulary.indexOf("Enron"));
+		assertEquals(-1, vocabulary.indexOf("enrons"));
+		assertEquals(-1, vocabulary.indexOf(""));
+	}
+
+	@Test
+	void rejectsInvalidWords() {
+		assertThrows(IllegalArgumentException.class, () -> new Vocabulary(new String[]{"the", "the"}));
+		assertThrows(IllegalArgumentException.class, () -> new Vocabulary(new String[]{"The"}));
+		assertThrows(IllegalArgumentException.class, () -> new Vocabulary(new String[]{""}));
+	}
+}
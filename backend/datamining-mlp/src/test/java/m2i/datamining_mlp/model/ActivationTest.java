@@ -0,0 +1,46 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivationTest {
+
+	@Test
+	void tanhThroughExpStaysWithinItsBound() {
+		double worst = 0.0;
+		for (double x = -40; x <= 40; x += 0.000731) {
+			worst = Math.max(worst, Math.abs(Classifier.tanh(x) - Math.tanh(x)));
+		}
+		assertTrue(worst < Classifier.TANH_ABSOLUTE_ERROR, "worst absolute error " + worst);
+		assertEquals(0.0, Classifier.tanh(0.0));
+		assertEquals(1.0, Classifier.tanh(1e4));
+		assertEquals(-1.0, Classifier.tanh(-1e4));
+	}
+
+	@Test
+	void derivativesFromActivationsMatchFiniteDifferences() {
+		Random random = new Random(5);
+		for (Classifier.ActivationFunction function : Classifier.ActivationFunction.values()) {
+			Activation activation = Activation.of(function);
+			double[] z = new double[200];
+			for (int i = 0; i < z.length; i++) {
+				z[i] = 4 * random.nextGaussian();
+			}
+			double[] a = new double[z.length];
+			activation.apply(z, 0, a, 0, z.length);
+			double[] delta = new double[z.length];
+			Arrays.fill(delta, 2.0);
+			activation.multiplyDerivative(a, 0, delta, 0, z.length);
+
+			double h = 1e-6;
+			for (int i = 0; i < z.length; i++) {
+				double slope = (Classifier.activate(z[i] + h, function) - Classifier.activate(z[i] - h, function)) / (2 * h);
+				assertEquals(2 * slope, delta[i], 1e-6, function + " at " + z[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ClassifierTest {
+
+	private static double[] randomInput(Random random, int size) {
+		double[] input = new double[size];
+		for (int i = 0; i < size; i++) {
+			if (random.nextInt(20) == 0) {
+				input[i] = random.nextInt(4);
+			}
+		}
+		return input;
+	}
+
+	@Test
+	void predictIntoMatchesPredict() {
+		Classifier classifier = new Classifier(300, new int[]{16, 8}, 0.05, Classifier.ActivationFunction.TANH);
+		ActivationBuffers buffers = classifier.newBuffers();
+		Random random = new Random(7);
+		for (int n = 0; n < 50; n++) {
+			double[] input = randomInput(random, 300);
+			assertEquals(classifier.predict(input), classifier.predictInto(input, buffers));
+		}
+	}
+
+	@Test
+	void predictIntoRejectsBuffersOfAnotherArchitecture() {
+		Classifier classifier = new Classifier(300, new int[]{16}, 0.05, Classifier.ActivationFunction.RELU);
+		Classifier other = new Classifier(300, new int[]{32}, 0.05, Classifier.ActivationFunction.RELU);
+		assertThrows(IllegalArgumentException.class,
+				() -> classifier.predictInto(new double[300], other.newBuffers()));
+	}
+
+	@Test
+	void denseInputsOfTheWrongLengthAreRejected() {
+		Classifier classifier = new Classifier(300, new int[]{16}, 0.05, Classifier.ActivationFunction.RELU);
+		assertThrows(IllegalArgumentException.class, () -> classifier.predict(new double[299]));
+		assertThrows(IllegalArgumentException.class, () -> classifier.predict(new double[301]));
+		assertThrows(IllegalArgumentException.class, () -> classifier.trainSample(new double[299], 1));
+	}
+
+	@Test
+	void fromWeightsCopiesTheBiases() {
+		Classifier trained = new Classifier(20, new int[]{4}, 0.05, Classifier.ActivationFunction.TANH);
+		double[][] biases = trained.getBiases();
+		Classifier loaded = Classifier.fromWeights(20, new int[]{4}, 0.05, Classifier.ActivationFunction.TANH,
+				trained.getWeights(), biases);
+		double[] input = randomInput(new Random(3), 20);
+		double before = loaded.predict(input);
+
+		biases[1][0] += 5;
+		assertEquals(before, loaded.predict(input));
+	}
+
+	@Test
+	void predictBatchMatchesPredictAcrossBlocks() {
+		Random random = new Random(9);
+		int count = Classifier.PREDICT_BLOCK * 2 + 17;
+		SparseVector[] inputs = new SparseVector[count];
+		for (int n = 0; n < count; n++) {
+			inputs[n] = SparseVector.fromDense(randomInput(random, 300));
+		}
+		for (Classifier.ActivationFunction function : Classifier.ActivationFunction.values()) {
+			Classifier classifier = new Classifier(300, new int[]{16, 8}, 0.05, function);
+			double[] scores = classifier.predictBatch(inputs);
+			assertEquals(count, scores.length);
+			for (int n = 0; n < count; n++) {
+				assertEquals(classifier.predict(inputs[n]), scores[n], 1e-12);
+			}
+		}
+		assertEquals(0, new Classifier(300, new int[]{4}, 0.05, Classifier.ActivationFunction.RELU)
+				.predictBatch(new SparseVector[0]).length);
+	}
+
+	@Test
+	void batchOfOneMatchesTrainSample() {
+		Classifier perSample = new Classifier(200, new int[]{12, 6}, 0.1, Classifier.ActivationFunction.SIGMOID);
+		Classifier batched = new Classifier(200, new int[]{12, 6}, 0.1, Classifier.ActivationFunction.SIGMOID);
+		BatchBuffers buffers = batched.newBatchBuffers(1);
+		Gradients gradients = batched.newGradients();
+		Random random = new Random(11);
+		double[][] inputs = new double[40][];
+		int[] targets = new int[40];
+		int[] order = new int[40];
+		for (int n = 0; n < 40; n++) {
+			inputs[n] = randomInput(random, 200);
+			targets[n] = random.nextInt(2);
+			order[n] = n;
+		}
+
+		for (int n = 0; n < 40; n++) {
+			perSample.trainSample(inputs[n], targets[n]);
+			batched.trainBatch(inputs, targets, order, n, n + 1, buffers, gradients);
+		}
+
+		for (int n = 0; n < 40; n++) {
+			assertEquals(perSample.predict(inputs[n]), batched.predict(inputs[n]), 1e-12);
+		}
+	}
+
+	@Test
+	void batchGradientsAreTheSumOfPerSampleGradients() {
+		Classifier classifier = new Classifier(150, new int[]{10}, 0.1, Classifier.ActivationFunction.LEAKY_RELU);
+		Random random = new Random(5);
+		double[][] inputs = new double[7][];
+		int[] targets = new int[7];
+		int[] order = new int[7];
+		for (int n = 0; n < 7; n++) {
+			inputs[n] = randomInput(random, 150);
+			targets[n] = random.nextInt(2);
+			order[n] = n;
+		}
+
+		Gradients batch = classifier.newGradients();
+		classifier.computeBatchGradients(inputs, targets, order, 0, 7, classifier.newBatchBuffers(7), batch);
+
+		Gradients single = classifier.newGradients();
+		BatchBuffers singleBuffers = classifier.newBatchBuffers(1);
+		double[][] summed = new double[batch.weights.length][];
+		for (int layer = 0; layer < summed.length; layer++) {
+			summed[layer] = new double[batch.weights[layer].length];
+		}
+		for (int n = 0; n < 7; n++) {
+			classifier.computeBatchGradients(inputs, targets, order, n, n + 1, singleBuffers, single);
+			for (int layer = 0; layer < summed.length; layer++) {
+				for (int k = 0; k < summed[layer].length; k++) {
+					summed[layer][k] += single.weights[layer][k];
+				}
+			}
+		}
+
+		for (int layer = 0; layer < summed.length; layer++) {
+			assertArrayEquals(summed[layer], batch.weights[layer], 1e-12);
+		}
+	}
+
+	@Test
+	void sparseInputsTrainLikeDenseInputs() {
+		Classifier dense = new Classifier(200, new int[]{12, 6}, 0.1, Classifier.ActivationFunction.RELU);
+		Classifier sparse = new Classifier(200, new int[]{12, 6}, 0.1, Classifier.ActivationFunction.RELU);
+		Random random = new Random(13);
+		double[][] inputs = new double[60][];
+		SparseVector[] sparseInputs = new SparseVector[60];
+		int[] targets = new int[60];
+		int[] order = new int[60];
+		for (int n = 0; n < 60; n++) {
+			inputs[n] = randomInput(random, 200);
+			sparseInputs[n] = SparseVector.fromDense(inputs[n]);
+			targets[n] = random.nextInt(2);
+			order[n] = n;
+		}
+
+		// Per-sample updates, then mini-batches that reuse the same gradient accumulator
+		for (int n = 0; n < 30; n++) {
+			assertEquals(dense.trainSample(inputs[n], targets[n]), sparse.trainSample(sparseInputs[n], targets[n]), 1e-12);
+		}
+		BatchBuffers denseBuffers = dense.newBatchBuffers(8);
+		BatchBuffers sparseBuffers = sparse.newBatchBuffers(8);
+		Gradients denseGradients = dense.newGradients();
+		Gradients sparseGradients = sparse.newGradients();
+		for (int start = 30; start < 60; start += 8) {
+			int end = Math.min(start + 8, 60);
+			assertEquals(dense.trainBatch(inputs, targets, order, start, end, denseBuffers, denseGradients),
+					sparse.trainBatch(sparseInputs, targets, order, start, end, sparseBuffers, sparseGradients), 1e-12);
+		}
+
+		for (int n = 0; n < 60; n++) {
+			assertEquals(dense.predict(inputs[n]), sparse.predict(sparseInputs[n]), 1e-12);
+		}
+	}
+
+	@Test
+	void predictDoesNotAllocateAtSteadyState() {
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		Classifier classifier = new Classifier(3000, new int[]{64, 32}, 0.05, Classifier.ActivationFunction.SIGMOID);
+		double[] input = randomInput(new Random(3), 3000);
+		ActivationBuffers buffers = classifier.newBuffers();
+
+		// Warm up so the interpreter and JIT are out of the picture
+		double sink = 0;
+		for (int n = 0; n < 5_000; n++) {
+			sink += classifier.predict(input) + classifier.predictInto(input, buffers);
+		}
+
+		int calls = 2_000;
+		long before = threads.getCurrentThreadAllocatedBytes();
+		for (int n = 0; n < calls; n++) {
+			sink += classifier.predict(input) + classifier.predictInto(input, buffers);
+		}
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+		assertTrue(sink > 0);
+		// Less than one byte per call: nothing is allocated per prediction
+		assertTrue(allocated < calls, "allocated " + allocated + " bytes over " + calls + " predictions");
+	}
+}
@@ -0,0 +1,61 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EarlyStoppingTest {
+
+	private static final double[] INPUT = {1, 0, 2, 0.5};
+
+	private static Classifier classifier() {
+		return new Classifier(4, new int[]{3}, 0.5, Classifier.ActivationFunction.TANH);
+	}
+
+	@Test
+	void stopsAfterPatienceEpochsWithoutImprovement() {
+		EarlyStopping stopping = new EarlyStopping(classifier(), 2, 0.01);
+		assertFalse(stopping.update(0, 0.30));
+		assertFalse(stopping.update(1, 0.20));
+		assertFalse(stopping.update(2, 0.195)); // within minDelta: not an improvement
+		assertTrue(stopping.update(3, 0.25));
+		assertEquals(1, stopping.getBestEpoch());
+		assertEquals(0.20, stopping.getBestLoss());
+	}
+
+	@Test
+	void zeroPatienceNeverStops() {
+		EarlyStopping stopping = new EarlyStopping(classifier(), 0, 0.0);
+		stopping.update(0, 0.1);
+		for (int epoch = 1; epoch < 50; epoch++) {
+			assertFalse(stopping.update(epoch, 0.5));
+		}
+	}
+
+	@Test
+	void restoresTheBestWeights() {
+		Classifier classifier = classifier();
+		EarlyStopping stopping = new EarlyStopping(classifier, 3, 0.0);
+		stopping.restoreBest(); // nothing recorded yet
+		double best = classifier.predict(INPUT);
+		stopping.update(0, 0.1);
+
+		for (int i = 0; i < 20; i++) {
+			classifier.trainSample(INPUT, 1);
+		}
+		assertNotEquals(best, classifier.predict(INPUT));
+		stopping.update(1, 0.2);
+
+		stopping.restoreBest();
+		assertEquals(best, classifier.predict(INPUT), 0.0);
+	}
+
+	@Test
+	void parameterCopiesAreReused() {
+		Classifier classifier = classifier();
+		double[][] copy = classifier.copyParameters(null);
+		assertEquals(4, copy.length);
+		assertSame(copy, classifier.copyParameters(copy));
+		assertThrows(IllegalArgumentException.class, () -> classifier.restoreParameters(new double[1][]));
+	}
+}
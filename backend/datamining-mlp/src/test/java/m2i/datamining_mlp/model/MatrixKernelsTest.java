@@ -0,0 +1,122 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class MatrixKernelsTest {
+
+	private static double[] random(Random random, int size) {
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = random.nextInt(5) == 0 ? 0.0 : random.nextGaussian();
+		}
+		return values;
+	}
+
+	@Test
+	void dotHandlesTails() {
+		Random random = new Random(1);
+		for (int n = 0; n < 11; n++) {
+			double[] a = random(random, n + 3);
+			double[] b = random(random, n + 2);
+			double expected = 0.0;
+			for (int i = 0; i < n; i++) {
+				expected += a[i + 1] * b[i];
+			}
+			assertEquals(expected, MatrixKernels.dot(a, 1, b, 0, n), 1e-12);
+		}
+	}
+
+	@Test
+	void gemmKernelsMatchNaiveProducts() {
+		Random random = new Random(2);
+		// Odd sizes and sizes larger than the tiles exercise every edge of the blocking
+		int[][] shapes = {{1, 1, 1}, {3, 5, 7}, {33, 1, 700}, {17, 130, 300}, {2, 65, 1025}};
+		for (int[] shape : shapes) {
+			int m = shape[0], n = shape[1], k = shape[2];
+
+			double[] a = random(random, m * k);
+			double[] bt = random(random, n * k);
+			double[] c = random(random, m * n);
+			double[] expected = c.clone();
+			for (int i = 0; i < m; i++) {
+				for (int j = 0; j < n; j++) {
+					for (int p = 0; p < k; p++) {
+						expected[i * n + j] += a[i * k + p] * bt[j * k + p];
+					}
+				}
+			}
+			MatrixKernels.gemmNT(a, bt, c, m, n, k);
+			assertArrayEquals(expected, c, 1e-9);
+
+			double[] b = random(random, k * n);
+			c = random(random, m * n);
+			expected = c.clone();
+			for (int i = 0; i < m; i++) {
+				for (int j = 0; j < n; j++) {
+					for (int p = 0; p < k; p++) {
+						expected[i * n + j] += a[i * k + p] * b[p * n + j];
+					}
+				}
+			}
+			MatrixKernels.gemmNN(a, b, c, m, n, k);
+			assertArrayEquals(expected, c, 1e-9);
+
+			double[] at = random(random, k * m);
+			c = random(random, m * n);
+			expected = c.clone();
+			for (int i = 0; i < m; i++) {
+				for (int j = 0; j < n; j++) {
+					for (int p = 0; p < k; p++) {
+						expected[i * n + j] += at[p * m + i] * b[p * n + j];
+					}
+				}
+			}
+			MatrixKernels.gemmTN(at, b, c, m, n, k);
+			assertArrayEquals(expected, c, 1e-9);
+		}
+	}
+
+	@Test
+	void vectorBackendMatchesScalarBackend() {
+		// Surefire runs with --add-modules jdk.incubator.vector, so the vector backend must load
+		KernelBackend vector = MatrixKernels.loadVectorBackend();
+		assertNotNull(vector);
+		KernelBackend scalar = new ScalarKernels();
+		Random random = new Random(3);
+
+		for (int n : new int[]{0, 1, 3, 7, 8, 9, 16, 31, 100, 1027}) {
+			double[] a = random(random, n + 2);
+			double[] b = random(random, n + 1);
+			assertEquals(scalar.dot(a, 2, b, 1, n), vector.dot(a, 2, b, 1, n), 1e-12 * (n + 1));
+
+			double[] expected = b.clone();
+			double[] actual = b.clone();
+			scalar.axpy(0.3, a, 1, expected, 1, n);
+			vector.axpy(0.3, a, 1, actual, 1, n);
+			assertArrayEquals(expected, actual, 1e-15);
+
+			for (Classifier.ActivationFunction function : Classifier.ActivationFunction.values()) {
+				double[] z = random(random, n + 1);
+				z[n] = 40 * random.nextGaussian();
+				double[] scalarOut = new double[n];
+				double[] vectorOut = new double[n];
+				scalar.activate(function, z, 1, scalarOut, 0, n);
+				vector.activate(function, z, 1, vectorOut, 0, n);
+				assertArrayEquals(scalarOut, vectorOut, 1e-15, function.name());
+			}
+		}
+	}
+
+	@Test
+	void scalarBackendCanBeForced() {
+		assertInstanceOf(ScalarKernels.class, MatrixKernels.selectBackend("scalar"));
+		assertInstanceOf(VectorKernels.class, MatrixKernels.selectBackend("auto"));
+	}
+}
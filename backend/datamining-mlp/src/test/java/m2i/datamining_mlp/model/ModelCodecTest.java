@@ -0,0 +1,96 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelCodecTest {
+
+	private static Classifier classifier() {
+		return new Classifier(30, new int[]{8, 5}, 0.05, Classifier.ActivationFunction.RELU);
+	}
+
+	private static void assertSameParameters(Classifier expected, Classifier actual, double delta) {
+		assertEquals(expected.getInputSize(), actual.getInputSize());
+		assertArrayEquals(expected.getHiddenSizes(), actual.getHiddenSizes());
+		assertEquals(expected.getActivationFunction(), actual.getActivationFunction());
+		assertEquals(expected.getLearningRate(), actual.getLearningRate());
+		for (int layer = 0; layer <= expected.getNumHiddenLayers(); layer++) {
+			assertArrayEquals(expected.layerWeights(layer), actual.layerWeights(layer), delta);
+			assertArrayEquals(expected.getBiases()[layer], actual.getBiases()[layer], delta);
+		}
+	}
+
+	@Test
+	void float64RoundTripIsExact() {
+		Classifier original = classifier();
+		ModelCodec.Decoded decoded = ModelCodec.decode(ByteBuffer.wrap(ModelCodec.encode(original, false, 42)));
+
+		assertEquals(42, decoded.modelVersion());
+		assertSameParameters(original, decoded.classifier(), 0);
+	}
+
+	@Test
+	void float32RoundTripIsCloseAndHalfTheSize() {
+		Classifier original = classifier();
+		byte[] wide = ModelCodec.encode(original, false, 1);
+		byte[] narrow = ModelCodec.encode(original, true, 1);
+
+		assertTrue(narrow.length < wide.length * 0.6);
+		assertSameParameters(original, ModelCodec.decode(ByteBuffer.wrap(narrow)).classifier(), 1e-6);
+	}
+
+	@Test
+	void readsAWrittenFileThroughAMemoryMap(@TempDir Path dir) throws Exception {
+		Classifier original = classifier();
+		Path file = dir.resolve("model.mlpb");
+		ModelCodec.write(original, false, 7, file);
+
+		ModelCodec.Decoded decoded = ModelCodec.read(file);
+		assertEquals(7, decoded.modelVersion());
+		assertSameParameters(original, decoded.classifier(), 0);
+	}
+
+	@Test
+	void rejectsForeignAndTruncatedData() {
+		byte[] data = ModelCodec.encode(classifier(), false, 1);
+
+		byte[] foreign = data.clone();
+		foreign[0] ^= 1;
+		assertThrows(IllegalArgumentException.class, () -> ModelCodec.decode(ByteBuffer.wrap(foreign)));
+		assertThrows(IllegalArgumentException.class,
+				() -> ModelCodec.decode(ByteBuffer.wrap(Arrays.copyOf(data, data.length - 3))));
+	}
+
+	@Test
+	void rejectsCorruptHeaderSizesBeforeAllocating() {
+		byte[] data = ModelCodec.encode(classifier(), false, 1);
+		int activationLength = 16;
+		int inputSize = activationLength + 2 + "RELU".length() + Double.BYTES;
+		int hiddenCount = inputSize + Integer.BYTES;
+
+		assertThrows(IllegalArgumentException.class, () -> decodeWith(data, activationLength, (short) -1, 2));
+		assertThrows(IllegalArgumentException.class, () -> decodeWith(data, inputSize, -30, 4));
+		assertThrows(IllegalArgumentException.class, () -> decodeWith(data, inputSize, Integer.MAX_VALUE, 4));
+		assertThrows(IllegalArgumentException.class, () -> decodeWith(data, hiddenCount, -1, 4));
+		assertThrows(IllegalArgumentException.class, () -> decodeWith(data, hiddenCount, Integer.MAX_VALUE, 4));
+		assertThrows(IllegalArgumentException.class, () -> decodeWith(data, hiddenCount + 4, 1 << 30, 4));
+	}
+
+	// Decodes a copy of the data with the little-endian field at offset overwritten
+	private static ModelCodec.Decoded decodeWith(byte[] data, int offset, int value, int bytes) {
+		ByteBuffer corrupt = ByteBuffer.wrap(data.clone()).order(ByteOrder.LITTLE_ENDIAN);
+		if (bytes == 2) {
+			corrupt.putShort(offset, (short) value);
+		} else {
+			corrupt.putInt(offset, value);
+		}
+		return ModelCodec.decode(corrupt);
+	}
+}
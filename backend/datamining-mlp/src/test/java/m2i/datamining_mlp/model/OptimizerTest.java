@@ -0,0 +1,123 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimizerTest {
+
+	private static final int[] SIZES = {3, 2, 1};
+
+	@Test
+	void momentumAccumulatesVelocity() {
+		Optimizer momentum = new Optimizer.Momentum(SIZES, 0.5, false);
+		double[] params = new double[6];
+		double[] direction = {2, -4, 0, 0, 0, 0};
+
+		momentum.beginStep();
+		momentum.apply(0, params, direction, 0, 6, 1, 0.5, 0.1);
+		assertArrayEquals(new double[]{0.1, -0.2, 0, 0, 0, 0}, params, 1e-12);
+
+		// v = 0.5 * v + d
+		momentum.beginStep();
+		momentum.apply(0, params, direction, 0, 6, 1, 0.5, 0.1);
+		assertArrayEquals(new double[]{0.25, -0.5, 0, 0, 0, 0}, params, 1e-12);
+	}
+
+	@Test
+	void nesterovStepsAlongTheUpcomingVelocity() {
+		Optimizer nesterov = new Optimizer.Momentum(SIZES, 0.5, true);
+		double[] params = new double[6];
+		double[] direction = {1, 0, 0, 0, 0, 0};
+
+		nesterov.beginStep();
+		nesterov.apply(0, params, direction, 0, 6, 1, 1.0, 1.0);
+		assertEquals(1.5, params[0], 1e-12);
+		nesterov.beginStep();
+		nesterov.apply(0, params, direction, 0, 6, 1, 1.0, 1.0);
+		assertEquals(1.5 + 0.5 * 1.5 + 1, params[0], 1e-12);
+	}
+
+	@Test
+	void adamFirstStepMovesEachParameterByTheLearningRate() {
+		Optimizer adam = new Optimizer.Adam(SIZES, 0.9, 0.999);
+		double[] params = new double[6];
+
+		// Bias correction makes the first step lr * sign(gradient), whatever its magnitude
+		adam.beginStep();
+		adam.apply(0, params, new double[]{100, -0.01, 0, 3, 0, 0}, 0, 6, 1, 1.0, 0.01);
+		assertArrayEquals(new double[]{0.01, -0.01, 0, 0.01, 0, 0}, params, 1e-7);
+	}
+
+	@Test
+	void stridedUpdatesOnlyTouchTheirColumn() {
+		Optimizer adam = new Optimizer.Adam(SIZES, 0.9, 0.999);
+		double[] params = new double[6];
+		double[] direction = {1, 1, 1, 1, 1, 1};
+
+		// Column 1 of a 2 x 3 weight block
+		adam.beginStep();
+		adam.apply(0, params, direction, 1, 6, 3, 1.0, 0.1);
+		assertArrayEquals(new double[]{0, 0.1, 0, 0, 0.1, 0}, params, 1e-7);
+	}
+
+	@Test
+	void rejectsOptimizersOfAnotherArchitecture() {
+		Classifier small = new Classifier(3, new int[]{2}, 0.1, Classifier.ActivationFunction.SIGMOID);
+		Classifier large = new Classifier(4, new int[]{2}, 0.1, Classifier.ActivationFunction.SIGMOID);
+		Optimizer optimizer = Optimizer.create(Optimizer.Type.ADAM, small, 0, 0, 0);
+
+		small.setOptimizer(optimizer);
+		assertThrows(IllegalArgumentException.class, () -> large.setOptimizer(optimizer));
+		assertThrows(IllegalArgumentException.class,
+				() -> Optimizer.create(Optimizer.Type.MOMENTUM, small, 1.0, 0, 0));
+	}
+
+	@Test
+	void adamReachesALowerLossThanSgdInTheSameEpochs() {
+		Random random = new Random(4);
+		SparseVector[] inputs = new SparseVector[400];
+		int[] targets = new int[400];
+		int[] order = new int[400];
+		for (int n = 0; n < inputs.length; n++) {
+			double[] dense = new double[50];
+			for (int i = 0; i < 50; i++) {
+				if (random.nextInt(8) == 0) {
+					dense[i] = 1;
+				}
+			}
+			inputs[n] = SparseVector.fromDense(dense);
+			targets[n] = dense[0] + dense[1] + dense[2] > 0 ? 1 : 0;
+			order[n] = n;
+		}
+
+		double sgd = trainEpochs(null, inputs, targets, order);
+		double adam = trainEpochs(Optimizer.Type.ADAM, inputs, targets, order);
+		assertTrue(adam < sgd, "Adam loss " + adam + ", SGD loss " + sgd);
+	}
+
+	private static double trainEpochs(Optimizer.Type type, SparseVector[] inputs, int[] targets, int[] order) {
+		Classifier classifier = new Classifier(50, new int[]{8}, 0.01, Classifier.ActivationFunction.SIGMOID);
+		if (type != null) {
+			classifier.setOptimizer(Optimizer.create(type, classifier, 0, 0, 0));
+		}
+		BatchBuffers buffers = classifier.newBatchBuffers(16);
+		Gradients gradients = classifier.newGradients();
+		for (int epoch = 0; epoch < 10; epoch++) {
+			for (int start = 0; start < order.length; start += 16) {
+				classifier.trainBatch(inputs, targets, order, start, Math.min(start + 16, order.length),
+						buffers, gradients);
+			}
+		}
+		double loss = 0.0;
+		for (int n = 0; n < inputs.length; n++) {
+			loss += Math.pow(targets[n] - classifier.predict(inputs[n]), 2);
+		}
+		return loss / inputs.length;
+	}
+}
@@ -0,0 +1,138 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelTrainerTest {
+
+	private final Random random = new Random(9);
+	private final SparseVector[] inputs = new SparseVector[301];
+	private final int[] targets = new int[301];
+	private final int[] order = new int[301];
+
+	ParallelTrainerTest() {
+		for (int n = 0; n < inputs.length; n++) {
+			double[] dense = new double[120];
+			for (int i = 0; i < 120; i++) {
+				if (random.nextInt(10) == 0) {
+					dense[i] = random.nextInt(3);
+				}
+			}
+			inputs[n] = SparseVector.fromDense(dense);
+			targets[n] = random.nextInt(2);
+			order[n] = n;
+		}
+	}
+
+	@Test
+	void syncModeMatchesSingleThreadedMiniBatches() {
+		Classifier serial = new Classifier(120, new int[]{16, 8}, 0.2, Classifier.ActivationFunction.TANH);
+		Classifier parallel = new Classifier(120, new int[]{16, 8}, 0.2, Classifier.ActivationFunction.TANH);
+
+		BatchBuffers buffers = serial.newBatchBuffers(40);
+		Gradients gradients = serial.newGradients();
+		double serialLoss = 0.0;
+		for (int start = 0; start < order.length; start += 40) {
+			serialLoss += serial.trainBatch(inputs, targets, order, start, Math.min(start + 40, order.length),
+					buffers, gradients);
+		}
+
+		double parallelLoss;
+		try (ParallelTrainer trainer = new ParallelTrainer(parallel, ParallelTrainer.Mode.SYNC, 4, 40)) {
+			parallelLoss = trainer.runEpoch(inputs, targets, order);
+			assertTrue(trainer.getBusyNanos() > 0);
+		}
+
+		assertEquals(serialLoss, parallelLoss, 1e-9);
+		for (SparseVector input : inputs) {
+			assertEquals(serial.predict(input), parallel.predict(input), 1e-9);
+		}
+	}
+
+	@Test
+	void serialEpochsMakeTheSameUpdatesOnOneWorker() {
+		for (ParallelTrainer.Mode mode : ParallelTrainer.Mode.values()) {
+			Classifier serial = new Classifier(120, new int[]{16}, 0.2, Classifier.ActivationFunction.TANH);
+			Classifier reference = new Classifier(120, new int[]{16}, 0.2, Classifier.ActivationFunction.TANH);
+			BatchBuffers buffers = reference.newBatchBuffers(40);
+			Gradients gradients = reference.newGradients();
+			double referenceLoss = 0.0;
+			for (int start = 0; start < order.length; start += 40) {
+				referenceLoss += reference.trainBatch(inputs, targets, order, start,
+						Math.min(start + 40, order.length), buffers, gradients);
+			}
+
+			try (ParallelTrainer trainer = new ParallelTrainer(serial, mode, 4, 40)) {
+				assertEquals(referenceLoss, trainer.runSerialEpoch(inputs, targets, order), 1e-9, mode.name());
+				assertTrue(trainer.getBusyNanos() > 0);
+			}
+			for (SparseVector input : inputs) {
+				assertEquals(reference.predict(input), serial.predict(input), 1e-9, mode.name());
+			}
+		}
+	}
+
+	@Test
+	void syncModeAppliesOptimizersToTheSummedShards() {
+		Classifier serial = new Classifier(120, new int[]{16}, 0.01, Classifier.ActivationFunction.SIGMOID);
+		Classifier parallel = new Classifier(120, new int[]{16}, 0.01, Classifier.ActivationFunction.SIGMOID);
+		serial.setOptimizer(Optimizer.create(Optimizer.Type.ADAM, serial, 0, 0, 0));
+		parallel.setOptimizer(Optimizer.create(Optimizer.Type.ADAM, parallel, 0, 0, 0));
+
+		BatchBuffers buffers = serial.newBatchBuffers(40);
+		Gradients gradients = serial.newGradients();
+		try (ParallelTrainer trainer = new ParallelTrainer(parallel, ParallelTrainer.Mode.SYNC, 3, 40)) {
+			for (int epoch = 0; epoch < 2; epoch++) {
+				for (int start = 0; start < order.length; start += 40) {
+					serial.trainBatch(inputs, targets, order, start, Math.min(start + 40, order.length),
+							buffers, gradients);
+				}
+				trainer.runEpoch(inputs, targets, order);
+			}
+		}
+
+		for (SparseVector input : inputs) {
+			assertEquals(serial.predict(input), parallel.predict(input), 1e-9);
+		}
+	}
+
+	@Test
+	void syncModeDefaultBatchSizeDoesNotDependOnThreads() {
+		Classifier two = new Classifier(120, new int[]{16}, 0.2, Classifier.ActivationFunction.TANH);
+		Classifier four = new Classifier(120, new int[]{16}, 0.2, Classifier.ActivationFunction.TANH);
+		try (ParallelTrainer first = new ParallelTrainer(two, ParallelTrainer.Mode.SYNC, 2, 0);
+				ParallelTrainer second = new ParallelTrainer(four, ParallelTrainer.Mode.SYNC, 4, 1)) {
+			assertEquals(first.runEpoch(inputs, targets, order), second.runEpoch(inputs, targets, order), 1e-9);
+		}
+
+		for (SparseVector input : inputs) {
+			assertEquals(two.predict(input), four.predict(input), 1e-9);
+		}
+	}
+
+	@Test
+	void hogwildModeRejectsOptimizers() {
+		Classifier classifier = new Classifier(120, new int[]{16}, 0.1, Classifier.ActivationFunction.SIGMOID);
+		classifier.setOptimizer(Optimizer.create(Optimizer.Type.MOMENTUM, classifier, 0, 0, 0));
+		assertThrows(IllegalArgumentException.class,
+				() -> new ParallelTrainer(classifier, ParallelTrainer.Mode.HOGWILD, 2, 0));
+	}
+
+	@Test
+	void hogwildModeReducesLoss() {
+		Classifier classifier = new Classifier(120, new int[]{16}, 0.1, Classifier.ActivationFunction.SIGMOID);
+		try (ParallelTrainer trainer = new ParallelTrainer(classifier, ParallelTrainer.Mode.HOGWILD, 4, 0)) {
+			double first = trainer.runEpoch(inputs, targets, order);
+			double last = first;
+			for (int epoch = 0; epoch < 30; epoch++) {
+				last = trainer.runEpoch(inputs, targets, order);
+			}
+			assertTrue(last < first, "loss went from " + first + " to " + last);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package m2i.datamining_mlp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadScratchTest {
+
+	private final AtomicInteger created = new AtomicInteger();
+	private final ThreadScratch<ActivationBuffers> scratch = new ThreadScratch<>(ActivationBuffers::fits, sizes -> {
+		created.incrementAndGet();
+		return new ActivationBuffers(sizes);
+	}, ActivationBuffers[]::new);
+
+	@Test
+	void classifiersWithTheSameArchitectureShareBuffers() {
+		ActivationBuffers first = scratch.get(new int[]{10, 4, 1});
+		for (int n = 0; n < 100; n++) {
+			// A fresh array each time, as every new classifier has its own layer widths
+			assertSame(first, scratch.get(new int[]{10, 4, 1}));
+		}
+		assertEquals(1, created.get());
+	}
+
+	@Test
+	void keepsOnlyTheMostRecentlyUsedArchitectures() {
+		List<ActivationBuffers> buffers = new ArrayList<>();
+		for (int width = 1; width <= ThreadScratch.SLOTS; width++) {
+			buffers.add(scratch.get(new int[]{10, width, 1}));
+		}
+		scratch.get(new int[]{10, 1, 1}); // width 2 is now the least recently used
+		scratch.get(new int[]{10, 99, 1});
+
+		assertSame(buffers.get(0), scratch.get(new int[]{10, 1, 1}));
+		assertSame(buffers.get(2), scratch.get(new int[]{10, 3, 1}));
+		assertEquals(ThreadScratch.SLOTS + 1, created.get());
+		assertNotSame(buffers.get(1), scratch.get(new int[]{10, 2, 1}));
+		assertEquals(ThreadScratch.SLOTS + 2, created.get());
+	}
+
+	@Test
+	void threadsDoNotShareBuffers() throws Exception {
+		ActivationBuffers mine = scratch.get(new int[]{10, 4, 1});
+		ActivationBuffers[] theirs = new ActivationBuffers[1];
+		Thread other = new Thread(() -> theirs[0] = scratch.get(new int[]{10, 4, 1}));
+		other.start();
+		other.join();
+		assertNotSame(mine, theirs[0]);
+	}
+}
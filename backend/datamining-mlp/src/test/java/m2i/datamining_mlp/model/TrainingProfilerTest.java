@@ -0,0 +1,102 @@
+package m2i.datamining_mlp.model;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingProfilerTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void reportsOnlyThePhasesThatRan() {
+		TrainingProfiler profiler = new TrainingProfiler(2);
+		long start = System.nanoTime();
+		long end = profiler.lap(TrainingProfiler.Phase.FORWARD, 1, start - 4_000_000);
+		assertTrue(end >= start);
+		profiler.lap(TrainingProfiler.Phase.SHUFFLE, end - 1_000_000);
+		profiler.addSamples(TrainingProfiler.Phase.FORWARD, 8);
+
+		// In the order the phases run within an epoch
+		List<TrainingResponse.PhaseTime> report = profiler.report();
+		assertEquals(2, report.size());
+		assertEquals("SHUFFLE", report.get(0).getPhase());
+		assertNull(report.get(0).getLayer());
+		TrainingResponse.PhaseTime forward = report.get(1);
+		assertEquals("FORWARD", forward.getPhase());
+		assertEquals(1, forward.getLayer());
+		assertEquals(8, forward.getSamples());
+		assertTrue(forward.getTimeMs() >= 4);
+		assertEquals(forward.getSamples() / forward.getTimeMs() * 1000, forward.getSamplesPerSecond(), 1e-6);
+	}
+
+	@Test
+	void profilesTrainingOneLayerAtATime() {
+		Classifier classifier = new Classifier(5, new int[]{4}, 0.1, Classifier.ActivationFunction.RELU);
+		assertThrows(IllegalArgumentException.class, () -> classifier.setProfiler(new TrainingProfiler(3)));
+
+		TrainingProfiler profiler = new TrainingProfiler(2);
+		classifier.setProfiler(profiler);
+		classifier.trainSample(new double[]{1, 0, 2, 0, 1}, 1);
+		double[][] inputs = {{1, 0, 0, 0, 0}, {0, 1, 0, 0, 0}, {0, 0, 1, 0, 0}};
+		classifier.trainBatch(inputs, new int[]{1, 0, 1}, new int[]{0, 1, 2}, 0, 3,
+				classifier.newBatchBuffers(3), classifier.newGradients());
+		// Predictions are not training work
+		classifier.predictBatch(new SparseVector[]{SparseVector.fromDense(inputs[0])});
+
+		List<TrainingResponse.PhaseTime> report = profiler.report();
+		for (TrainingProfiler.Phase phase : List.of(TrainingProfiler.Phase.FORWARD, TrainingProfiler.Phase.BACKWARD,
+				TrainingProfiler.Phase.UPDATE)) {
+			for (int layer = 0; layer < 2; layer++) {
+				int l = layer;
+				assertEquals(4, report.stream()
+						.filter(p -> p.getPhase().equals(phase.name()) && p.getLayer() == l)
+						.findFirst().orElseThrow().getSamples(), phase + " " + l);
+			}
+		}
+	}
+
+	@Test
+	void emitsOneEventPerPhaseAndEpochWhileRecording() throws Exception {
+		Path file = dir.resolve("training.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(TrainingPhaseEvent.class);
+			recording.start();
+			assertTrue(TrainingProfiler.isRecording());
+
+			TrainingProfiler profiler = new TrainingProfiler(1);
+			for (int epoch = 0; epoch < 2; epoch++) {
+				profiler.lap(TrainingProfiler.Phase.UPDATE, 0, System.nanoTime() - 1_000);
+				profiler.addSamples(TrainingProfiler.Phase.UPDATE, 10);
+				profiler.endEpoch(epoch);
+			}
+			// Nothing new since the last epoch
+			profiler.endEpoch(-1);
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+				.filter(e -> e.getEventType().getName().equals("m2i.datamining_mlp.TrainingPhase"))
+				.toList();
+		assertEquals(2, events.size());
+		for (int epoch = 0; epoch < 2; epoch++) {
+			RecordedEvent event = events.get(epoch);
+			assertEquals(epoch, event.getInt("epoch"));
+			assertEquals("UPDATE", event.getString("phase"));
+			assertEquals(0, event.getInt("layer"));
+			assertEquals(10, event.getLong("samples"));
+			assertTrue(event.getDuration("time").toNanos() >= 1_000);
+		}
+	}
+}
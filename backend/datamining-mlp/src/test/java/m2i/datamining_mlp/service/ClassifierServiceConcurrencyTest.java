@@ -0,0 +1,87 @@
+package m2i.datamining_mlp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import m2i.datamining_mlp.DTO.TrainingRequest;
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import m2i.datamining_mlp.dataset.LabeledDataset;
+import m2i.datamining_mlp.model.SparseVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassifierServiceConcurrencyTest {
+
+	private static final int FEATURES = 40;
+
+	private static LabeledDataset syntheticDataset(int rows) {
+		return TestDatasets.labeled(rows, FEATURES, 7, (column, label) -> column < FEATURES / 2 ? label : 0);
+	}
+
+	@Test
+	void predictionsDuringTrainingOnlySeePublishedModels() throws Exception {
+		ClassifierService service = TestDatasets.classifierService(syntheticDataset(400), new SimpleMeterRegistry());
+
+		TrainingRequest request = new TrainingRequest();
+		request.setHiddenSizes(new int[]{8});
+		request.setActivationFunction("TANH");
+		request.setLearningRate(0.05);
+		request.setEpochs(20);
+		assertEquals("success", service.trainModel(request).getStatus());
+
+		SparseVector input = syntheticDataset(1).features().row(0);
+
+		// Each published version must always give the same score: its weights never change after publication
+		Map<Long, Double> scoreByVersion = new ConcurrentHashMap<>();
+		AtomicBoolean training = new AtomicBoolean(true);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread reader = new Thread(() -> {
+				long lastVersion = 0;
+				try {
+					while (training.get()) {
+						ModelSnapshot snapshot = service.getCurrentModel().orElseThrow();
+						assertTrue(snapshot.version() >= lastVersion, "versions never go back");
+						lastVersion = snapshot.version();
+						assertNotNull(snapshot.metrics());
+
+						double score = snapshot.classifier().predict(input);
+						Double previous = scoreByVersion.putIfAbsent(snapshot.version(), score);
+						assertEquals(previous == null ? score : previous, score, 0.0);
+
+						Map<String, Object> result = service.predictEmail(input);
+						assertNull(result.get("error"));
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			reader.start();
+			readers.add(reader);
+		}
+
+		try {
+			for (int run = 0; run < 5; run++) {
+				TrainingResponse response = service.trainModel(request);
+				assertEquals("success", response.getStatus());
+			}
+		} finally {
+			training.set(false);
+			for (Thread reader : readers) {
+				reader.join();
+			}
+		}
+		if (failure.get() != null) {
+			fail(failure.get());
+		}
+		assertEquals(6, service.getCurrentModel().orElseThrow().version());
+		assertSame(service.getCurrentModel().orElseThrow().metrics(), service.getLastTrainingMetrics());
+	}
+}
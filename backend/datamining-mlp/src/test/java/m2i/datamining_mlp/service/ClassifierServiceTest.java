@@ -0,0 +1,244 @@
+package m2i.datamining_mlp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import m2i.datamining_mlp.DTO.TrainingRequest;
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import m2i.datamining_mlp.dataset.DatasetCache;
+import m2i.datamining_mlp.dataset.LabeledDataset;
+import m2i.datamining_mlp.model.SparseVector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClassifierServiceTest {
+
+	private static final int FEATURES = 10;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ClassifierService service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LabeledDataset dataset = TestDatasets.labeled(250, FEATURES, 3, (column, label) -> column % 2 == label ? 1 : 0);
+		service = TestDatasets.classifierService(dataset, meterRegistry);
+	}
+
+	private static TrainingRequest request(int epochs) {
+		TrainingRequest request = new TrainingRequest(new int[]{6}, "TANH", 0.05, epochs);
+		request.setBatchSize(8);
+		return request;
+	}
+
+	@Test
+	void runsEveryEpochWithoutAValidationSplit() {
+		TrainingResponse response = service.trainModel(request(7));
+		assertEquals("success", response.getStatus(), response.getMessage());
+		assertEquals(7, response.getEpochsRun());
+		assertFalse(response.isStoppedEarly());
+		assertNull(response.getBestEpoch());
+		assertEquals(0, response.getTimeSavedMs());
+		assertEquals(200, response.getMetrics().getTrainSize());
+		assertEquals(1.0, response.getSpeedup());
+	}
+
+	@Test
+	void stopsWhenTheValidationLossStopsImproving() {
+		TrainingRequest request = request(500);
+		request.setValidationFraction(0.25);
+		request.setPatience(3);
+		request.setMinDelta(1.0); // no epoch can improve by this much, so the first one stays the best
+
+		TrainingResponse response = service.trainModel(request);
+		assertEquals("success", response.getStatus(), response.getMessage());
+		assertTrue(response.isStoppedEarly());
+		assertEquals(4, response.getEpochsRun());
+		assertEquals(0, response.getBestEpoch());
+		assertNotNull(response.getBestValidationLoss());
+		assertEquals(150, response.getMetrics().getTrainSize());
+		assertEquals(3, response.getEpochLosses().get(response.getEpochLosses().size() - 1).getEpoch());
+	}
+
+	@Test
+	void validationIsCheckedEveryIntervalEpochs() {
+		TrainingRequest request = request(500);
+		request.setValidationFraction(0.25);
+		request.setValidationInterval(5);
+		request.setPatience(1);
+		request.setMinDelta(1.0);
+
+		// First check after epoch 4, the next one after epoch 9 ends the run
+		TrainingResponse response = service.trainModel(request);
+		assertEquals(10, response.getEpochsRun());
+		assertEquals(4, response.getBestEpoch());
+	}
+
+	@Test
+	void rejectsInvalidValidationSettings() {
+		TrainingRequest request = request(5);
+		request.setValidationFraction(1.0);
+		assertEquals("error", service.trainModel(request).getStatus());
+		request.setValidationFraction(0.2);
+		request.setPatience(-1);
+		assertEquals("error", service.trainModel(request).getStatus());
+	}
+
+	@Test
+	void trainsPerSampleWithAnOptimizerAndASchedule() {
+		TrainingRequest request = request(6);
+		request.setBatchSize(0);
+		request.setLearningRate(0.01);
+		request.setOptimizer("adam");
+		request.setLearningRateSchedule("cosine");
+
+		TrainingResponse response = service.trainModel(request);
+		assertEquals("success", response.getStatus(), response.getMessage());
+		assertTrue(response.getMetrics().getAccuracy() > 0.8, "accuracy " + response.getMetrics().getAccuracy());
+		// The published model keeps the requested rate rather than the last scheduled one
+		assertEquals(0.01, service.getCurrentModel().orElseThrow().classifier().getLearningRate());
+	}
+
+	@Test
+	void rejectsInvalidOptimizerSettings() {
+		TrainingRequest request = request(5);
+		request.setOptimizer("rmsprop");
+		assertEquals("error", service.trainModel(request).getStatus());
+		request.setOptimizer("momentum");
+		request.setLearningRateSchedule("linear");
+		assertEquals("error", service.trainModel(request).getStatus());
+	}
+
+	@Test
+	void crossValidationReportsTheSpreadOverFoldsWithoutPublishing() {
+		TrainingRequest request = request(5);
+		request.setFolds(5);
+
+		TrainingResponse response = service.trainModel(request);
+		assertEquals("success", response.getStatus(), response.getMessage());
+		TrainingResponse.TrainingMetrics metrics = response.getMetrics();
+		assertEquals(5, metrics.getFolds());
+		assertEquals(200, metrics.getTrainSize());
+		assertEquals(50, metrics.getTestSize());
+		assertEquals(5, metrics.getFoldAccuracies().length);
+		assertEquals(Arrays.stream(metrics.getFoldAccuracies()).average().orElseThrow(),
+				metrics.getAccuracy(), 1e-12);
+		assertTrue(metrics.getAccuracyStdDev() >= 0);
+		assertNotNull(metrics.getSpamDetectionRateStdDev());
+		assertEquals(5, response.getEpochsRun());
+		assertTrue(response.getSpeedup() > 0);
+		assertTrue(service.getCurrentModel().isEmpty());
+	}
+
+	@Test
+	void rejectsInvalidFoldCounts() {
+		TrainingRequest request = request(5);
+		request.setFolds(-1);
+		assertEquals("error", service.trainModel(request).getStatus());
+		request.setFolds(251);
+		assertEquals("error", service.trainModel(request).getStatus());
+	}
+
+	@Test
+	void profileReportsEveryPhaseOfTheEpochLoop() {
+		TrainingRequest request = request(3);
+		request.setHiddenSizes(new int[]{6, 4});
+		request.setValidationFraction(0.25);
+		assertNull(service.trainModel(request).getProfile());
+
+		request.setProfile(true);
+		TrainingResponse response = service.trainModel(request);
+		assertEquals("success", response.getStatus(), response.getMessage());
+		List<TrainingResponse.PhaseTime> profile = response.getProfile();
+		for (String phase : List.of("LOAD", "SPLIT", "SHUFFLE", "VALIDATION", "EVALUATION")) {
+			assertTrue(profile.stream().anyMatch(p -> p.getPhase().equals(phase) && p.getLayer() == null), phase);
+		}
+		// Three weight layers, each timed in both directions, over 3 epochs of 150 samples
+		for (String phase : List.of("FORWARD", "BACKWARD", "UPDATE")) {
+			for (int layer = 0; layer < 3; layer++) {
+				int l = layer;
+				TrainingResponse.PhaseTime time = profile.stream()
+						.filter(p -> p.getPhase().equals(phase) && Integer.valueOf(l).equals(p.getLayer()))
+						.findFirst().orElseThrow(() -> new AssertionError(phase + " " + l));
+				assertEquals(450, time.getSamples());
+				assertTrue(time.getTimeMs() > 0);
+			}
+		}
+		assertFalse(profile.stream().anyMatch(p -> p.getPhase().equals("PARALLEL")));
+		assertNull(service.getCurrentModel().orElseThrow().classifier().getProfiler());
+	}
+
+	@Test
+	void predictionsAreTimedAndCountedPerPhase() {
+		assertTrue(Double.isNaN(meterRegistry.get("classifier.model.parameters").tag("model", "trained").gauge().value()));
+		assertEquals("success", service.trainModel(request(2)).getStatus());
+		assertEquals(FEATURES * 6 + 6 + 6 + 1,
+				meterRegistry.get("classifier.model.parameters").tag("model", "trained").gauge().value());
+
+		service.textToSparseFeatureVector("the deal");
+		service.textsToSparseFeatureVectors(List.of("a", "b", "c"));
+		SparseVector email = SparseVector.fromDense(new double[FEATURES]);
+		SparseVector other = new SparseVector(FEATURES, new int[]{1}, new double[]{2});
+		service.predictEmail(email);
+		service.predictEmails(new SparseVector[]{other, other, other});
+
+		assertEquals(1, meterRegistry.get("classifier.tokenize").tag("mode", "single").timer().count());
+		assertEquals(1, meterRegistry.get("classifier.tokenize").tag("mode", "batch").timer().count());
+		assertEquals(2, meterRegistry.get("classifier.model.lookup").tag("model", "trained").timer().count());
+		assertEquals(1, meterRegistry.get("classifier.forward").tags("model", "trained", "mode", "batch").timer().count());
+		double verdicts = meterRegistry.get("classifier.verdicts").tag("model", "trained").counters().stream()
+				.mapToDouble(counter -> counter.count()).sum();
+		assertEquals(4, verdicts);
+	}
+
+	@Test
+	void scrapingTheModelGaugesNeverLoadsThePretrainedModel() {
+		PretrainedModelCache pretrainedModelCache = mock(PretrainedModelCache.class);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new ClassifierService(pretrainedModelCache, mock(DatasetCache.class), mock(ModelRegistry.class),
+				new ClassifierMetrics(registry), 0, 0);
+
+		assertTrue(Double.isNaN(registry.get("classifier.model.parameters").tag("model", "pretrained").gauge().value()));
+		verify(pretrainedModelCache).peek();
+		verify(pretrainedModelCache, never()).get();
+	}
+
+	@Test
+	void repeatedEmailsAreServedFromTheCacheUntilTheModelChanges() {
+		assertEquals("success", service.trainModel(request(2)).getStatus());
+		SparseVector email = new SparseVector(FEATURES, new int[]{0, 3}, new double[]{1, 2});
+		SparseVector sameCounts = new SparseVector(FEATURES, new int[]{0, 3}, new double[]{1, 2});
+		SparseVector other = new SparseVector(FEATURES, new int[]{4}, new double[]{1});
+
+		double first = (double) service.predictEmail(email).get("prediction");
+		assertEquals(first, service.predictEmail(sameCounts).get("prediction"));
+		@SuppressWarnings("unchecked")
+		List<Map<String, Object>> batch = (List<Map<String, Object>>) service
+				.predictEmails(new SparseVector[]{other, email}).get("predictions");
+		assertEquals(first, batch.get(1).get("prediction"));
+		assertEquals(1, meterRegistry.get("classifier.forward").tags("model", "trained", "mode", "single").timer().count());
+		assertEquals(1, meterRegistry.get("classifier.forward").tags("model", "trained", "mode", "batch").timer().count());
+
+		PredictionCache.Stats stats = service.getPredictionCacheStats().get("trained");
+		assertEquals(2, stats.hits());
+		assertEquals(2, stats.misses());
+		assertEquals(2, stats.entries());
+		assertEquals(0.5, stats.hitRate());
+		assertEquals(2.0, meterRegistry.get("classifier.prediction.cache.gets")
+				.tags("model", "trained", "result", "hit").functionCounter().count());
+
+		// A new model starts from an empty cache
+		TrainingRequest retrain = request(3);
+		retrain.setLearningRate(0.5);
+		assertEquals("success", service.trainModel(retrain).getStatus());
+		assertEquals(0, service.getPredictionCacheStats().get("trained").entries());
+		double retrained = (double) service.predictEmail(email).get("prediction");
+		assertEquals(service.getCurrentModel().orElseThrow().classifier().predict(email), retrained);
+		assertNotEquals(first, retrained);
+		assertEquals(3, service.getPredictionCacheStats().get("trained").misses());
+	}
+}
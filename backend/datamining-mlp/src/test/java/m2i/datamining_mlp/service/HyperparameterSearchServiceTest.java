@@ -0,0 +1,124 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.DTO.SearchRequest;
+import m2i.datamining_mlp.DTO.SearchResponse;
+import m2i.datamining_mlp.dataset.LabeledDataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperparameterSearchServiceTest {
+
+	private static final int FEATURES = 12;
+
+	private HyperparameterSearchService service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// The first half of the features count higher in positive rows, the second half in negative ones
+		LabeledDataset dataset = TestDatasets.labeled(300, FEATURES, 11,
+				(column, label) -> column < FEATURES / 2 ? label : 1 - label);
+		service = new HyperparameterSearchService(TestDatasets.datasetCache(dataset), 2, 16, 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void roundsNarrowCandidatesDownToOne() {
+		assertEquals(1, HyperparameterSearchService.roundCount(1, 3));
+		assertEquals(2, HyperparameterSearchService.roundCount(3, 3));
+		assertEquals(3, HyperparameterSearchService.roundCount(4, 3));
+		assertEquals(3, HyperparameterSearchService.roundCount(4, 2));
+		assertEquals(4, HyperparameterSearchService.roundCount(27, 3));
+	}
+
+	@Test
+	void gridSearchRanksFinalistsFirst() throws Exception {
+		SearchRequest request = new SearchRequest();
+		request.setHiddenSizes(List.of(new int[]{4}, new int[]{8, 4}));
+		request.setActivationFunctions(List.of("tanh"));
+		request.setLearningRates(List.of(0.0001, 0.05));
+		request.setEpochs(8);
+		request.setBatchSize(16);
+		request.setReductionFactor(2);
+
+		SearchResponse response = service.search(request).get(30, TimeUnit.SECONDS);
+		assertEquals("success", response.getStatus(), response.getMessage());
+		assertEquals(4, response.getCandidates());
+		assertEquals(3, response.getRounds());
+
+		List<SearchResponse.CandidateResult> leaderboard = response.getLeaderboard();
+		assertEquals(4, leaderboard.size());
+		// 4 candidates train 2 epochs, 2 continue to 4, and the winner reaches 8
+		assertEquals(8, leaderboard.get(0).getEpochsTrained());
+		assertEquals(3, leaderboard.get(0).getRoundsCompleted());
+		assertEquals(4, leaderboard.get(1).getEpochsTrained());
+		assertEquals(2, leaderboard.get(2).getEpochsTrained());
+		assertEquals(2, leaderboard.get(3).getEpochsTrained());
+		assertTrue(leaderboard.get(2).getValidationLoss() <= leaderboard.get(3).getValidationLoss());
+		assertEquals(0.05, leaderboard.get(0).getLearningRate());
+		assertTrue(leaderboard.get(0).getValidationAccuracy() > 0.9);
+		for (int i = 0; i < leaderboard.size(); i++) {
+			assertEquals(i + 1, leaderboard.get(i).getRank());
+		}
+	}
+
+	@Test
+	void randomSearchDrawsLearningRatesFromTheRange() throws Exception {
+		SearchRequest request = new SearchRequest();
+		request.setStrategy("random");
+		request.setHiddenSizes(List.of(new int[]{4}));
+		request.setMinLearningRate(0.001);
+		request.setMaxLearningRate(0.1);
+		request.setSamples(5);
+		request.setEpochs(3);
+		request.setSeed(5L);
+
+		SearchResponse response = service.search(request).get(30, TimeUnit.SECONDS);
+		assertEquals("success", response.getStatus(), response.getMessage());
+		assertEquals(5, response.getLeaderboard().size());
+		for (SearchResponse.CandidateResult result : response.getLeaderboard()) {
+			assertTrue(result.getLearningRate() >= 0.001 && result.getLearningRate() <= 0.1);
+			assertEquals("SIGMOID", result.getActivationFunction());
+		}
+	}
+
+	@Test
+	void seededSearchesAreRepeatable() throws Exception {
+		SearchRequest request = new SearchRequest();
+		request.setHiddenSizes(List.of(new int[]{4}, new int[]{6}));
+		request.setLearningRates(List.of(0.05));
+		request.setEpochs(4);
+		request.setSeed(11L);
+
+		List<SearchResponse.CandidateResult> first = service.search(request).get(30, TimeUnit.SECONDS).getLeaderboard();
+		List<SearchResponse.CandidateResult> second = service.search(request).get(30, TimeUnit.SECONDS).getLeaderboard();
+		assertEquals(first.size(), second.size());
+		for (int i = 0; i < first.size(); i++) {
+			assertArrayEquals(first.get(i).getHiddenSizes(), second.get(i).getHiddenSizes());
+			assertEquals(first.get(i).getValidationLoss(), second.get(i).getValidationLoss());
+		}
+	}
+
+	@Test
+	void invalidSpacesAreRejectedBeforeTraining() throws Exception {
+		SearchRequest request = new SearchRequest();
+		request.setHiddenSizes(List.of(new int[]{4}, new int[]{8}, new int[]{16}));
+		request.setActivationFunctions(List.of("SIGMOID", "TANH", "RELU"));
+		request.setLearningRates(List.of(0.01, 0.1));
+		request.setEpochs(1);
+		assertEquals("error", service.search(request).get().getStatus());
+
+		request.setLearningRates(List.of(0.01));
+		request.setActivationFunctions(List.of("SOFTMAX"));
+		assertEquals("error", service.search(request).get().getStatus());
+	}
+}
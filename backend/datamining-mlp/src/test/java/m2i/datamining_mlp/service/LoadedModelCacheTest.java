@@ -0,0 +1,95 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.model.Classifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadedModelCacheTest {
+
+	// (10 + 1) * 4 + (4 + 1) * 1 = 49 parameters, 392 bytes
+	private static Classifier small() {
+		return new Classifier(10, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH);
+	}
+
+	@Test
+	void weightCountsEveryParameter() {
+		assertEquals(49 * Double.BYTES, LoadedModelCache.weightOf(small()));
+	}
+
+	@Test
+	void hitsAvoidLoadingAndAreCounted() {
+		LoadedModelCache cache = new LoadedModelCache(10_000);
+		AtomicInteger loads = new AtomicInteger();
+		Classifier first = cache.get("a@1", () -> {
+			loads.incrementAndGet();
+			return small();
+		});
+		assertSame(first, cache.get("a@1", () -> {
+			loads.incrementAndGet();
+			return small();
+		}));
+		assertNull(cache.get("missing@1", () -> null));
+
+		assertEquals(1, loads.get());
+		LoadedModelCache.Stats stats = cache.stats();
+		assertEquals(1, stats.hits());
+		assertEquals(2, stats.misses());
+		assertEquals(1, stats.entries());
+		assertEquals(392, stats.weightBytes());
+		assertEquals(1.0 / 3, stats.hitRate(), 1e-12);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedByWeight() {
+		AtomicLong now = new AtomicLong();
+		LoadedModelCache cache = new LoadedModelCache(2 * 392, now::incrementAndGet);
+		Classifier a = cache.get("a", LoadedModelCacheTest::small);
+		cache.get("b", LoadedModelCacheTest::small);
+		cache.get("a", LoadedModelCacheTest::small); // b is now the eldest
+		cache.get("c", LoadedModelCacheTest::small);
+
+		assertEquals(1, cache.stats().evictions());
+		assertEquals(2, cache.stats().entries());
+		assertSame(a, cache.get("a", LoadedModelCacheTest::small));
+		Classifier reloadedB = small();
+		assertSame(reloadedB, cache.get("b", () -> reloadedB));
+	}
+
+	@Test
+	void concurrentHitsAndLoadsStayWithinTheBudget() throws Exception {
+		LoadedModelCache cache = new LoadedModelCache(3 * 392);
+		Classifier shared = cache.get("shared", LoadedModelCacheTest::small);
+		Thread[] readers = new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			int id = t;
+			readers[t] = new Thread(() -> {
+				for (int n = 0; n < 500; n++) {
+					assertNotNull(cache.get("model-" + id + "-" + (n % 10), LoadedModelCacheTest::small));
+					cache.get("shared", LoadedModelCacheTest::small);
+				}
+			});
+			readers[t].start();
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		LoadedModelCache.Stats stats = cache.stats();
+		assertTrue(stats.weightBytes() <= 3 * 392, "weight " + stats.weightBytes());
+		assertEquals(stats.entries() * 392L, stats.weightBytes());
+		assertEquals(4_001, stats.hits() + stats.misses());
+		assertNotNull(shared);
+	}
+
+	@Test
+	void modelsLargerThanTheBudgetAreServedUncached() {
+		LoadedModelCache cache = new LoadedModelCache(100);
+		assertNotNull(cache.get("big", LoadedModelCacheTest::small));
+		assertEquals(0, cache.stats().entries());
+		assertEquals(0, cache.stats().weightBytes());
+	}
+}
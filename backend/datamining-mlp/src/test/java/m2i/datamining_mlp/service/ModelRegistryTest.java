@@ -0,0 +1,99 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.PretrainedModel;
+import m2i.datamining_mlp.repository.PretrainedModelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ModelRegistryTest {
+
+	private PretrainedModelRepository repository;
+	private MongoTemplate mongoTemplate;
+	private ModelRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(PretrainedModelRepository.class);
+		mongoTemplate = mock(MongoTemplate.class);
+		registry = new ModelRegistry(repository, mongoTemplate, mock(GridFsTemplate.class), false, 1, 60_000);
+	}
+
+	private static Classifier classifier() {
+		return new Classifier(20, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH);
+	}
+
+	private void latestStoredRevision(Integer revision) {
+		PretrainedModel latest = null;
+		if (revision != null) {
+			latest = new PretrainedModel();
+			latest.setRevision(revision);
+		}
+		when(mongoTemplate.findOne(any(Query.class), eq(PretrainedModel.class))).thenReturn(latest);
+	}
+
+	@Test
+	void registeringCreatesTheNextRevision() {
+		latestStoredRevision(2);
+		PretrainedModel saved = registry.register("tenant-a", classifier(), null);
+
+		assertEquals("tenant-a@3", saved.getId());
+		assertEquals("tenant-a", saved.getName());
+		assertEquals(3, saved.getRevision());
+		assertNull(saved.getModelData());
+		verify(mongoTemplate).insert(any(PretrainedModel.class));
+	}
+
+	@Test
+	void aRevisionTakenConcurrentlyMovesToTheNextOne() {
+		when(mongoTemplate.insert(any(PretrainedModel.class)))
+				.thenThrow(new DuplicateKeyException("tenant-a@1"))
+				.thenAnswer(call -> call.getArgument(0));
+		when(mongoTemplate.findOne(any(Query.class), eq(PretrainedModel.class)))
+				.thenReturn(null)
+				.thenAnswer(call -> {
+					PretrainedModel latest = new PretrainedModel();
+					latest.setRevision(1);
+					return latest;
+				});
+
+		assertEquals(2, registry.register("tenant-a", classifier(), null).getRevision());
+	}
+
+	@Test
+	void loadedModelsAreCachedAndLatestIsResolved() {
+		Classifier classifier = classifier();
+		PretrainedModel stored = new PretrainedModel(classifier, null);
+		when(repository.findByNameAndRevision("tenant-a", 4)).thenReturn(Optional.of(stored));
+		latestStoredRevision(4);
+
+		ModelRegistry.ResolvedModel latest = registry.find("tenant-a", null).orElseThrow();
+		assertEquals(4, latest.revision());
+		assertEquals(classifier.predict(new double[20]), latest.classifier().predict(new double[20]), 1e-12);
+		assertSame(latest.classifier(), registry.find("tenant-a", 4).orElseThrow().classifier());
+
+		verify(repository, times(1)).findByNameAndRevision("tenant-a", 4);
+		assertEquals(1, registry.cacheStats().hits());
+		assertEquals(1, registry.cacheStats().misses());
+	}
+
+	@Test
+	void unknownModelsAndInvalidNames() {
+		latestStoredRevision(null);
+		assertTrue(registry.find("tenant-b", null).isEmpty());
+		assertTrue(registry.find("tenant-b", 1).isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> registry.find("../etc", null));
+		assertThrows(IllegalArgumentException.class, () -> registry.register("a b", classifier(), null));
+	}
+}
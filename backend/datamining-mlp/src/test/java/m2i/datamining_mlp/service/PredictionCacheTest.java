@@ -0,0 +1,132 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.SparseVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PredictionCacheTest {
+
+	private static final Classifier MODEL = new Classifier(8, new int[]{2}, 0.1, Classifier.ActivationFunction.RELU);
+
+	private static SparseVector email(int word, double count) {
+		return new SparseVector(8, new int[]{word}, new double[]{count});
+	}
+
+	@Test
+	void keysOnTheFeatureCountsNotTheVectorInstance() {
+		PredictionCache cache = new PredictionCache(10, 0, () -> MODEL);
+		assertTrue(Double.isNaN(cache.get(MODEL, email(1, 2))));
+		cache.put(MODEL, email(1, 2), 0.9);
+
+		assertEquals(0.9, cache.get(MODEL, email(1, 2)));
+		assertTrue(Double.isNaN(cache.get(MODEL, email(1, 3))));
+		assertTrue(Double.isNaN(cache.get(MODEL, email(2, 2))));
+		// A view over a slice of larger arrays equals a standalone copy
+		SparseVector row = SparseVector.fromDense(new double[]{0, 2, 0, 0, 0, 0, 0, 0});
+		assertEquals(email(1, 2), row);
+		assertEquals(email(1, 2).hashCode(), row.hashCode());
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedTenthBeyondTheSizeLimit() {
+		AtomicLong now = new AtomicLong();
+		PredictionCache cache = new PredictionCache(20, 0, () -> MODEL, now::get);
+		for (int word = 0; word < 8; word++) {
+			for (int count = 1; count <= 2; count++) {
+				now.incrementAndGet();
+				cache.get(MODEL, email(word, count));
+				cache.put(MODEL, email(word, count), word);
+			}
+		}
+		cache.get(MODEL, email(0, 1)); // the eldest three are now (0, 2), (1, 1) and (1, 2)
+		for (int count = 1; count <= 5; count++) {
+			now.incrementAndGet();
+			cache.put(MODEL, email(0, count + 2), 0);
+		}
+
+		// The 21st entry trims the cache to 18 by dropping the three least recently read
+		assertEquals(18, cache.stats().entries());
+		assertEquals(3, cache.stats().evictions());
+		assertEquals(0.0, cache.get(MODEL, email(0, 1)));
+		assertTrue(Double.isNaN(cache.get(MODEL, email(0, 2))));
+		assertTrue(Double.isNaN(cache.get(MODEL, email(1, 1))));
+		assertTrue(Double.isNaN(cache.get(MODEL, email(1, 2))));
+		assertEquals(2.0, cache.get(MODEL, email(2, 1)));
+	}
+
+	@Test
+	void expiresEntriesAfterTheTtl() {
+		AtomicLong now = new AtomicLong();
+		PredictionCache cache = new PredictionCache(10, 1_000, () -> MODEL, now::get);
+		cache.get(MODEL, email(1, 1));
+		cache.put(MODEL, email(1, 1), 0.3);
+
+		now.set(1_000_000_000L);
+		assertEquals(0.3, cache.get(MODEL, email(1, 1)));
+		now.set(1_000_000_001L);
+		assertTrue(Double.isNaN(cache.get(MODEL, email(1, 1))));
+		assertEquals(new PredictionCache.Stats(1, 2, 1, 0, 0, 10), cache.stats());
+	}
+
+	@Test
+	void aNewModelStartsAnEmptyCacheThatStaleRequestsCannotTouch() {
+		Classifier retrained = new Classifier(8, new int[]{2}, 0.1, Classifier.ActivationFunction.RELU);
+		AtomicReference<Classifier> serving = new AtomicReference<>(MODEL);
+		PredictionCache cache = new PredictionCache(10, 0, serving::get);
+		cache.get(MODEL, email(1, 1));
+		cache.put(MODEL, email(1, 1), 0.3);
+
+		serving.set(retrained);
+		assertTrue(Double.isNaN(cache.get(retrained, email(1, 1))));
+		assertEquals(1, cache.stats().clears());
+		cache.put(retrained, email(1, 1), 0.6);
+
+		// A request that still holds the old model misses, and neither rebinds the cache nor stores its score
+		assertTrue(Double.isNaN(cache.get(MODEL, email(1, 1))));
+		cache.put(MODEL, email(2, 1), 0.4);
+		assertEquals(0.6, cache.get(retrained, email(1, 1)));
+		assertEquals(1, cache.stats().entries());
+		assertEquals(1, cache.stats().clears());
+
+		cache.clear();
+		cache.put(retrained, email(1, 1), 0.6);
+		assertEquals(0, cache.stats().entries());
+	}
+
+	@Test
+	void staysBoundedUnderConcurrentInserts() throws Exception {
+		PredictionCache cache = new PredictionCache(100, 0, () -> MODEL);
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			int offset = t * 1_000;
+			writers[t] = new Thread(() -> {
+				for (int count = 1; count <= 1_000; count++) {
+					SparseVector email = email(offset % 8, offset + count);
+					if (Double.isNaN(cache.get(MODEL, email))) {
+						cache.put(MODEL, email, 0.5);
+					}
+				}
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		PredictionCache.Stats stats = cache.stats();
+		assertTrue(stats.entries() <= 100 + writers.length, "entries: " + stats.entries());
+		assertEquals(4_000, stats.misses());
+		assertEquals(4_000 - stats.entries(), stats.evictions());
+	}
+
+	@Test
+	void rejectsInvalidLimits() {
+		assertThrows(IllegalArgumentException.class, () -> new PredictionCache(0, 0, () -> MODEL));
+		assertThrows(IllegalArgumentException.class, () -> new PredictionCache(1, -1, () -> MODEL));
+	}
+}
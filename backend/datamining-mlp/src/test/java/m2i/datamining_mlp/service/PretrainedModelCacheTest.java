@@ -0,0 +1,245 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.model.Classifier;
+import m2i.datamining_mlp.model.ModelCodec;
+import m2i.datamining_mlp.model.PretrainedModel;
+import m2i.datamining_mlp.repository.PretrainedModelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PretrainedModelCacheTest {
+
+	private PretrainedModelRepository repository;
+	private MongoTemplate mongoTemplate;
+	private GridFsTemplate gridFsTemplate;
+	private PretrainedModelCache cache;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(PretrainedModelRepository.class);
+		mongoTemplate = mock(MongoTemplate.class);
+		gridFsTemplate = mock(GridFsTemplate.class);
+		cache = new PretrainedModelCache(repository, mongoTemplate, gridFsTemplate, false, "");
+	}
+
+	private static PretrainedModel storedModel(long version) {
+		Classifier classifier = new Classifier(20, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH);
+		PretrainedModel model = new PretrainedModel(classifier, null);
+		model.setVersion(version);
+		return model;
+	}
+
+	private void storedVersion(Long version) {
+		PretrainedModel metadata = version == null ? null : storedModel(version);
+		when(mongoTemplate.findOne(any(Query.class), eq(PretrainedModel.class))).thenReturn(metadata);
+	}
+
+	@Test
+	void loadsOnceAndServesFromMemory() {
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenReturn(Optional.of(storedModel(3)));
+
+		assertEquals(3, cache.get().orElseThrow().version());
+		cache.get();
+		cache.get();
+
+		verify(repository, times(1)).findById(PretrainedModelCache.MODEL_ID);
+	}
+
+	@Test
+	void concurrentColdRequestsShareOneLoad() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await();
+			return Optional.of(storedModel(3));
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Optional<PretrainedModelCache.CachedModel>>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(cache::get));
+			}
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			assertTrue(cache.peek().isEmpty());
+			release.countDown();
+			for (Future<Optional<PretrainedModelCache.CachedModel>> result : results) {
+				assertEquals(3, result.get(5, TimeUnit.SECONDS).orElseThrow().version());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		verify(repository, times(1)).findById(PretrainedModelCache.MODEL_ID);
+	}
+
+	@Test
+	void failedLoadReportsNoModelAndBacksOff() {
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenThrow(new IllegalStateException("down"));
+
+		assertTrue(cache.get().isEmpty());
+		assertTrue(cache.get().isEmpty());
+		verify(repository, times(1)).findById(PretrainedModelCache.MODEL_ID);
+
+		// A successful refresh ends the backoff
+		reset(repository);
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenReturn(Optional.of(storedModel(5)));
+		storedVersion(5L);
+		cache.refresh();
+		assertEquals(5, cache.get().orElseThrow().version());
+	}
+
+	@Test
+	void refreshReloadsOnlyWhenTheStoredVersionChanges() {
+		when(repository.findById(PretrainedModelCache.MODEL_ID))
+				.thenReturn(Optional.of(storedModel(3))).thenReturn(Optional.of(storedModel(4)));
+		storedVersion(3L);
+		cache.refresh();
+		cache.refresh();
+		assertEquals(3, cache.get().orElseThrow().version());
+		verify(repository, times(1)).findById(PretrainedModelCache.MODEL_ID);
+
+		storedVersion(4L);
+		cache.refresh();
+		assertEquals(4, cache.get().orElseThrow().version());
+
+		storedVersion(null);
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenReturn(Optional.empty());
+		cache.refresh();
+		assertTrue(cache.get().isEmpty());
+	}
+
+	@Test
+	void saveSwapsTheCachedModelWithANewerVersion() {
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenReturn(Optional.of(storedModel(3)));
+		Classifier before = cache.get().orElseThrow().classifier();
+
+		Classifier trained = new Classifier(20, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH);
+		when(repository.save(any(PretrainedModel.class))).thenAnswer(invocation -> {
+			PretrainedModel model = invocation.getArgument(0);
+			assertNotNull(model.getModelData());
+			assertNull(model.getWeights());
+			return model;
+		});
+		PretrainedModelCache.CachedModel saved = cache.save(trained, null);
+
+		verify(repository).save(any(PretrainedModel.class));
+		verifyNoInteractions(gridFsTemplate);
+		assertTrue(saved.version() > 3);
+		assertNotSame(before, cache.get().orElseThrow().classifier());
+		assertNotSame(trained, saved.classifier());
+		assertArrayEquals(trained.getBiases()[0], saved.classifier().getBiases()[0]);
+		assertNull(cache.get().orElseThrow().document().getModelData());
+	}
+
+	@Test
+	void saveDuringAReloadLeavesTheSavedModelCached() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		storedVersion(3L);
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await();
+			return Optional.of(storedModel(3));
+		});
+		when(repository.save(any(PretrainedModel.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> refresh = executor.submit(cache::refresh);
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			Classifier trained = new Classifier(20, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH);
+			Future<PretrainedModelCache.CachedModel> saving = executor.submit(() -> cache.save(trained, null));
+			// The reload read the old document; the save must not publish until it has finished
+			Thread.sleep(100);
+			assertFalse(saving.isDone());
+			release.countDown();
+			refresh.get(5, TimeUnit.SECONDS);
+
+			long saved = saving.get(5, TimeUnit.SECONDS).version();
+			assertTrue(saved > 3);
+			assertEquals(saved, cache.get().orElseThrow().version());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void loadsLegacyDocumentsWithNestedWeights() {
+		Classifier classifier = new Classifier(20, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH);
+		PretrainedModel legacy = storedModel(2);
+		legacy.setModelData(null);
+		legacy.setWeights(classifier.getWeights());
+		legacy.setBiases(classifier.getBiases());
+		when(repository.findById(PretrainedModelCache.MODEL_ID)).thenReturn(Optional.of(legacy));
+
+		double[] input = new double[20];
+		input[3] = 2;
+		assertEquals(classifier.predict(input), cache.get().orElseThrow().classifier().predict(input), 1e-12);
+	}
+
+	@Test
+	void localFileWarmsTheCacheOfTheNextInstance(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("model.mlpb");
+		PretrainedModelCache first = new PretrainedModelCache(repository, mongoTemplate, gridFsTemplate, false,
+				file.toString());
+		Classifier trained = new Classifier(20, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH);
+		long version = first.save(trained, null).version();
+		assertTrue(Files.isRegularFile(file));
+
+		PretrainedModelCache second = new PretrainedModelCache(repository, mongoTemplate, gridFsTemplate, false,
+				file.toString());
+		PretrainedModelCache.CachedModel warm = second.get().orElseThrow();
+		assertEquals(version, warm.version());
+		assertArrayEquals(trained.getBiases()[1], warm.classifier().getBiases()[1]);
+		assertEquals(version, warm.document().getVersion());
+		assertArrayEquals(new int[]{4}, warm.document().getHiddenSizes());
+		assertEquals("TANH", warm.document().getActivationFunction());
+		assertNull(warm.document().getModelData());
+		verify(repository, never()).findById(any());
+	}
+
+	@Test
+	void corruptLocalFileIsIgnoredAtStartup(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("model.mlpb");
+		byte[] data = ModelCodec.encode(new Classifier(20, new int[]{4}, 0.1, Classifier.ActivationFunction.TANH),
+				false, 3);
+		ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(16 + 2 + "TANH".length() + 8 + 4,
+				Integer.MAX_VALUE);
+		Files.write(file, data);
+		storedVersion(null);
+
+		PretrainedModelCache cache = new PretrainedModelCache(repository, mongoTemplate, gridFsTemplate, false,
+				file.toString());
+		assertTrue(cache.get().isEmpty());
+	}
+
+	@Test
+	void refreshSurvivesAnUnreachableDatabase() {
+		when(mongoTemplate.findOne(any(Query.class), eq(PretrainedModel.class)))
+				.thenThrow(new IllegalStateException("down"));
+		assertDoesNotThrow(cache::refresh);
+	}
+}
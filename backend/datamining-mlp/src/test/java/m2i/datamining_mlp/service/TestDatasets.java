@@ -0,0 +1,63 @@
+package m2i.datamining_mlp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import m2i.datamining_mlp.dataset.DatasetCache;
+import m2i.datamining_mlp.dataset.LabeledDataset;
+import m2i.datamining_mlp.model.SparseMatrix;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Synthetic datasets and the services trained on them, shared by the service tests.
+ */
+final class TestDatasets {
+
+	private TestDatasets() {
+	}
+
+	/**
+	 * Rows with every feature set to uniform noise plus a label dependent shift, so a small network can
+	 * separate them. The same seed always gives the same rows.
+	 * @param signal The shift of a feature, from its column and the row's label
+	 */
+	static LabeledDataset labeled(int rows, int features, long seed, IntBinaryOperator signal) {
+		Random random = new Random(seed);
+		int[] rowPointers = new int[rows + 1];
+		int[] columns = new int[rows * features];
+		double[] values = new double[rows * features];
+		int[] labels = new int[rows];
+		for (int r = 0; r < rows; r++) {
+			labels[r] = random.nextInt(2);
+			for (int c = 0; c < features; c++) {
+				int entry = r * features + c;
+				columns[entry] = c;
+				values[entry] = random.nextDouble() + signal.applyAsInt(c, labels[r]);
+			}
+			rowPointers[r + 1] = (r + 1) * features;
+		}
+		return new LabeledDataset(new SparseMatrix(features, rowPointers, columns, values), labels);
+	}
+
+	/**
+	 * A dataset cache that returns {@code dataset} for any path.
+	 */
+	static DatasetCache datasetCache(LabeledDataset dataset) throws IOException {
+		DatasetCache datasetCache = mock(DatasetCache.class);
+		when(datasetCache.load(any(Path.class))).thenReturn(dataset);
+		return datasetCache;
+	}
+
+	/**
+	 * A classifier service training on {@code dataset}, with no pretrained model and nothing persisted.
+	 */
+	static ClassifierService classifierService(LabeledDataset dataset, MeterRegistry meterRegistry) throws IOException {
+		return new ClassifierService(mock(PretrainedModelCache.class), datasetCache(dataset), mock(ModelRegistry.class),
+				new ClassifierMetrics(meterRegistry), 1000, 60_000);
+	}
+}
@@ -0,0 +1,76 @@
+package m2i.datamining_mlp.service;
+
+import m2i.datamining_mlp.DTO.TrainingRequest;
+import m2i.datamining_mlp.DTO.TrainingResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TrainingJobServiceTest {
+
+	private ClassifierService classifierService;
+	private TrainingJobService service;
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() {
+		classifierService = mock(ClassifierService.class);
+		// Reports an epoch, then trains until cancelled
+		when(classifierService.trainModel(any(TrainingRequest.class), any(TrainingListener.class))).thenAnswer(call -> {
+			TrainingListener listener = call.getArgument(1);
+			listener.onEpoch(0, 0.25);
+			started.countDown();
+			while (!listener.isCancelled()) {
+				Thread.sleep(5);
+			}
+			TrainingResponse response = new TrainingResponse();
+			response.setStatus("cancelled");
+			return response;
+		});
+		service = new TrainingJobService(classifierService, 1, 1, 8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void runningJobReportsProgressAndCanBeCancelled() throws Exception {
+		TrainingJob job = service.submit(new TrainingRequest());
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(TrainingJob.Status.RUNNING, job.getStatus());
+		Map<String, Object> description = service.find(job.getId()).orElseThrow().describe();
+		assertEquals(1, ((List<?>) description.get("epochLosses")).size());
+
+		assertTrue(service.cancel(job.getId()));
+		TrainingResponse response = job.getResult().get(5, TimeUnit.SECONDS);
+		assertEquals("cancelled", response.getStatus());
+		assertEquals(TrainingJob.Status.CANCELLED, job.getStatus());
+		assertFalse(service.cancel(job.getId()));
+	}
+
+	@Test
+	void queueIsBoundedAndQueuedJobsCancelWithoutRunning() throws Exception {
+		TrainingJob running = service.submit(new TrainingRequest());
+		TrainingJob queued = service.submit(new TrainingRequest());
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertThrows(RejectedExecutionException.class, () -> service.submit(new TrainingRequest()));
+
+		assertTrue(service.cancel(queued.getId()));
+		assertTrue(service.cancel(running.getId()));
+		assertEquals("cancelled", queued.getResult().get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(TrainingJob.Status.CANCELLED, queued.getStatus());
+		verify(classifierService, times(1)).trainModel(any(TrainingRequest.class), any(TrainingListener.class));
+	}
+}